@@ -0,0 +1,218 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/*
+checks BarcodeDetector's accuracy and speed on a set of frames, and compares its speed with a plain
+full resolution HSV threshold over the same ROIs
+
+with no arguments it makes its own test set: 640x480 frames of grey mat with the alliance's tape, the
+three barcode squares and a duck on one of them, at random brightness, with sensor noise, a second duck
+in the background on some frames, and the duck moved around on its barcode. with a folder as the
+argument it uses recorded frames instead (png or jpg, for example saved from the webcam). their names
+say what is in them, like red-warehouse-level2-017.png
+ */
+public class BarcodeDetectorBenchmark {
+    static final int WIDTH=640,HEIGHT=480;
+    static final int FRAMES=300;
+    static final int REPEATS=20;//times every frame is timed
+
+    public static void main(String[] args) throws IOException{
+        check();
+        Frame[] frames=args.length>0?load(new File(args[0])):synthesize(new Random(21));
+        int right=0;
+        int[] wrong=new int[4];//by the level that was expected
+        long fast=0,plain=0;
+        int disagree=0;
+        float[] hsv=new float[3];
+        for(Frame frame:frames){
+            BarcodeDetector detector=new BarcodeDetector(frame.firstBarcode);
+            detector.process(frame.pixels,frame.width,frame.height);//first call makes the integral image
+            if(detector.getLevel()==frame.level)
+                right++;
+            else
+                wrong[frame.level]++;
+            long start=System.nanoTime();
+            for(int i=0;i<REPEATS;i++){
+                detector.process(frame.pixels,frame.width,frame.height);
+            }
+            fast+=System.nanoTime()-start;
+            start=System.nanoTime();
+            int plainLevel=0;
+            for(int i=0;i<REPEATS;i++){
+                plainLevel=plainHsv(detector,frame,hsv);
+            }
+            if(plainLevel!=detector.getLevel())
+                disagree++;
+            plain+=System.nanoTime()-start;
+        }
+        int timed=frames.length*REPEATS;
+        System.out.printf("%d frames: %d right (%.1f%%), wrong by level %s%n",frames.length,right,100.0*right/frames.length,Arrays.toString(Arrays.copyOfRange(wrong,1,4)));
+        System.out.printf("BarcodeDetector            %.3f ms a frame%n",fast/1e6/timed);
+        System.out.printf("full resolution HSV        %.3f ms a frame, disagrees on %d frames%n",plain/1e6/timed,disagree);
+        if(args.length==0&&right<frames.length*0.99)
+            throw new AssertionError("less than 99% right on the made up frames");
+    }
+
+    static class Frame {
+        int[] pixels;
+        int width,height;
+        int firstBarcode;
+        int level;
+    }
+
+    static int plainHsv(BarcodeDetector detector,Frame frame,float[] hsv){//every pixel of every ROI through Color.RGBtoHSB, the usual first try
+        int level=0;
+        double best=BarcodeDetector.MIN_FRACTION;
+        for(int i=1;i<=3;i++){
+            double[] roi=detector.getRoi(i);
+            int x0=(int)(roi[0]*frame.width),y0=(int)(roi[1]*frame.height),x1=(int)(roi[2]*frame.width),y1=(int)(roi[3]*frame.height);
+            int marked=0;
+            for(int y=y0;y<y1;y++){
+                for(int x=x0;x<x1;x++){
+                    int pixel=frame.pixels[y*frame.width+x];
+                    Color.RGBtoHSB((pixel>>16)&0xFF,(pixel>>8)&0xFF,pixel&0xFF,hsv);
+                    if(hsv[0]>=35/360f&&hsv[0]<=65/360f&&hsv[1]>=0.5f&&hsv[2]>=0.25f)
+                        marked++;
+                }
+            }
+            double fraction=(double)marked/((x1-x0)*(y1-y0));
+            if(fraction>=best){
+                best=fraction;
+                level=i;
+            }
+        }
+        return level;
+    }
+
+    static Frame[] synthesize(Random random){
+        int[] firsts={FieldMap.BC1,FieldMap.BW1,FieldMap.RC1,FieldMap.RW1};
+        Frame[] frames=new Frame[FRAMES];
+        for(int f=0;f<FRAMES;f++){
+            Frame frame=new Frame();
+            frame.width=WIDTH;
+            frame.height=HEIGHT;
+            frame.firstBarcode=firsts[random.nextInt(4)];
+            frame.level=1+random.nextInt(3);
+            boolean blue=FieldMap.x(frame.firstBarcode)<FieldMap.FIELD_SIZE/2;
+            int place=blue?frame.level-1:3-frame.level;//left to right in the frame, see BarcodeDetector
+            double light=0.55+random.nextDouble()*0.7;
+            int[] pixels=new int[WIDTH*HEIGHT];
+            for(int y=0;y<HEIGHT;y++){
+                double shade=light*(0.85+0.3*y/HEIGHT);//brighter nearer the camera
+                for(int x=0;x<WIDTH;x++){
+                    int r=105,g=108,b=112;//grey mat
+                    double v=y/(double)HEIGHT;
+                    if(v>0.9&&v<0.94){//alliance tape
+                        r=blue?30:200;
+                        g=35;
+                        b=blue?190:35;
+                    }
+                    for(int i=0;i<3;i++){//barcode squares
+                        double cx=(i+0.5)/3*WIDTH,cy=0.72*HEIGHT;
+                        if(Math.abs(x-cx)<40&&Math.abs(y-cy)<30){
+                            r=185;
+                            g=185;
+                            b=185;
+                        }
+                    }
+                    pixels[y*WIDTH+x]=rgb(r*shade,g*shade,b*shade,random);
+                }
+            }
+            drawDuck(pixels,(place+0.5)/3*WIDTH+(random.nextDouble()-0.5)*80,0.62*HEIGHT+(random.nextDouble()-0.5)*50,35+random.nextDouble()*25,light,random);
+            if(random.nextInt(4)==0)//another duck far away, above the ROIs
+                drawDuck(pixels,random.nextDouble()*WIDTH,0.12*HEIGHT,12+random.nextDouble()*10,light,random);
+            frame.pixels=pixels;
+            frames[f]=frame;
+        }
+        return frames;
+    }
+
+    static void drawDuck(int[] pixels,double cx,double cy,double radius,double light,Random random){
+        for(int y=(int)Math.max(0,cy-radius);y<Math.min(HEIGHT,cy+radius);y++){
+            for(int x=(int)Math.max(0,cx-radius*1.3);x<Math.min(WIDTH,cx+radius*1.3);x++){
+                double dx=(x-cx)/(radius*1.3),dy=(y-cy)/radius;
+                if(dx*dx+dy*dy>1)
+                    continue;
+                double shade=light*(1.05-0.45*(dy+1)/2);//lit from above
+                pixels[y*WIDTH+x]=rgb(250*shade,205*shade,15*shade,random);
+            }
+        }
+    }
+
+    static int rgb(double r,double g,double b,Random random){
+        double noise=8;
+        return 0xFF000000|clamp(r+random.nextGaussian()*noise)<<16|clamp(g+random.nextGaussian()*noise)<<8|clamp(b+random.nextGaussian()*noise);
+    }
+
+    static int clamp(double value){
+        return (int)Math.max(0,Math.min(255,value));
+    }
+
+    static Frame[] load(File folder) throws IOException{
+        File[] files=folder.listFiles();
+        if(files==null)
+            throw new IOException(folder+" isn't a folder");
+        Arrays.sort(files);
+        Frame[] frames=new Frame[files.length];
+        int count=0;
+        for(File file:files){
+            String name=file.getName().toLowerCase();
+            if(!name.endsWith(".png")&&!name.endsWith(".jpg"))
+                continue;
+            Frame frame=new Frame();
+            frame.firstBarcode=name.contains("red")?(name.contains("warehouse")?FieldMap.RW1:FieldMap.RC1)
+                    :(name.contains("warehouse")?FieldMap.BW1:FieldMap.BC1);
+            frame.level=name.contains("level1")?1:name.contains("level2")?2:name.contains("level3")?3:0;
+            if(frame.level==0)
+                throw new IOException(file.getName()+" doesn't say which level it is, like level2");
+            BufferedImage image=ImageIO.read(file);
+            if(image==null)
+                throw new IOException(file.getName()+" isn't an image");
+            frame.width=image.getWidth();
+            frame.height=image.getHeight();
+            frame.pixels=image.getRGB(0,0,frame.width,frame.height,null,0,frame.width);
+            frames[count++]=frame;
+        }
+        if(count==0)
+            throw new IOException("there are no png or jpg frames in "+folder);
+        return Arrays.copyOf(frames,count);
+    }
+
+    static void check(){
+        BarcodeDetector blue=new BarcodeDetector(FieldMap.BC1);
+        BarcodeDetector red=new BarcodeDetector(FieldMap.RW1);
+        int[] pixels=new int[WIDTH*HEIGHT];
+        Arrays.fill(pixels,0xFF6A6C70);
+        expect(blue.process(pixels,WIDTH,HEIGHT),0,"nothing in a plain frame");
+        expect(blue.getBarcode(),-1,"no barcode");
+        for(int y=HEIGHT/2;y<HEIGHT*3/4;y++){
+            for(int x=10;x<WIDTH/3-10;x++){
+                pixels[y*WIDTH+x]=0xFFF0D010;//yellow on the left third
+            }
+        }
+        expect(blue.process(pixels,WIDTH,HEIGHT),1,"blue, left is level 1");
+        expect(blue.getBarcode(),FieldMap.BC1,"blue barcode");
+        expect(red.process(pixels,WIDTH,HEIGHT),3,"red, left is level 3");
+        expect(red.getBarcode(),FieldMap.RW3,"red barcode");
+        expect(blue.count(0,0,1,1),(WIDTH/3-20)/BarcodeDetector.STEP*(HEIGHT/4)/BarcodeDetector.STEP,"marked pixels in the whole frame");
+        try{
+            new BarcodeDetector(FieldMap.BC2);
+            throw new AssertionError("BC2 isn't the first of a set");
+        }catch(IllegalArgumentException expected){
+        }
+        System.out.println("detector checks passed");
+    }
+
+    static void expect(long got,long want,String name){
+        if(got!=want)
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
@@ -0,0 +1,96 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+times FieldZoneIndex against testing every zone and point one by one, and checks that both give the
+same answers
+ */
+public class FieldZoneIndexBenchmark {
+    static final int QUERIES_PER_LOOP=5000;//how many positions one simulated control loop asks about
+    static final int WARMUP_LOOPS=200;
+    static final int LOOPS=1000;
+
+    static long sink;
+
+    public static void main(String[] args){
+        FieldZoneIndex index=FieldZoneIndex.freightFrenzy();
+        Random random=new Random(2021);
+        double[] xs=new double[QUERIES_PER_LOOP],ys=new double[QUERIES_PER_LOOP];
+        for(int i=0;i<QUERIES_PER_LOOP;i++){
+            xs[i]=random.nextDouble()*FieldMap.FIELD_SIZE;
+            ys[i]=random.nextDouble()*FieldMap.FIELD_SIZE;
+        }
+
+        for(int i=0;i<QUERIES_PER_LOOP;i++){//make sure the grid doesn't change any answers
+            if(index.zonesAt(xs[i],ys[i])!=linearZones(index,xs[i],ys[i]))
+                throw new AssertionError("zone mismatch at "+xs[i]+","+ys[i]);
+            if(distance(index,index.nearestPoint(xs[i],ys[i]),xs[i],ys[i])!=distance(index,linearNearest(index,xs[i],ys[i]),xs[i],ys[i]))
+                throw new AssertionError("nearest point mismatch at "+xs[i]+","+ys[i]);
+        }
+        for(int i=0;i<1000;i++){//positions past the walls, for a robot whose odometry has drifted off the field
+            double x=random.nextDouble()*3*FieldMap.FIELD_SIZE-FieldMap.FIELD_SIZE;
+            double y=random.nextDouble()*3*FieldMap.FIELD_SIZE-FieldMap.FIELD_SIZE;
+            if(distance(index,index.nearestPoint(x,y),x,y)!=distance(index,linearNearest(index,x,y),x,y))
+                throw new AssertionError("nearest point mismatch at "+x+","+y);
+        }
+
+        for(int i=0;i<WARMUP_LOOPS;i++){
+            indexed(index,xs,ys);
+            linear(index,xs,ys);
+        }
+        long indexedTime=0,linearTime=0;
+        for(int i=0;i<LOOPS;i++){
+            long start=System.nanoTime();
+            indexed(index,xs,ys);
+            indexedTime+=System.nanoTime()-start;
+
+            start=System.nanoTime();
+            linear(index,xs,ys);
+            linearTime+=System.nanoTime()-start;
+        }
+        System.out.printf("%d zones, %d points, %d queries per loop%n",index.zoneCount(),index.pointCount(),QUERIES_PER_LOOP);
+        System.out.printf("grid:   %.1f us per loop%n",indexedTime/1000.0/LOOPS);
+        System.out.printf("linear: %.1f us per loop%n",linearTime/1000.0/LOOPS);
+        System.out.println("(ignore) "+sink);
+    }
+
+    static void indexed(FieldZoneIndex index,double[] xs,double[] ys){
+        for(int i=0;i<xs.length;i++){
+            sink+=index.zonesAt(xs[i],ys[i])+index.nearestPoint(xs[i],ys[i]);
+        }
+    }
+
+    static void linear(FieldZoneIndex index,double[] xs,double[] ys){
+        for(int i=0;i<xs.length;i++){
+            sink+=linearZones(index,xs[i],ys[i])+linearNearest(index,xs[i],ys[i]);
+        }
+    }
+
+    static long linearZones(FieldZoneIndex index,double x,double y){//test every zone
+        long mask=0;
+        for(int zone=0;zone<index.zoneCount();zone++){
+            if(index.containsExact(zone,x,y))
+                mask|=1L<<zone;
+        }
+        return mask;
+    }
+
+    static int linearNearest(FieldZoneIndex index,double x,double y){//test every point
+        int nearest=-1;
+        double best=Double.MAX_VALUE;
+        for(int i=0;i<index.pointCount();i++){
+            double d=distance(index,i,x,y);
+            if(d<best){
+                best=d;
+                nearest=i;
+            }
+        }
+        return nearest;
+    }
+
+    static double distance(FieldZoneIndex index,int point,double x,double y){
+        Point p=index.getPoint(point);
+        return Math.hypot(p.x-x,p.y-y);
+    }
+}
@@ -0,0 +1,193 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/*
+compares ConceptWebcam's way of capturing frames (a new buffer for every frame, in a queue that throws
+away the oldest) with FramePool, for how much the camera's thread allocates, how much the garbage
+collector runs, and how long each frame callback takes
+
+frames are int[] pixels at 1280x720 instead of Bitmaps, copied from a fixed source frame at 30 frames a
+second. the op mode side takes a frame every 50 ms, slower than the camera, so both ways drop frames.
+run it with a small heap, like the robot controller app has:
+    java -Xmx128m -cp out org.firstinspires.ftc.teamcode.FramePoolBenchmark
+ */
+public class FramePoolBenchmark {
+    static final int WIDTH=1280,HEIGHT=720;
+    static final double FPS=30;
+    static final long CONSUMER_MS=50;
+    static final double SECONDS=4;
+
+    static final int[] source=new int[WIDTH*HEIGHT];//stand in for the camera's frame
+    static volatile long checksum;//so the copies can't be optimized away
+
+    public static void main(String[] args) throws InterruptedException{
+        check();
+        for(int i=0;i<source.length;i++){
+            source[i]=i*31;
+        }
+        allocating();
+        pooled();
+    }
+
+    static void allocating() throws InterruptedException{//like ConceptWebcam's EvictingBlockingQueue
+        final ArrayBlockingQueue<int[]> queue=new ArrayBlockingQueue<>(2);
+        final long[] dropped=new long[1];
+        final LatencyHistogram callbacks=new LatencyHistogram(0);
+        Run run=new Run(){
+            void frame(long number){
+                int[] frame=new int[WIDTH*HEIGHT];
+                System.arraycopy(source,0,frame,0,frame.length);
+                while(!queue.offer(frame)){
+                    if(queue.poll()!=null)
+                        dropped[0]++;
+                }
+            }
+            void use(){
+                int[] frame=queue.poll();
+                if(frame!=null){
+                    checksum+=frame[frame.length/2];
+                    delivered++;
+                }
+            }
+        };
+        run.go("new buffer every frame",callbacks);
+        System.out.printf("%-23s %d dropped%n","",dropped[0]);
+    }
+
+    static void pooled() throws InterruptedException{
+        final FramePool<int[]> pool=new FramePool<>(4,2);
+        for(int i=0;i<pool.getCapacity();i++){
+            pool.add(new int[WIDTH*HEIGHT]);
+        }
+        LatencyHistogram callbacks=new LatencyHistogram(0);
+        Run run=new Run(){
+            void frame(long number){
+                int slot=pool.acquire();
+                if(slot<0)
+                    return;
+                System.arraycopy(source,0,pool.get(slot),0,source.length);
+                pool.publish(slot,number,System.nanoTime());
+            }
+            void use(){
+                int slot=pool.poll();
+                if(slot>=0){
+                    checksum+=pool.get(slot)[source.length/2];
+                    pool.release(slot);
+                    delivered++;
+                }
+            }
+        };
+        run.go("FramePool",callbacks);
+        System.out.printf("%-23s %d dropped, %d exhausted, %d published%n","",pool.getDropped(),pool.getExhausted(),pool.getPublished());
+    }
+
+    static abstract class Run {
+        long delivered;
+        private volatile long allocated;
+
+        abstract void frame(long number);//camera thread
+        abstract void use();//op mode thread
+
+        void go(String name,final LatencyHistogram callbacks) throws InterruptedException{
+            final long end=System.nanoTime()+(long)(SECONDS*1e9);
+            Thread camera=new Thread(new Runnable(){
+                public void run(){
+                    long start=allocatedBytes();
+                    long period=(long)(1e9/FPS);
+                    long next=System.nanoTime();
+                    for(long number=0;next<end;number++){
+                        long before=System.nanoTime();
+                        frame(number);
+                        callbacks.record(System.nanoTime()-before);
+                        next+=period;
+                        sleepUntil(next);
+                    }
+                    allocated=allocatedBytes()-start;
+                }
+            },"camera");
+            long gcCount=gcCount(),gcTime=gcTime();
+            camera.start();
+            while(System.nanoTime()<end){
+                use();
+                Thread.sleep(CONSUMER_MS);
+            }
+            camera.join();
+            System.out.printf("%-23s camera thread allocated %6.1f MB, %3d collections taking %4d ms, callback mean %.2f max %.2f ms, %d frames used%n",
+                    name,allocated/1e6,gcCount()-gcCount,gcTime()-gcTime,callbacks.getMean()/1e6,callbacks.getMax()/1e6,delivered);
+        }
+    }
+
+    static void sleepUntil(long time){
+        long left=time-System.nanoTime();
+        if(left>0){
+            try{
+                Thread.sleep(left/1000000,(int)(left%1000000));
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static long allocatedBytes(){//bytes allocated by the current thread, if the JVM can tell
+        java.lang.management.ThreadMXBean threads=ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+
+    static long gcCount(){
+        long count=0;
+        for(GarbageCollectorMXBean gc:ManagementFactory.getGarbageCollectorMXBeans()){
+            count+=gc.getCollectionCount();
+        }
+        return count;
+    }
+
+    static long gcTime(){
+        long time=0;
+        for(GarbageCollectorMXBean gc:ManagementFactory.getGarbageCollectorMXBeans()){
+            time+=gc.getCollectionTime();
+        }
+        return time;
+    }
+
+    static void check(){
+        FramePool<int[]> pool=new FramePool<>(3,1);
+        for(int i=0;i<3;i++){
+            pool.add(new int[1]);
+        }
+        expect(pool.poll(),-1,"poll with nothing published");
+        int a=pool.acquire();
+        pool.publish(a,1,0);
+        int b=pool.acquire();
+        pool.publish(b,2,0);//depth 1, so frame 1 is dropped
+        expect(pool.getDropped(),1,"dropped past the depth");
+        int held=pool.poll();
+        expect(held,b,"poll gets the newest frame left");
+        expect(pool.getFrameNumber(held),2,"frame number");
+        int c=pool.acquire();
+        int d=pool.acquire();
+        pool.publish(d,4,0);
+        expect(pool.acquire(),d,"acquire reuses the waiting frame when nothing is free");
+        expect(pool.getDropped(),2,"dropped when reused");
+        expect(pool.acquire(),-1,"acquire with every buffer in use");
+        expect(pool.getExhausted(),1,"exhausted");
+        pool.release(c);
+        pool.release(held);
+        try{
+            pool.release(held);
+            throw new AssertionError("releasing a slot twice should throw");
+        }catch(IllegalStateException expected){
+        }
+        expect(pool.acquire()>=0?1:0,1,"acquire after release");
+        System.out.println("pool checks passed");
+    }
+
+    static void expect(long got,long want,String name){
+        if(got!=want)
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
@@ -0,0 +1,195 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/*
+compares saving frames the way ConceptWebcam.saveBitmap() does (a quality 100 JPEG, right in the loop)
+with FrameWriter writing raw frames and quality 70 JPEGs on its own thread
+
+a 640x480 frame comes every 1/30 s for SECONDS. for each way it reports how long the loop was held up
+per frame, how many frames were saved and dropped, how long writing took (p50, p99) and how many
+megabytes were written. files go in a temporary folder that is deleted afterwards
+ */
+public class FrameWriterBenchmark {
+    static final int WIDTH=640,HEIGHT=480;
+    static final double FPS=30;
+    static final double SECONDS=4;
+    static final int BUFFERS=4;
+
+    static final JpegEncoder IMAGE_IO=new JpegEncoder(){//the computer's JPEG encoder, standing in for BitmapJpegEncoder
+        private final BufferedImage image=new BufferedImage(WIDTH,HEIGHT,BufferedImage.TYPE_INT_RGB);
+
+        @Override
+        public void encode(int[] argb,int width,int height,int quality,OutputStream out) throws IOException{
+            image.setRGB(0,0,width,height,argb,0,width);
+            ImageWriter writer=ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param=writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality/100f);
+            try(ImageOutputStream stream=ImageIO.createImageOutputStream(out)){
+                writer.setOutput(stream);
+                writer.write(null,new IIOImage(image,null,null),param);
+            }finally{
+                writer.dispose();
+            }
+        }
+    };
+
+    public static void main(String[] args) throws IOException{
+        int[][] frames=frames(new Random(23));
+        File folder=Files.createTempDirectory("frames").toFile();
+        try{
+            inline(frames,new File(folder,"inline"));
+            check(frames,new File(folder,"check.frames"));
+            async("FrameWriter raw",FrameWriter.raw(new File(folder,"match.frames"),WIDTH,HEIGHT,BUFFERS),frames);
+            async("FrameWriter JPEG 70",FrameWriter.jpeg(new File(folder,"jpeg"),WIDTH,HEIGHT,BUFFERS,70,IMAGE_IO),frames);
+        }finally{
+            delete(folder);
+        }
+    }
+
+    static void inline(int[][] frames,File folder) throws IOException{//ConceptWebcam.saveBitmap()
+        folder.mkdirs();
+        LatencyHistogram stalls=new LatencyHistogram(0);
+        long bytes=0;
+        int count=0;
+        long period=(long)(1e9/FPS);
+        long next=System.nanoTime(),end=next+(long)(SECONDS*1e9);
+        int missed=0;
+        while(next<end){
+            long start=System.nanoTime();
+            File file=new File(folder,"webcam-frame-"+count+".jpg");
+            try(OutputStream out=new FileOutputStream(file)){
+                IMAGE_IO.encode(frames[count%frames.length],WIDTH,HEIGHT,100,out);
+            }
+            bytes+=file.length();
+            stalls.record(System.nanoTime()-start);
+            count++;
+            next+=period;
+            while(next<System.nanoTime()){//frames that came and went while the loop was busy
+                next+=period;
+                missed++;
+            }
+            sleepUntil(next);
+        }
+        System.out.printf("%-20s loop held up %6.2f ms a frame (max %6.2f), %3d saved, %3d missed, %5.1f MB%n",
+                "inline JPEG 100",stalls.getMean()/1e6,stalls.getMax()/1e6,count,missed,bytes/1e6);
+    }
+
+    static void async(String name,FrameWriter writer,int[][] frames) throws IOException{
+        LatencyHistogram stalls=new LatencyHistogram(0);
+        writer.start();
+        long next=System.nanoTime(),end=next+(long)(SECONDS*1e9);
+        int count=0;
+        while(next<end){
+            long start=System.nanoTime();
+            writer.offer(frames[count%frames.length],count,start);
+            stalls.record(System.nanoTime()-start);
+            count++;
+            next+=(long)(1e9/FPS);
+            sleepUntil(next);
+        }
+        writer.stop();
+        if(writer.getError()!=null)
+            throw writer.getError();
+        if(writer.getWritten()+writer.getDropped()!=count)
+            throw new AssertionError(name+": "+count+" offered but "+writer.getWritten()+" written and "+writer.getDropped()+" dropped");
+        System.out.printf("%-20s loop held up %6.2f ms a frame (max %6.2f), %3d saved, %3d dropped, %5.1f MB, write p50 %.1f p99 %.1f ms, age p99 %.1f ms%n",
+                name,stalls.getMean()/1e6,stalls.getMax()/1e6,writer.getWritten(),writer.getDropped(),writer.getBytes()/1e6,
+                writer.getWriteLatency(0.5)/1e6,writer.getWriteLatency(0.99)/1e6,writer.getAge(0.99)/1e6);
+    }
+
+    static void check(int[][] frames,File file) throws IOException{//read a raw file back
+        FrameWriter writer=FrameWriter.raw(file,WIDTH,HEIGHT,BUFFERS);
+        writer.start();
+        writer.offer(frames[0],7,123);
+        writer.offer(frames[1],8,456);
+        writer.stop();
+        try(DataInputStream in=new DataInputStream(new FileInputStream(file))){
+            byte[] all=new byte[(int)file.length()];
+            in.readFully(all);
+            ByteBuffer data=ByteBuffer.wrap(all).order(ByteOrder.LITTLE_ENDIAN);
+            expect(data.getInt(),FrameWriter.MAGIC,"magic");
+            expect(data.getShort(),FrameWriter.VERSION,"version");
+            data.getShort();
+            for(int f=0;f<2;f++){
+                expect(data.getInt(),WIDTH,"width");
+                expect(data.getInt(),HEIGHT,"height");
+                expect(data.getLong(),7+f,"frame number");
+                expect(data.getLong(),f==0?123:456,"capture time");
+                for(int i=0;i<WIDTH*HEIGHT;i++){
+                    if(data.getInt()!=frames[f][i])
+                        throw new AssertionError("pixel "+i+" of frame "+f+" is different");
+                }
+            }
+            expect(data.remaining(),0,"nothing after the last frame");
+        }
+        System.out.println("raw file checks passed");
+    }
+
+    static int[][] frames(Random random){//a few frames that look a bit like a camera's: shading, shapes and noise
+        int[][] frames=new int[8][WIDTH*HEIGHT];
+        for(int[] frame:frames){
+            int cx=random.nextInt(WIDTH),cy=random.nextInt(HEIGHT);
+            for(int y=0;y<HEIGHT;y++){
+                for(int x=0;x<WIDTH;x++){
+                    double shade=0.6+0.4*y/HEIGHT;
+                    int r=110,g=112,b=118;
+                    if(Math.hypot(x-cx,y-cy)<60){
+                        r=240;
+                        g=200;
+                        b=20;
+                    }
+                    frame[y*WIDTH+x]=0xFF000000|noisy(r*shade,random)<<16|noisy(g*shade,random)<<8|noisy(b*shade,random);
+                }
+            }
+        }
+        return frames;
+    }
+
+    static int noisy(double value,Random random){
+        return (int)Math.max(0,Math.min(255,value+random.nextGaussian()*6));
+    }
+
+    static void sleepUntil(long time){
+        long left=time-System.nanoTime();
+        if(left>0){
+            try{
+                Thread.sleep(left/1000000,(int)(left%1000000));
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static void delete(File file){
+        File[] children=file.listFiles();
+        if(children!=null){
+            for(File child:children){
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    static void expect(long got,long want,String name){
+        if(got!=want)
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+times GridPlanner on a path between every pair of points in FieldMap, and checks that every path it
+returns stays clear of obstacles
+ */
+public class GridPlannerBenchmark {
+    static final double ROBOT_RADIUS=9;//an 18 inch robot
+    static final double[] RESOLUTIONS={1,2,3};
+    static final int WARMUP_ROUNDS=20;
+    static final int ROUNDS=50;
+
+    public static void main(String[] args){
+        for(double resolution:RESOLUTIONS){
+            long buildStart=System.nanoTime();
+            GridPlanner planner=GridPlanner.freightFrenzy(resolution,ROBOT_RADIUS);
+            long buildTime=System.nanoTime()-buildStart;
+            double[] path=new double[2*planner.maxWaypoints()];
+
+            int plans=0,failed=0;
+            for(int from=0;from<FieldMap.count();from++){//check every path once before timing
+                for(int to=0;to<FieldMap.count();to++){
+                    int waypoints=planner.plan(FieldMap.x(from),FieldMap.y(from),FieldMap.x(to),FieldMap.y(to),path);
+                    if(waypoints<0){
+                        failed++;
+                        continue;
+                    }
+                    plans++;
+                    checkPath(planner,path,waypoints,FieldMap.name(from)+" to "+FieldMap.name(to));
+                }
+            }
+
+            for(int i=0;i<WARMUP_ROUNDS;i++){
+                planAll(planner,path);
+            }
+            long worst=0,total=0,expanded=0;
+            for(int i=0;i<ROUNDS;i++){
+                for(int from=0;from<FieldMap.count();from++){
+                    for(int to=0;to<FieldMap.count();to++){
+                        long start=System.nanoTime();
+                        planner.plan(FieldMap.x(from),FieldMap.y(from),FieldMap.x(to),FieldMap.y(to),path);
+                        long time=System.nanoTime()-start;
+                        total+=time;
+                        worst=Math.max(worst,time);
+                        expanded+=planner.lastCellsExpanded();
+                    }
+                }
+            }
+            int count=ROUNDS*FieldMap.count()*FieldMap.count();
+            System.out.printf("resolution %.0f in: build %.2f ms, %d paths (%d unreachable), mean %.1f us, worst %.1f us, %.0f cells expanded per plan%n",
+                    resolution,buildTime/1e6,plans,failed,total/1000.0/count,worst/1000.0,(double)expanded/count);
+        }
+    }
+
+    static void planAll(GridPlanner planner,double[] path){
+        for(int from=0;from<FieldMap.count();from++){
+            for(int to=0;to<FieldMap.count();to++){
+                planner.plan(FieldMap.x(from),FieldMap.y(from),FieldMap.x(to),FieldMap.y(to),path);
+            }
+        }
+    }
+
+    static void checkPath(GridPlanner planner,double[] path,int waypoints,String name){//sample every segment at a quarter of the resolution
+        double step=planner.getResolution()/4;
+        for(int i=1;i<waypoints;i++){
+            double x0=path[2*i-2],y0=path[2*i-1],x1=path[2*i],y1=path[2*i+1];
+            int samples=(int)Math.ceil(Math.hypot(x1-x0,y1-y0)/step);
+            for(int s=0;s<=samples;s++){
+                double t=samples==0?0:(double)s/samples;
+                double x=x0+(x1-x0)*t,y=y0+(y1-y0)*t;
+                if(planner.clearance(x,y)<planner.getRobotRadius()-planner.getResolution())
+                    throw new AssertionError(name+" passes too close to an obstacle at "+x+","+y);
+            }
+        }
+    }
+}
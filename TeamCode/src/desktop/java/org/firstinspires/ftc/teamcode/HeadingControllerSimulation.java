@@ -0,0 +1,144 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+simulates a robot turning in place and compares how long it takes to settle on a new heading using
+the P only steering from the Pushbot gyro sample (getError/getSteer/onHeading) and using PidController
+
+the simulated robot has a top turning speed, takes time to speed up and slow down, has static friction
+(powers under STATIC_POWER don't move it) and a heading sensor that reads in steps of 0.1 degree.
+settled means the heading stayed within 1 degree of the target from then on
+
+a PidController turn ends when isSettled() says so, like a turn command in an op mode would, and the
+motors are stopped there. the simulation checks that it does end, and that the robot is and stays
+within 1 degree of the target after it stopped, so isSettled() is a safe place to move on
+ */
+public class HeadingControllerSimulation {
+    //the simulated robot
+    static final double MAX_RATE=300;//degrees per second at full power
+    static final double TIME_CONSTANT=0.12;//seconds to reach about 2/3 of a new speed
+    static final double STATIC_POWER=0.08;
+    static final double SENSOR_STEP=0.1;
+    static final double DT=0.01;//100 Hz control loop
+    static final double MAX_SECONDS=5;
+
+    //the Pushbot sample's settings
+    static final double TURN_SPEED=0.5;
+    static final double HEADING_THRESHOLD=1;
+    static final double P_TURN_COEFF=0.1;
+
+    static final double[] TURNS={15,45,90,179};
+
+    public static void main(String[] args){
+        check();
+        for(int i=0;i<200;i++){//warm up the JIT so the timing column means something
+            simulate(TURNS[i%TURNS.length],newHeadingController());
+        }
+        System.out.println("turn    P only: settle  overshoot   PID: settle  isSettled  overshoot   PID per update");
+        for(double turn:TURNS){
+            Result p=simulate(turn,null);
+            Result pid=simulate(turn,newHeadingController());
+            if(pid.doneTime<0)
+                throw new AssertionError("the "+turn+" degree turn never got isSettled()");
+            if(pid.settleTime<0||pid.settleTime>pid.doneTime)
+                throw new AssertionError("the "+turn+" degree turn was outside "+HEADING_THRESHOLD+" degrees after isSettled() at "+pid.doneTime+" s");
+            System.out.printf("%4.0f deg    %6s s  %5.1f deg     %6s s   %6.2f s  %5.1f deg     %.0f ns%n",turn,
+                    p.settled(),p.overshoot,pid.settled(),pid.doneTime,pid.overshoot,pid.updateNanos);
+        }
+    }
+
+    static void check(){//isSettled() needs the last update inside the tolerance, even with no settle time
+        PidController pid=new PidController(0.02,0,0);
+        if(pid.isSettled())
+            throw new AssertionError("settled before any update");
+        pid.update(10,0,0,DT);
+        if(pid.isSettled())
+            throw new AssertionError("settled 10 away with the default tolerance");
+        pid.update(10,0,10,DT);
+        if(!pid.isSettled())
+            throw new AssertionError("not settled on the setpoint with no settle time");
+        pid.update(10,0,5,DT);
+        if(pid.isSettled())
+            throw new AssertionError("still settled after moving off the setpoint");
+        pid.setTolerance(1,Double.POSITIVE_INFINITY,0.05);
+        for(int i=0;i<5;i++){
+            if(pid.isSettled())
+                throw new AssertionError("settled after "+i+" updates inside the tolerance, before 0.05 s");
+            pid.update(10,0,9.5,DT);
+        }
+        if(!pid.isSettled())
+            throw new AssertionError("not settled after 0.05 s inside the tolerance");
+    }
+
+    static class Result {
+        double settleTime=-1;//-1 if it never settled
+        double doneTime=-1;//when PidController.isSettled() ended the turn, -1 if it never did
+        double overshoot;
+        double updateNanos;
+
+        String settled(){
+            return settleTime<0?"never":String.format("%.2f",settleTime);
+        }
+    }
+
+    static double wrap(double degrees){
+        while(degrees>180)
+            degrees-=360;
+        while(degrees<=-180)
+            degrees+=360;
+        return degrees;
+    }
+
+    static PidController newHeadingController(){//PD plus kS was the fastest to settle; I only made it overshoot here
+        PidController pid=new PidController(0.02,0,0.0015);
+        pid.setFeedforward(STATIC_POWER,0);
+        pid.setContinuous(-180,180);
+        pid.setTolerance(0.5,5,0.25);
+        return pid;
+    }
+
+    static Result simulate(double target,PidController pid){//pass null for the Pushbot sample's P only steering
+        Result result=new Result();
+        double heading=0,rate=0;
+        boolean pOnlyDone=false;
+        double lastOutside=0;
+        long pidNanos=0;
+        int pidUpdates=0;
+        for(double t=0;t<MAX_SECONDS;t+=DT){
+            double measured=wrap(Math.round(heading/SENSOR_STEP)*SENSOR_STEP);//like an IMU, -180 to 180
+            double power;
+            if(pid!=null&&result.doneTime>=0){
+                power=0;//the turn is over, the motors are stopped
+            }else if(pid!=null){
+                long start=System.nanoTime();
+                power=pid.update(target,0,measured,DT);
+                pidNanos+=System.nanoTime()-start;
+                pidUpdates++;
+                if(pid.isSettled())
+                    result.doneTime=t+DT;
+            }else{
+                power=0;
+                if(!pOnlyDone){//onHeading: stop for good once inside the threshold, like gyroTurn does
+                    double error=wrap(target-measured);//getError
+                    if(Math.abs(error)<=HEADING_THRESHOLD)
+                        pOnlyDone=true;
+                    else
+                        power=TURN_SPEED*Math.max(-1,Math.min(1,error*P_TURN_COEFF));
+                }
+            }
+
+            double drive=Math.abs(power)<=STATIC_POWER?0:Math.signum(power)*(Math.abs(power)-STATIC_POWER)/(1-STATIC_POWER);
+            rate+=(drive*MAX_RATE-rate)*DT/TIME_CONSTANT;
+            heading+=rate*DT;
+
+            double error=wrap(target-heading);
+            if(Math.abs(error)>HEADING_THRESHOLD)
+                lastOutside=t+DT;
+            if(t>0&&Math.abs(error)<90)//past the target, in the direction of the turn
+                result.overshoot=Math.max(result.overshoot,-error*Math.signum(target));
+        }
+        if(lastOutside<MAX_SECONDS-DT)
+            result.settleTime=lastOutside;
+        result.updateNanos=pidUpdates==0?0:(double)pidNanos/pidUpdates;
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+compares reading and writing two simulated hubs one after the other on one thread (the way op modes
+do it now) with HubIoExecutor's one thread per hub
+ */
+public class HubIoBenchmark {
+    static final int MOTORS_PER_HUB=4;
+    static final double READ_MS=3;//about one bulk read
+    static final double WRITE_MS=4;//about 1 ms per setPower, 4 motors
+    static final double COMPUTE_MS=0.5;//control code between the read and the write
+    static final double SECONDS=3;
+
+    public static void main(String[] args){
+        sequential();
+        threaded();
+    }
+
+    static void sequential(){
+        SimulatedHubIo[] hubs={newHub("control"),newHub("expansion")};
+        int[] positions=new int[MOTORS_PER_HUB];
+        double[] velocities=new double[MOTORS_PER_HUB],powers=new double[MOTORS_PER_HUB];
+        long loops=0,ageTotal=0;
+        long end=System.nanoTime()+(long)(SECONDS*1e9);
+        while(System.nanoTime()<end){
+            long readTime=System.nanoTime();
+            for(SimulatedHubIo hub:hubs){
+                hub.read(positions,velocities);
+            }
+            compute(powers,loops);
+            ageTotal+=System.nanoTime()-readTime;//how old the first hub's read is when it is used
+            for(SimulatedHubIo hub:hubs){
+                hub.write(powers);
+            }
+            loops++;
+        }
+        report("one thread",loops,hubs,ageTotal);
+    }
+
+    static void threaded(){
+        SimulatedHubIo[] hubs={newHub("control"),newHub("expansion")};
+        HubIoExecutor io=new HubIoExecutor(hubs);
+        double[] powers=new double[MOTORS_PER_HUB];
+        long loops=0,ageTotal=0;
+        io.start();
+        long end=System.nanoTime()+(long)(SECONDS*1e9);
+        while(System.nanoTime()<end){
+            io.refresh();
+            if(io.getSampleTime(0)==0)//no read from the hub yet
+                continue;
+            compute(powers,loops);
+            ageTotal+=System.nanoTime()-io.getSampleTime(0);
+            for(int hub=0;hub<io.hubCount();hub++){
+                for(int motor=0;motor<MOTORS_PER_HUB;motor++){
+                    io.setPower(hub,motor,powers[motor]);
+                }
+            }
+            io.send();
+            loops++;
+        }
+        io.stop();
+        report("thread per hub",loops,hubs,ageTotal);
+    }
+
+    static SimulatedHubIo newHub(String name){
+        return new SimulatedHubIo(name,MOTORS_PER_HUB,READ_MS,WRITE_MS);
+    }
+
+    static void compute(double[] powers,long loop){//stand in for real control code
+        long end=System.nanoTime()+(long)(COMPUTE_MS*1e6);
+        while(System.nanoTime()<end){
+            Thread.yield();
+        }
+        for(int i=0;i<powers.length;i++){
+            powers[i]=Math.sin(loop*0.01+i);
+        }
+    }
+
+    static void report(String name,long loops,SimulatedHubIo[] hubs,long ageTotal){
+        System.out.printf("%-15s control loop %6.0f Hz, hub reads %4.0f + %4.0f Hz, hub writes %4.0f + %4.0f Hz, input age %.1f ms%n",
+                name,loops/SECONDS,hubs[0].getReads()/SECONDS,hubs[1].getReads()/SECONDS,
+                hubs[0].getWrites()/SECONDS,hubs[1].getWrites()/SECONDS,ageTotal/1e6/loops);
+    }
+}
@@ -0,0 +1,90 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+compares reading a simulated IMU inline in the control loop (the way the Pushbot gyro sample does it)
+with ImuSampler, for loop rate and for how far the heading the loop uses is from the real heading
+ */
+public class ImuSamplerBenchmark {
+    static final double READ_MS=3;//about one BNO055 I2C read
+    static final double SAMPLE_HZ=100;
+    static final double COMPUTE_MS=0.5;//control code that uses the heading
+    static final double SECONDS=3;
+
+    public static void main(String[] args){
+        check();
+        inline();
+        sampled();
+    }
+
+    static void inline(){
+        SimulatedImuIo imu=new SimulatedImuIo(READ_MS);
+        long loops=0;
+        double errorTotal=0,errorMax=0;
+        long end=System.nanoTime()+(long)(SECONDS*1e9);
+        while(System.nanoTime()<end){
+            double heading=imu.readHeading();
+            imu.readHeadingRate();
+            double error=Math.abs(ImuSampler.wrap(heading-imu.trueHeading(System.nanoTime())));
+            errorTotal+=error;
+            errorMax=Math.max(errorMax,error);
+            compute();
+            loops++;
+        }
+        report("inline",loops,errorTotal,errorMax);
+    }
+
+    static void sampled(){
+        SimulatedImuIo imu=new SimulatedImuIo(READ_MS);
+        ImuSampler sampler=new ImuSampler(imu,SAMPLE_HZ);
+        long loops=0;
+        double rawTotal=0,rawMax=0,nowTotal=0,nowMax=0;
+        sampler.start();
+        long end=System.nanoTime()+(long)(SECONDS*1e9);
+        while(System.nanoTime()<end){
+            sampler.refresh();
+            if(sampler.getSampleSequence()==0)//nothing read yet
+                continue;
+            long now=System.nanoTime();
+            double truth=imu.trueHeading(now);
+            double raw=Math.abs(ImuSampler.wrap(sampler.getHeading()-truth));
+            double extrapolated=Math.abs(ImuSampler.wrap(sampler.getHeadingAt(now)-truth));
+            rawTotal+=raw;
+            rawMax=Math.max(rawMax,raw);
+            nowTotal+=extrapolated;
+            nowMax=Math.max(nowMax,extrapolated);
+            compute();
+            loops++;
+        }
+        sampler.stop();
+        report("sampled, raw",loops,rawTotal,rawMax);
+        report("sampled, now",loops,nowTotal,nowMax);
+        System.out.printf("sampler: %.0f reads a second, %d missed%n",sampler.getReads()/SECONDS,sampler.getMissed());
+    }
+
+    static void compute(){//stand in for real control code
+        long end=System.nanoTime()+(long)(COMPUTE_MS*1e6);
+        while(System.nanoTime()<end){
+            Thread.yield();
+        }
+    }
+
+    static void report(String name,long loops,double errorTotal,double errorMax){
+        System.out.printf("%-13s control loop %6.0f Hz, heading error mean %.2f max %.2f degrees%n",
+                name,loops/SECONDS,errorTotal/loops,errorMax);
+    }
+
+    static void check(){
+        expect(ImuSampler.wrap(190),-170,"wrap 190");
+        expect(ImuSampler.wrap(-190),170,"wrap -190");
+        expect(ImuSampler.wrap(725),5,"wrap 725");
+        expect(ImuSampler.wrap(45),45,"wrap 45");
+        if(new ImuSampler(new SimulatedImuIo(0),SAMPLE_HZ).getHeadingNow()!=0)
+            throw new AssertionError("heading before the first sample should be 0");
+        System.out.println("wrap checks passed");
+    }
+
+    static void expect(double got,double want,String name){
+        if(Math.abs(got-want)>1e-9)
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+checks LatencyHistogram's percentiles against exact ones and measures how much timing a stage with
+LoopTimer costs
+ */
+public class LoopTimerBenchmark {
+    static final int SAMPLES=100_000;
+    static final int STAGES=4;
+    static final int LOOPS=2_000_000;
+
+    public static void main(String[] args){
+        checkPercentiles();
+
+        LoopTimer timer=new LoopTimer(20);
+        int[] stages=new int[STAGES];
+        for(int i=0;i<STAGES;i++){
+            stages[i]=timer.addStage("stage "+i,5);
+        }
+        for(int round=0;round<2;round++){//the first round warms up the JIT
+            timer.reset();
+            long start=System.nanoTime();
+            for(int i=0;i<LOOPS;i++){
+                timer.startLoop();
+                for(int stage:stages){
+                    timer.endStage(stage);
+                }
+                timer.endLoop();
+            }
+            long time=System.nanoTime()-start;
+            if(round==1)
+                System.out.printf("%.1f ns per timed stage (including startLoop and endLoop)%n",(double)time/LOOPS/(STAGES+2));
+        }
+        System.out.print(timer.summary());
+    }
+
+    static void checkPercentiles(){//a long tailed mix, like real loop times
+        Random random=new Random(2021);
+        LatencyHistogram histogram=new LatencyHistogram(10_000_000);
+        long[] times=new long[SAMPLES];
+        long over=0;
+        for(int i=0;i<SAMPLES;i++){
+            times[i]=(long)(2_000_000*Math.exp(random.nextGaussian()));//about 2 ms, sometimes much more
+            histogram.record(times[i]);
+            if(times[i]>10_000_000)
+                over++;
+        }
+        Arrays.sort(times);
+        for(double fraction:new double[]{0.5,0.9,0.99,0.999}){
+            long exact=times[(int)Math.ceil(fraction*SAMPLES)-1];
+            long estimate=histogram.percentile(fraction);
+            if(estimate<exact||estimate>exact*1.13)
+                throw new AssertionError("p"+fraction*100+" is "+estimate+" but should be about "+exact);
+        }
+        if(histogram.getMax()!=times[SAMPLES-1]||histogram.getOverruns()!=over||histogram.getCount()!=SAMPLES)
+            throw new AssertionError("max, overruns or count is wrong");
+        System.out.println("percentile checks passed");
+    }
+}
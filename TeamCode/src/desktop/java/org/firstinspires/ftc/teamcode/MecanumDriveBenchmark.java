@@ -0,0 +1,101 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+checks MecanumDrive's wheel powers and times it against the trig based math TestOpMode_Linear used
+to do every loop
+ */
+public class MecanumDriveBenchmark {
+    static final int SAMPLES=1024;//stick positions, reused every round
+    static final int WARMUP_ROUNDS=2000;
+    static final int ROUNDS=5000;
+    static final double TOLERANCE=1e-9;
+
+    static double sink;
+
+    public static void main(String[] args){
+        check();
+
+        Random random=new Random(2021);
+        double[] xs=new double[SAMPLES],ys=new double[SAMPLES],turns=new double[SAMPLES];
+        for(int i=0;i<SAMPLES;i++){
+            xs[i]=random.nextDouble()*2-1;
+            ys[i]=random.nextDouble()*2-1;
+            turns[i]=random.nextDouble()*2-1;
+        }
+        MecanumDrive drive=new MecanumDrive();
+        for(int i=0;i<WARMUP_ROUNDS;i++){
+            legacy(xs,ys);
+            closedForm(drive,xs,ys,turns);
+        }
+        long legacyTime=0,closedFormTime=0;
+        for(int i=0;i<ROUNDS;i++){
+            long start=System.nanoTime();
+            legacy(xs,ys);
+            legacyTime+=System.nanoTime()-start;
+
+            start=System.nanoTime();
+            closedForm(drive,xs,ys,turns);
+            closedFormTime+=System.nanoTime()-start;
+        }
+        System.out.println("wheel power checks passed");
+        System.out.printf("old trig math: %.1f ns per loop%n",(double)legacyTime/ROUNDS/SAMPLES);
+        System.out.printf("MecanumDrive:  %.1f ns per loop%n",(double)closedFormTime/ROUNDS/SAMPLES);
+        System.out.println("(ignore) "+sink);
+    }
+
+    static void legacy(double[] xs,double[] ys){//the old TestOpMode_Linear math, which had no turning
+        for(int i=0;i<xs.length;i++){
+            double direction=Math.atan2(ys[i],xs[i]);
+            double power=clip(Math.sqrt(Math.pow(xs[i],2)+Math.pow(ys[i],2)),0,1);
+            sink+=clip(Math.sin(direction)+Math.cos(direction),-1,1)*power
+                    +clip(Math.sin(direction)-Math.cos(direction),-1,1)*power
+                    +clip(Math.sin(direction)-Math.cos(direction),-1,1)*power
+                    +clip(Math.sin(direction)+Math.cos(direction),-1,1)*power;
+        }
+    }
+
+    static void closedForm(MecanumDrive drive,double[] xs,double[] ys,double[] turns){
+        for(int i=0;i<xs.length;i++){
+            drive.drive(xs[i],ys[i],turns[i]);
+            sink+=drive.getFrontLeft()+drive.getFrontRight()+drive.getBackLeft()+drive.getBackRight();
+        }
+    }
+
+    static double clip(double v,double min,double max){//same as Range.clip, which needs the FTC SDK
+        return Math.max(min,Math.min(max,v));
+    }
+
+    static void check(){
+        MecanumDrive drive=new MecanumDrive();
+
+        drive.drive(0,1,0);//full forward
+        expect(drive,1,1,1,1,"forward");
+        drive.drive(1,0,0);//full strafe right
+        expect(drive,1,-1,-1,1,"strafe right");
+        drive.drive(0,0,1);//turn clockwise in place
+        expect(drive,1,-1,1,-1,"turn");
+        drive.drive(0.5,0.5,0);//diagonal stays at the stick's size
+        expect(drive,1,0,0,1,"diagonal");
+        drive.drive(1,1,1);//too much of everything gets scaled, keeping the ratios
+        expect(drive,1,-1.0/3,1.0/3,1.0/3,"scaled");
+
+        drive.drive(0.3,0.4,0.2);//small requests aren't scaled
+        expect(drive,0.9,-0.1,0.3,0.5,"unscaled");
+
+        drive.driveFieldCentric(0,1,0,Math.PI/2);//facing left, "away from the driver" is to the robot's right
+        expect(drive,1,-1,-1,1,"field centric");
+        drive.driveFieldCentric(0.3,0.4,0.2,0);//field centric at heading 0 is the same as robot centric
+        expect(drive,0.9,-0.1,0.3,0.5,"field centric heading 0");
+
+        drive.stop();
+        expect(drive,0,0,0,0,"stop");
+    }
+
+    static void expect(MecanumDrive drive,double fl,double fr,double bl,double br,String name){
+        if(Math.abs(drive.getFrontLeft()-fl)>TOLERANCE||Math.abs(drive.getFrontRight()-fr)>TOLERANCE
+                ||Math.abs(drive.getBackLeft()-bl)>TOLERANCE||Math.abs(drive.getBackRight()-br)>TOLERANCE)
+            throw new AssertionError(name+": got "+drive.getFrontLeft()+" "+drive.getFrontRight()+" "+drive.getBackLeft()+" "+drive.getBackRight());
+    }
+}
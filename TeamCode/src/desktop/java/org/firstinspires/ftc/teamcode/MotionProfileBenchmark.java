@@ -0,0 +1,137 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+checks that MotionProfile stays inside its limits and ends where it should, times sample(), and
+compares how long a simulated drive move takes with RUN_TO_POSITION (the way encoderDrive in the
+Pushbot sample does it) and with a profile followed the way ProfileFollower does
+
+the simulated motor's velocity control lags behind what it is told by VELOCITY_LAG seconds, and the
+wheels can't push harder than TRACTION. "asked accel" is the most the velocity control tried for;
+anything over TRACTION means the wheels slipped, which throws off encoder based autonomous. in
+RUN_TO_POSITION the hub asks for a velocity proportional to how far the motor is from its target,
+capped at the power the op mode set; the move is done when it is within POSITION_TOLERANCE
+ */
+public class MotionProfileBenchmark {
+    //the simulated drive, in inches
+    static final double MAX_SPEED=60;//a 312 rpm motor on a 96 mm wheel
+    static final double VELOCITY_LAG=0.08;//seconds
+    static final double TRACTION=250;//in/s^2, about 2/3 g; the wheels slip if asked for more
+    static final double COUNTS_PER_INCH=537.7/(3.78*Math.PI);
+    static final double POSITION_TOLERANCE=5/COUNTS_PER_INCH;//the SDK's default RUN_TO_POSITION tolerance is 5 ticks
+    static final double DT=0.001;
+
+    //RUN_TO_POSITION
+    static final double DRIVE_SPEED=0.6;//from the Pushbot sample
+    static final double POSITION_GAIN=10;//velocity per unit of position error, 1/seconds
+
+    //the profile
+    static final double MAX_VELOCITY=54,MAX_ACCELERATION=200,MAX_JERK=2000;
+    static final double KP=2,KA=VELOCITY_LAG;//same meaning as ProfileFollower's gains
+    static final double TOLERANCE=0.25;//ProfileFollower.TOLERANCE
+
+    static final double[] MOVES={6,24,48,-24};
+    static final int SAMPLES=1_000_000;
+
+    static double sink;
+
+    public static void main(String[] args){
+        check(MAX_VELOCITY,MAX_ACCELERATION,MAX_JERK);
+        check(MAX_VELOCITY,MAX_ACCELERATION,Double.POSITIVE_INFINITY);
+        check(10,1000,50);//never reaches the top acceleration
+        System.out.println("profile checks passed");
+
+        MotionProfile profile=new MotionProfile(MAX_VELOCITY,MAX_ACCELERATION,MAX_JERK);
+        profile.plan(0,48);
+        for(int round=0;round<3;round++){//the first rounds warm up the JIT
+            long start=System.nanoTime();
+            for(int i=0;i<SAMPLES;i++){
+                profile.sample(i*profile.getDuration()/SAMPLES);
+                sink+=profile.getPosition();
+            }
+            if(round==2)
+                System.out.printf("sample(): %.1f ns%n",(double)(System.nanoTime()-start)/SAMPLES);
+        }
+
+        System.out.println("move      RUN_TO_POSITION: time  asked accel    S curve: time  asked accel    trapezoid: time  asked accel");
+        for(double move:MOVES){
+            double[] runToPosition=runToPosition(move);
+            double[] sCurve=followProfile(new MotionProfile(MAX_VELOCITY,MAX_ACCELERATION,MAX_JERK),move);
+            double[] trapezoid=followProfile(new MotionProfile(MAX_VELOCITY,MAX_ACCELERATION,Double.POSITIVE_INFINITY),move);
+            System.out.printf("%5.0f in   %15.2f s  %7.0f in/s^2  %9.2f s  %7.0f in/s^2  %11.2f s  %7.0f in/s^2%n",move,
+                    runToPosition[0],runToPosition[1],sCurve[0],sCurve[1],trapezoid[0],trapezoid[1]);
+        }
+        System.out.println("(ignore) "+sink);
+    }
+
+    static double[] runToPosition(double target){//returns the time to get within tolerance and the peak acceleration asked for
+        double position=0,velocity=0,peak=0;
+        for(double t=0;t<10;t+=DT){
+            double error=target-position;
+            if(Math.abs(error)<=POSITION_TOLERANCE)
+                return new double[]{t,peak};
+            double command=clip(POSITION_GAIN*error,DRIVE_SPEED*MAX_SPEED);
+            peak=Math.max(peak,Math.abs(command-velocity)/VELOCITY_LAG);
+            double acceleration=motor(command,velocity);
+            velocity+=acceleration*DT;
+            position+=velocity*DT;
+        }
+        return new double[]{Double.NaN,peak};
+    }
+
+    static double[] followProfile(MotionProfile profile,double target){
+        double position=0,velocity=0,peak=0;
+        profile.plan(0,target);
+        for(double t=0;t<10;t+=DT){
+            profile.sample(t);
+            double error=profile.getPosition()-position;
+            if(profile.isFinished(t)&&Math.abs(target-position)<=TOLERANCE)
+                return new double[]{t,peak};
+            double command=clip(profile.getVelocity()+KA*profile.getAcceleration()+KP*error,MAX_SPEED);
+            peak=Math.max(peak,Math.abs(command-velocity)/VELOCITY_LAG);
+            double acceleration=motor(command,velocity);
+            velocity+=acceleration*DT;
+            position+=velocity*DT;
+        }
+        return new double[]{Double.NaN,peak};
+    }
+
+    static double motor(double command,double velocity){//the hub's velocity control, as a lag, limited by traction
+        return clip((clip(command,MAX_SPEED)-velocity)/VELOCITY_LAG,TRACTION);
+    }
+
+    static double clip(double value,double limit){
+        return Math.max(-limit,Math.min(limit,value));
+    }
+
+    static void check(double velocityLimit,double accelerationLimit,double jerkLimit){
+        MotionProfile profile=new MotionProfile(velocityLimit,accelerationLimit,jerkLimit);
+        double[] distances={0,0.01,1,10,100,-30};
+        for(double distance:distances){
+            profile.plan(5,5+distance);
+            double step=profile.getDuration()/10000;
+            double lastPosition=5,lastAcceleration=0;
+            for(int i=1;i<=10000;i++){
+                profile.sample(i*step);
+                if((profile.getPosition()-lastPosition)*Math.signum(distance)<-1e-9)
+                    throw new AssertionError(distance+": the profile went backwards at "+i*step);
+                expectAtMost(Math.abs(profile.getVelocity()),velocityLimit,distance+": velocity");
+                expectAtMost(Math.abs(profile.getAcceleration()),accelerationLimit,distance+": acceleration");
+                if(i>1&&i<10000)//the steps at either end can jump to and from 0 in a trapezoid
+                    expectAtMost(Math.abs(profile.getAcceleration()-lastAcceleration)/step,
+                            Double.isInfinite(jerkLimit)?Double.POSITIVE_INFINITY:jerkLimit,distance+": jerk");
+                lastPosition=profile.getPosition();
+                lastAcceleration=profile.getAcceleration();
+            }
+            if(Math.abs(lastPosition-(5+distance))>1e-9)
+                throw new AssertionError(distance+": ended at "+lastPosition);
+            profile.sample(profile.getDuration()*(1-1e-9));//just before the end it should already be there
+            if(Math.abs(profile.getPosition()-(5+distance))>1e-6||Math.abs(profile.getVelocity())>1e-3)
+                throw new AssertionError(distance+": just before the end it is at "+profile.getPosition()+" going "+profile.getVelocity());
+        }
+    }
+
+    static void expectAtMost(double got,double limit,String name){
+        if(got>limit*(1+1e-9)+1e-9)
+            throw new AssertionError(name+" went over the limit: "+got+" > "+limit);
+    }
+}
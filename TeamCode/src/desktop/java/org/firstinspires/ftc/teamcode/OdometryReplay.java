@@ -0,0 +1,188 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+records a simulated autonomous run (true pose, encoder ticks and IMU heading every loop), then replays
+the recording through Odometry to measure how far its pose drifts from the truth and how long each
+update takes
+
+the simulated wheels slip a little on every step, slip more when strafing and scrub when turning, the encoders only count
+whole ticks, and the IMU reads in 1/16 degree steps with some noise, like a BNO055
+ */
+public class OdometryReplay {
+    static final double TICKS_PER_INCH=(537.7*1.0)/(3.78*Math.PI);//a 312 rpm goBILDA motor on a 96 mm mecanum wheel
+    static final double TRACK_WIDTH=14,WHEEL_BASE=12;//inches
+    static final double LATERAL_EFFICIENCY=0.85;//the robot strafes this fraction of what the wheels say
+    static final double WHEEL_SLIP=0.02;//random slip on each wheel each step
+    static final double TURN_SCRUB=1.05;//the wheels scrub sideways when turning, so they turn a bit more than the robot does
+    static final double IMU_STEP=1.0/16,IMU_NOISE=0.05;//degrees
+    static final double LOOP_HZ=100;
+    static final int SUBSTEPS=10;//the truth is worked out in smaller steps than the loop
+    static final int TIMING_ROUNDS=200;
+
+    //seconds, forward inches/s, left inches/s, counterclockwise degrees/s
+    static final double[][] SEGMENTS={
+            {1.2,20,0,0},
+            {1.0,0,0,90},//turn to face +y
+            {1.5,0,-16,0},//strafe right
+            {2.0,18,0,45},//arc left
+            {1.0,0,0,-135},//turn back
+            {1.5,24,12,0},//diagonal
+            {2.0,15,0,-60},//arc right
+            {1.5,-20,0,0},//back up
+            {1.0,0,10,30},
+            {2.0,0,0,180},//spin in place
+    };
+
+    //the recording
+    static int steps;
+    static double[] trueX,trueY,trueHeading;
+    static int[][] ticks;//[wheel][step], front left, front right, back left, back right
+    static double[] imuHeading;//radians
+
+    public static void main(String[] args){
+        check();
+        record(new Random(2021));
+        System.out.printf("recorded %d loops (%.1f s)%n",steps,steps/LOOP_HZ);
+
+        Odometry withImu=new Odometry(TICKS_PER_INCH);
+        withImu.setLateralMultiplier(LATERAL_EFFICIENCY);
+        replay("encoders + IMU",withImu,true);
+
+        Odometry wheelsOnly=new Odometry(TICKS_PER_INCH);
+        wheelsOnly.setLateralMultiplier(LATERAL_EFFICIENCY);
+        wheelsOnly.setWheelBase(TRACK_WIDTH,WHEEL_BASE);
+        replay("encoders only",wheelsOnly,false);
+    }
+
+    static void record(Random random){
+        int total=0;
+        for(double[] segment:SEGMENTS){
+            total+=(int)Math.round(segment[0]*LOOP_HZ);
+        }
+        steps=total+1;
+        trueX=new double[steps];
+        trueY=new double[steps];
+        trueHeading=new double[steps];
+        ticks=new int[4][steps];
+        imuHeading=new double[steps];
+
+        double x=9,y=36,heading=0;//against the blue wall, facing +x
+        double[] wheelInches=new double[4];
+        double dt=1/LOOP_HZ/SUBSTEPS;
+        int step=0;
+        store(step++,x,y,heading,wheelInches,random);
+        for(double[] segment:SEGMENTS){
+            int loops=(int)Math.round(segment[0]*LOOP_HZ);
+            double forward=segment[1],left=segment[2],turn=Math.toRadians(segment[3]);
+            for(int loop=0;loop<loops;loop++){
+                for(int sub=0;sub<SUBSTEPS;sub++){
+                    double cos=Math.cos(heading),sin=Math.sin(heading);
+                    x+=(forward*cos-left*sin)*dt;
+                    y+=(forward*sin+left*cos)*dt;
+                    heading+=turn*dt;
+                    //what the wheels turn to make that motion: the inverse of MecanumDrive.drive()
+                    double f=forward*dt,l=-left/LATERAL_EFFICIENCY*dt,t=turn*(TRACK_WIDTH+WHEEL_BASE)/2*TURN_SCRUB*dt;
+                    wheelInches[0]+=(f+l-t)*slip(random);
+                    wheelInches[1]+=(f-l+t)*slip(random);
+                    wheelInches[2]+=(f-l-t)*slip(random);
+                    wheelInches[3]+=(f+l+t)*slip(random);
+                }
+                store(step++,x,y,heading,wheelInches,random);
+            }
+        }
+    }
+
+    static double slip(Random random){
+        return 1+random.nextGaussian()*WHEEL_SLIP;
+    }
+
+    static void store(int step,double x,double y,double heading,double[] wheelInches,Random random){
+        trueX[step]=x;
+        trueY[step]=y;
+        trueHeading[step]=heading;
+        for(int wheel=0;wheel<4;wheel++){
+            ticks[wheel][step]=(int)Math.floor(wheelInches[wheel]*TICKS_PER_INCH);
+        }
+        double degrees=Math.toDegrees(heading)+random.nextGaussian()*IMU_NOISE;
+        degrees=Math.round(degrees/IMU_STEP)*IMU_STEP;
+        imuHeading[step]=Odometry.wrap(Math.toRadians(degrees));
+    }
+
+    static void replay(String name,Odometry odometry,boolean useImu){
+        double maxError=0,maxHeadingError=0;
+        run(odometry,useImu);
+        for(int i=0;i<steps;i++){//run again, checking every step this time
+            if(i==0)
+                odometry.setPose(trueX[0],trueY[0],trueHeading[0]);
+            update(odometry,i,useImu);
+            maxError=Math.max(maxError,Math.hypot(odometry.getX()-trueX[i],odometry.getY()-trueY[i]));
+            maxHeadingError=Math.max(maxHeadingError,Math.abs(Odometry.wrap(odometry.getHeading()-trueHeading[i])));
+        }
+        int last=steps-1;
+        double finalError=Math.hypot(odometry.getX()-trueX[last],odometry.getY()-trueY[last]);
+        double finalHeadingError=Math.abs(Odometry.wrap(odometry.getHeading()-trueHeading[last]));
+
+        for(int i=0;i<TIMING_ROUNDS/10;i++){
+            run(odometry,useImu);//warm up
+        }
+        long start=System.nanoTime();
+        for(int i=0;i<TIMING_ROUNDS;i++){
+            run(odometry,useImu);
+        }
+        double nanos=(double)(System.nanoTime()-start)/TIMING_ROUNDS/steps;
+
+        System.out.printf("%-15s end error %.2f in %.2f deg, worst %.2f in %.2f deg, %.0f ns per update%n",
+                name,finalError,Math.toDegrees(finalHeadingError),maxError,Math.toDegrees(maxHeadingError),nanos);
+    }
+
+    static void run(Odometry odometry,boolean useImu){
+        odometry.setPose(trueX[0],trueY[0],trueHeading[0]);
+        for(int i=0;i<steps;i++){
+            update(odometry,i,useImu);
+        }
+    }
+
+    static void update(Odometry odometry,int i,boolean useImu){
+        odometry.updateMecanum(ticks[0][i],ticks[1][i],ticks[2][i],ticks[3][i],useImu?imuHeading[i]:Double.NaN);
+    }
+
+    static void check(){
+        //one update along a quarter circle: 10 inches of wheel travel while turning 90 degrees counterclockwise
+        Odometry odometry=new Odometry(100);
+        odometry.setPose(50,50,0);
+        odometry.updateMecanum(0,0,0,0,0);
+        odometry.updateMecanum(1000,1000,1000,1000,Math.PI/2);
+        double radius=10/(Math.PI/2);
+        expect(odometry.getX(),50+radius,"arc x");
+        expect(odometry.getY(),50+radius,"arc y");
+        expect(odometry.getHeading(),Math.PI/2,"arc heading");
+
+        //strafing left while facing +y moves toward -x
+        odometry.setPose(PointsOfInterest.getHub(PointsOfInterest.Hub.BLUE),Math.PI/2);
+        odometry.updateMecanum(0,0,0,0,1);
+        odometry.updateMecanum(-500,500,500,-500,1);
+        expect(odometry.getX(),PointsOfInterest.getHub(PointsOfInterest.Hub.BLUE).x-5,"strafe x");
+        expect(odometry.getY(),PointsOfInterest.getHub(PointsOfInterest.Hub.BLUE).y,"strafe y");
+
+        //turning in place from the wheels alone
+        odometry.setWheelBase(TRACK_WIDTH,WHEEL_BASE);
+        odometry.setPose(72,72,Math.PI);
+        odometry.updateMecanum(0,0,0,0,Double.NaN);
+        int quarterTurn=(int)Math.round(Math.PI/2*(TRACK_WIDTH+WHEEL_BASE)/2*100);
+        odometry.updateMecanum(-quarterTurn,quarterTurn,-quarterTurn,quarterTurn,Double.NaN);
+        expect(odometry.getX(),72,"turn x");
+        expect(odometry.getHeading(),-Math.PI/2,0.001,"turn heading");
+        System.out.println("odometry checks passed");
+    }
+
+    static void expect(double got,double want,String name){
+        expect(got,want,1e-9,name);
+    }
+
+    static void expect(double got,double want,double tolerance,String name){
+        if(Math.abs(got-want)>tolerance)
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
@@ -0,0 +1,73 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.List;
+
+/*
+compares the old string lookups in PointsOfInterest with the typed lookups
+ */
+public class PointsOfInterestBenchmark {
+    static final int WARMUP_ROUNDS=5;//rounds thrown away so the JIT has compiled both versions
+    static final int ROUNDS=10;
+    static final int LOOKUPS=1_000_000;//lookups per round
+
+    static double sink;//results are added here so the lookups can't be optimized away
+
+    public static void main(String[] args){
+        for(int i=0;i<WARMUP_ROUNDS;i++){
+            stringLookups();
+            typedLookups();
+        }
+        long stringTime=0,typedTime=0;
+        for(int i=0;i<ROUNDS;i++){
+            long start=System.nanoTime();
+            stringLookups();
+            stringTime+=System.nanoTime()-start;
+
+            start=System.nanoTime();
+            typedLookups();
+            typedTime+=System.nanoTime()-start;
+        }
+        System.out.printf("string lookups: %.1f ns per lookup%n",(double)stringTime/ROUNDS/LOOKUPS);
+        System.out.printf("typed lookups:  %.1f ns per lookup%n",(double)typedTime/ROUNDS/LOOKUPS);
+        System.out.println("(ignore) "+sink);
+    }
+
+    static void stringLookups(){//the same mix of queries as typedLookups, using the string api
+        for(int i=0;i<LOOKUPS;i++){
+            switch(i&3){
+                case 0:
+                    sink+=PointsOfInterest.getBarcodePosition("blue barcodes")[i%6].x;
+                    break;
+                case 1:
+                    sink+=PointsOfInterest.getBarcodePosition("warehouse barcodes")[i%6].y;
+                    break;
+                case 2:
+                    sink+=PointsOfInterest.getBarcodePosition("RW2")[0].x;
+                    break;
+                default:
+                    sink+=PointsOfInterest.gethub("SSH").y;
+                    break;
+            }
+        }
+    }
+
+    static void typedLookups(){
+        for(int i=0;i<LOOKUPS;i++){
+            switch(i&3){
+                case 0:
+                    sink+=PointsOfInterest.getBarcodes(PointsOfInterest.Alliance.BLUE).get(i%6).x;
+                    break;
+                case 1:
+                    List<Point> warehouse=PointsOfInterest.getBarcodes(PointsOfInterest.Side.WAREHOUSE);
+                    sink+=warehouse.get(i%6).y;
+                    break;
+                case 2:
+                    sink+=PointsOfInterest.getBarcode(PointsOfInterest.Alliance.RED,PointsOfInterest.Side.WAREHOUSE,PointsOfInterest.Level.TWO).x;
+                    break;
+                default:
+                    sink+=PointsOfInterest.getHub(PointsOfInterest.Hub.SHARED).y;
+                    break;
+            }
+        }
+    }
+}
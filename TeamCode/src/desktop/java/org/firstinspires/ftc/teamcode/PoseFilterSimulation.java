@@ -0,0 +1,135 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+replays OdometryReplay's simulated run through Odometry (encoders only, so it drifts) and PoseFilter,
+with camera fixes that arrive late, and compares the pose error of:
+ - odometry alone
+ - the filter, treating each fix as if the picture was taken when the fix arrived
+ - the filter, rewinding to when the picture was taken (what PoseFilter is for)
+
+fixes come about twice a second when a target is in view, are off by about FIX_NOISE, arrive
+LATENCY_STEPS loops after the picture, and now and then one is completely wrong (a misread target)
+ */
+public class PoseFilterSimulation {
+    static final long STEP_NANOS=10_000_000;//100 Hz
+    static final int FIX_EVERY=50;//loops between pictures
+    static final double FIX_MISSED=0.3;//chance a picture has no target in it
+    static final int LATENCY_STEPS=15;//150 ms from picture to fix
+    static final double FIX_NOISE=1,FIX_HEADING_NOISE=Math.toRadians(2);
+    static final double WRONG_FIX=0.05;//chance a fix is a misread, 20 inches off
+    static final int TIMING_ROUNDS=200;
+
+    static int[] fixStep;//for each loop, the loop its picture was taken on, or -1 if no fix arrives
+    static double[] fixX,fixY,fixHeading;
+
+    public static void main(String[] args){
+        check();
+        OdometryReplay.record(new Random(2021));
+        makeFixes(new Random(7));
+
+        run("odometry only",null,false);
+        run("fix at arrival",new PoseFilter(),false);
+        run("fix rewound",new PoseFilter(),true);
+    }
+
+    static void makeFixes(Random random){
+        int steps=OdometryReplay.steps;
+        fixStep=new int[steps];
+        fixX=new double[steps];
+        fixY=new double[steps];
+        fixHeading=new double[steps];
+        for(int i=0;i<steps;i++){
+            fixStep[i]=-1;
+        }
+        for(int picture=FIX_EVERY;picture+LATENCY_STEPS<steps;picture+=FIX_EVERY){
+            if(random.nextDouble()<FIX_MISSED)
+                continue;
+            int arrival=picture+LATENCY_STEPS;
+            fixStep[arrival]=picture;
+            double wrong=random.nextDouble()<WRONG_FIX?20:0;
+            fixX[arrival]=OdometryReplay.trueX[picture]+random.nextGaussian()*FIX_NOISE+wrong;
+            fixY[arrival]=OdometryReplay.trueY[picture]+random.nextGaussian()*FIX_NOISE;
+            fixHeading[arrival]=OdometryReplay.trueHeading[picture]+random.nextGaussian()*FIX_HEADING_NOISE;
+        }
+    }
+
+    static void run(String name,PoseFilter filter,boolean rewind){
+        double errorTotal=0,errorMax=0,lastError=0;
+        int steps=OdometryReplay.steps;
+        long updateNanos=0,fixNanos=0,fixes=0;
+        for(int round=0;round<=TIMING_ROUNDS;round++){//round 0 measures the error, the rest are for timing
+            Odometry odometry=newOdometry();
+            if(filter!=null)
+                filter.setPose(OdometryReplay.trueX[0],OdometryReplay.trueY[0],OdometryReplay.trueHeading[0],0.5,Math.toRadians(1));
+            for(int i=0;i<steps;i++){
+                OdometryReplay.update(odometry,i,false);
+                double x=odometry.getX(),y=odometry.getY();
+                if(filter!=null){
+                    long start=System.nanoTime();
+                    filter.addOdometry(odometry,i*STEP_NANOS);
+                    long middle=System.nanoTime();
+                    if(fixStep[i]>=0)
+                        filter.addFix(fixX[i],fixY[i],fixHeading[i],(rewind?fixStep[i]:i)*STEP_NANOS);
+                    long end=System.nanoTime();
+                    if(round>0){
+                        updateNanos+=middle-start;
+                        if(fixStep[i]>=0){
+                            fixNanos+=end-middle;
+                            fixes++;
+                        }
+                    }
+                    x=filter.getX();
+                    y=filter.getY();
+                }
+                if(round==0){
+                    lastError=Math.hypot(x-OdometryReplay.trueX[i],y-OdometryReplay.trueY[i]);
+                    errorTotal+=lastError;
+                    errorMax=Math.max(errorMax,lastError);
+                }
+            }
+        }
+        System.out.printf("%-15s error mean %.2f max %.2f end %.2f in",name,errorTotal/steps,errorMax,lastError);
+        if(filter!=null)
+            System.out.printf(", %.0f ns per step, %.0f ns per fix, fixes used %d rejected %d",
+                    (double)updateNanos/TIMING_ROUNDS/steps,(double)fixNanos/fixes,
+                    filter.getFixesUsed()/(TIMING_ROUNDS+1),filter.getFixesRejected()/(TIMING_ROUNDS+1));
+        System.out.println();
+    }
+
+    static Odometry newOdometry(){
+        Odometry odometry=new Odometry(OdometryReplay.TICKS_PER_INCH);
+        odometry.setLateralMultiplier(OdometryReplay.LATERAL_EFFICIENCY);
+        odometry.setWheelBase(OdometryReplay.TRACK_WIDTH,OdometryReplay.WHEEL_BASE);
+        odometry.setPose(OdometryReplay.trueX[0],OdometryReplay.trueY[0],OdometryReplay.trueHeading[0]);
+        return odometry;
+    }
+
+    static void check(){
+        //a fix for the pose the filter already has only shrinks the uncertainty
+        PoseFilter filter=new PoseFilter();
+        filter.setPose(72,72,0,2,0.1);
+        filter.addFix(72,72,0,0);
+        OdometryReplay.expect(filter.getX(),72,"fix at the estimate");
+        if(filter.getPositionSigma()>=2)
+            throw new AssertionError("a fix should make the filter more certain");
+
+        //a late fix moves the pose it was taken at, and the motion since is kept
+        filter.setPose(0,0,0,10,0.01);
+        for(int i=1;i<=10;i++){
+            filter.addMotion(1,0,0,i);
+        }
+        filter.addFix(3,2,0,5);//at step 5 the robot was really at (3,2), not (5,0)
+        if(Math.abs(filter.getX()-8.3)>0.5||Math.abs(filter.getY()-2)>0.5)
+            throw new AssertionError("late fix: got "+filter.getX()+" "+filter.getY());
+        if(filter.getStepsReplayed()!=5)
+            throw new AssertionError("late fix should replay 5 steps, replayed "+filter.getStepsReplayed());
+
+        //a fix from way outside the uncertainty is thrown away
+        filter.setPose(72,72,0,1,0.01);
+        if(filter.addFix(120,72,0,0)||filter.getX()!=72)
+            throw new AssertionError("a fix 48 inches off should be rejected");
+        System.out.println("filter checks passed");
+    }
+}
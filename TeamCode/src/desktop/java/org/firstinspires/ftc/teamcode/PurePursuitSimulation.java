@@ -0,0 +1,142 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+drives a simulated mecanum robot along paths with PurePursuit and MecanumDrive, and times the
+closest point search against checking every segment of the path every update
+
+the simulated robot's wheels take WHEEL_LAG seconds to reach a new speed, it strafes slower than it
+drives, and the pose PurePursuit gets is the real one. for each path it reports how long the robot
+took to finish, how far it got from the path, and where it stopped
+ */
+public class PurePursuitSimulation {
+    static final double TOP_SPEED=60;//inches/s at full power
+    static final double MAX_SPEED=40,MAX_ACCELERATION=80,MAX_DECELERATION=60;
+    static final double WHEEL_LAG=0.06;//seconds
+    static final double LATERAL_EFFICIENCY=0.85;
+    static final double TURN_RADIUS=13;//inches, (track width+wheel base)/2
+    static final double DT=0.01;//100 Hz
+    static final double MAX_SECONDS=20;
+    static final int[] PATH_SIZES={10,100,1000,10000};
+
+    static double sink;
+
+    public static void main(String[] args){
+        System.out.println("path                          time   worst off path   stopped from end   heading error");
+        drive("start, BC2, BSH",9,36,0,new String[]{"BC2","BSH"},Math.PI/2);
+        drive("start, BW2, BWH",9,84,0,new String[]{"BW2","BWH"},Math.PI/2);
+        drive("start, BC1, BW3, BSH",12,12,Math.PI/4,new String[]{"BC1","BW3","BSH"},0);
+        drive("start, RC2, SSH",135,36,Math.PI,new String[]{"RC2","SSH"},Math.PI);
+
+        System.out.println();
+        System.out.println("waypoints   PurePursuit per update   checking every segment");
+        for(int size:PATH_SIZES){
+            timeSearch(size);
+        }
+        System.out.println("(ignore) "+sink);
+    }
+
+    static void drive(String name,double x,double y,double heading,String[] waypoints,double finalHeading){
+        PurePursuit pursuit=new PurePursuit(TOP_SPEED,MAX_SPEED,MAX_ACCELERATION,MAX_DECELERATION);
+        pursuit.startPath(x,y);
+        for(String waypoint:waypoints){
+            pursuit.addWaypoint(waypoint);
+        }
+        pursuit.setHeading(finalHeading);
+        Robot robot=new Robot(x,y,heading);
+        double worst=0,t=0;
+        for(;t<MAX_SECONDS;t+=DT){
+            if(!pursuit.update(robot.x,robot.y,robot.heading,DT))
+                break;
+            worst=Math.max(worst,pursuit.getCrossTrackError());
+            pursuit.apply(robot.drive);
+            robot.step(DT);
+        }
+        int end=FieldMap.id(waypoints[waypoints.length-1]);
+        if(!pursuit.isFinished())
+            throw new AssertionError(name+": didn't finish in "+MAX_SECONDS+" s");
+        System.out.printf("%-26s %6.2f s   %8.2f in   %12.2f in   %10.1f deg%n",name,t,worst,
+                Math.hypot(robot.x-FieldMap.x(end),robot.y-FieldMap.y(end)),
+                Math.toDegrees(Math.abs(Odometry.wrap(robot.heading-finalHeading))));
+    }
+
+    static class Robot {
+        final MecanumDrive drive=new MecanumDrive();
+        double x,y,heading;
+        double fl,fr,bl,br;//wheel speeds, as powers
+
+        Robot(double x,double y,double heading){
+            this.x=x;
+            this.y=y;
+            this.heading=heading;
+        }
+
+        void step(double dt){
+            double k=dt/WHEEL_LAG;
+            fl+=(drive.getFrontLeft()-fl)*k;
+            fr+=(drive.getFrontRight()-fr)*k;
+            bl+=(drive.getBackLeft()-bl)*k;
+            br+=(drive.getBackRight()-br)*k;
+            //the opposite of MecanumDrive.drive()
+            double forward=(fl+fr+bl+br)/4*TOP_SPEED;
+            double left=-(fl-fr-bl+br)/4*TOP_SPEED*LATERAL_EFFICIENCY;
+            double turn=(-fl+fr-bl+br)/4*TOP_SPEED/TURN_RADIUS;
+            double cos=Math.cos(heading),sin=Math.sin(heading);
+            x+=(forward*cos-left*sin)*dt;
+            y+=(forward*sin+left*cos)*dt;
+            heading=Odometry.wrap(heading+turn*dt);
+        }
+    }
+
+    static void timeSearch(int size){//a long wiggly path followed by a robot that keeps up with it exactly
+        Random random=new Random(size);
+        double[] xs=new double[size],ys=new double[size];
+        PurePursuit pursuit=new PurePursuit(TOP_SPEED,MAX_SPEED,MAX_ACCELERATION,MAX_DECELERATION);
+        pursuit.startPath(0,0);
+        xs[0]=0;
+        ys[0]=0;
+        for(int i=1;i<size;i++){
+            xs[i]=xs[i-1]+0.5+random.nextDouble();
+            ys[i]=ys[i-1]+random.nextDouble()-0.5;
+            pursuit.addWaypoint(xs[i],ys[i]);
+        }
+        int updates=size*4;//the robot moves along the path in steps of a quarter waypoint
+        long pursuitNanos=0,bruteNanos=0;
+        for(int round=0;round<5;round++){//the first rounds warm up the JIT
+            pursuit.startPath(0,0);
+            for(int i=1;i<size;i++){
+                pursuit.addWaypoint(xs[i],ys[i]);
+            }
+            long start=System.nanoTime();
+            for(int u=0;u<updates;u++){
+                int i=Math.min(size-2,u/4);
+                double f=(u%4)/4.0;
+                double x=xs[i]+(xs[i+1]-xs[i])*f+0.3,y=ys[i]+(ys[i+1]-ys[i])*f-0.2;
+                pursuit.update(x,y,0,DT);
+                sink+=pursuit.getForward();
+            }
+            long middle=System.nanoTime();
+            for(int u=0;u<updates;u++){
+                int i=Math.min(size-2,u/4);
+                double f=(u%4)/4.0;
+                double x=xs[i]+(xs[i+1]-xs[i])*f+0.3,y=ys[i]+(ys[i+1]-ys[i])*f-0.2;
+                sink+=closestEverySegment(xs,ys,x,y);
+            }
+            long end=System.nanoTime();
+            pursuitNanos=middle-start;
+            bruteNanos=end-middle;
+        }
+        System.out.printf("%9d   %19.0f ns   %19.0f ns%n",size,(double)pursuitNanos/updates,(double)bruteNanos/updates);
+    }
+
+    static double closestEverySegment(double[] xs,double[] ys,double x,double y){//the search without remembering anything
+        double best=Double.POSITIVE_INFINITY;
+        for(int i=0;i+1<xs.length;i++){
+            double sx=xs[i+1]-xs[i],sy=ys[i+1]-ys[i];
+            double t=Math.max(0,Math.min(1,((x-xs[i])*sx+(y-ys[i])*sy)/(sx*sx+sy*sy)));
+            best=Math.min(best,Math.hypot(xs[i]+sx*t-x,ys[i]+sy*t-y));
+        }
+        return best;
+    }
+}
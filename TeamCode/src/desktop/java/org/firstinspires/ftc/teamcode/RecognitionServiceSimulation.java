@@ -0,0 +1,122 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+compares acting on every single recognition, the way ConceptTensorFlowObjectDetection does, with
+RecognitionService, using a SimulatedRecognitionSource that takes INFERENCE_MS a frame and is wrong
+on a quarter of them. the duck is on level 2, then moves to level 3 halfway through (say a referee
+sets it again during init)
+
+for each way it reports how fast the op mode loop ran, how soon the answer was first right, how often
+it was wrong before the move, how many times it changed, how long it took to follow the move, and how
+much of the time went to inferences
+ */
+public class RecognitionServiceSimulation {
+    static final double INFERENCE_MS=120;
+    static final double ACCURACY=0.75;
+    static final double SECONDS=12;
+    static final double FAST_HZ=5,SLOW_HZ=1;
+
+    public static void main(String[] args) throws InterruptedException{
+        check();
+        everyFrame();
+        service("service, no skipping",FAST_HZ,FAST_HZ);
+        service("service, skipping",FAST_HZ,SLOW_HZ);
+    }
+
+    static void everyFrame(){
+        SimulatedRecognitionSource source=new SimulatedRecognitionSource(2,INFERENCE_MS,ACCURACY,22);
+        Tally tally=new Tally();
+        while(!tally.done(source)){
+            source.update();//blocks the loop for the whole inference
+            tally.record(source.getAnswer(),source.getTruth());
+        }
+        tally.report("every frame",source);
+    }
+
+    static void service(String name,double fastHz,double slowHz) throws InterruptedException{
+        SimulatedRecognitionSource source=new SimulatedRecognitionSource(2,INFERENCE_MS,ACCURACY,22);
+        RecognitionService service=new RecognitionService(source,fastHz,slowHz);
+        Tally tally=new Tally();
+        service.start();
+        while(!tally.done(source)){
+            service.refresh();
+            tally.record(service.getAnswer(),source.getTruth());
+            Thread.sleep(1);//the rest of the loop
+        }
+        service.stop();
+        tally.report(name,source);
+    }
+
+    static class Tally {
+        final long start=System.nanoTime();
+        long loops,loopsBefore,wrongBefore,changes;
+        int last=-1;
+        boolean moved;
+        double firstRight=-1,reaction=-1;
+
+        boolean done(SimulatedRecognitionSource source){
+            double t=(System.nanoTime()-start)/1e9;
+            if(!moved&&t>=SECONDS/2){
+                source.setAnswer(3);
+                moved=true;
+            }
+            return t>=SECONDS;
+        }
+
+        void record(int answer,int truth){
+            double t=(System.nanoTime()-start)/1e9;
+            loops++;
+            if(!moved){
+                loopsBefore++;
+                if(answer>=0&&answer!=truth)
+                    wrongBefore++;
+            }
+            if(answer!=last&&last>=0)
+                changes++;
+            last=answer;
+            if(answer==truth&&firstRight<0)
+                firstRight=t;
+            if(moved&&answer==truth&&reaction<0)
+                reaction=t-SECONDS/2;
+        }
+
+        void report(String name,SimulatedRecognitionSource source){
+            System.out.printf("%-21s loop %4.0f Hz, first right %.2f s, wrong %4.1f%% of loops before the move, %2d changes, right %.2f s after the move, inferences %3.0f%% of the time%n",
+                    name,loops/SECONDS,firstRight,100.0*wrongBefore/loopsBefore,changes,reaction,100*source.getBusyNanos()/(SECONDS*1e9));
+        }
+    }
+
+    static void check(){
+        SimulatedRecognitionSource source=new SimulatedRecognitionSource(1,0,1,1);
+        RecognitionService service=new RecognitionService(source,10,1);
+        service.vote(1,0.9,1);
+        service.vote(1,0.9,2);
+        service.refresh();
+        expect(service.getAnswer(),-1,"no answer before MIN_VOTES");
+        service.vote(1,0.9,3);
+        service.refresh();
+        expect(service.getAnswer(),1,"answer after MIN_VOTES");
+        expect(service.getAnswerTime(),3,"answer time");
+        for(int i=0;i<3;i++){
+            service.vote(2,0.9,4+i);
+        }
+        service.refresh();
+        expect(service.getAnswer(),1,"a tie doesn't switch");
+        service.vote(2,0.9,7);
+        service.vote(2,0.9,8);
+        service.refresh();
+        expect(service.getAnswer(),2,"switch past SWITCH_MARGIN");
+        expect(service.getLatestTime(),8,"latest time");
+        for(int i=0;i<RecognitionService.WINDOW;i++){
+            service.vote(2,0.8,9+i);
+        }
+        service.refresh();
+        expect(service.isStable()?1:0,1,"stable after a full window that agrees");
+        System.out.println("vote checks passed");
+    }
+
+    static void expect(long got,long want,String name){
+        if(got!=want)
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
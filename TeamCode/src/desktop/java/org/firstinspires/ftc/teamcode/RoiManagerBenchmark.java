@@ -0,0 +1,298 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+checks RoiManager's projection, tracking and cropping, then measures what cropping to the ROI saves
+
+the camera is a 1280x720 webcam with a 70 degree field of view, 9 inches up and tilted 20 degrees down,
+on a robot at the red warehouse start facing the RW barcodes. frames are drawn from the projection: grey
+mat, the three barcodes, a duck on one of them, and another duck up in the background outside the ROI.
+every frame goes through each stage three ways: the whole frame, the ROI at full resolution, and the ROI
+cut down to 320x320 the way RoiManager does for a detector's input. the stages are BarcodeDetector, with
+its ROIs on the projected barcodes, and a 3x3 filter over every pixel standing in for a detector whose
+cost grows with its pixels. it prints the time per frame and how it compares with the share of pixels
+kept, then the same once a detection has narrowed the ROI to the duck
+ */
+public class RoiManagerBenchmark {
+    static final int WIDTH=1280,HEIGHT=720;
+    static final double FOV=Math.toRadians(70);
+    static final double START_X=136,START_Y=81.5,START_HEADING=Math.PI;//red warehouse start, facing the barcodes
+    static final int FRAMES=60;
+    static final int REPEATS=10;
+
+    public static void main(String[] args){
+        check();
+        RoiManager roi=camera();
+        for(int barcode=FieldMap.RW1;barcode<=FieldMap.RW3;barcode++){
+            roi.addBarcode(barcode);
+        }
+        roi.update(START_X,START_Y,START_HEADING);
+        System.out.printf("ROI %d,%d to %d,%d: %.1f%% of the pixels, tfod.setZoom(%.2f,%.2f)%n",roi.getLeft(),roi.getTop(),roi.getRight(),roi.getBottom(),
+                100*roi.getShare(),roi.getZoomMagnification(),roi.getZoomAspectRatio());
+
+        RoiManager full=camera();//the same ROI, cropped at full resolution
+        full.setMaxPatchSize(WIDTH,HEIGHT);
+        for(int barcode=FieldMap.RW1;barcode<=FieldMap.RW3;barcode++){
+            full.addBarcode(barcode);
+        }
+        full.update(START_X,START_Y,START_HEADING);
+
+        Random random=new Random(25);
+        VisionFrame[] frames=new VisionFrame[FRAMES];
+        int[] levels=new int[FRAMES];
+        for(int i=0;i<FRAMES;i++){
+            levels[i]=1+i%3;
+            frames[i]=draw(roi,levels[i],random);
+        }
+
+        BarcodeDetector wholeDetector=new BarcodeDetector(FieldMap.RW1);
+        for(int level=1;level<=3;level++){//the projected barcodes as fractions of the whole frame
+            int target=level-1;
+            wholeDetector.setRoi(level,Math.max(0,roi.getTargetLeft(target)/WIDTH),Math.max(0,roi.getTargetTop(target)/HEIGHT),
+                    Math.min(1,roi.getTargetRight(target)/WIDTH),Math.min(1,roi.getTargetBottom(target)/HEIGHT));
+        }
+        BarcodeDetector fullDetector=new BarcodeDetector(FieldMap.RW1),smallDetector=new BarcodeDetector(FieldMap.RW1);
+        full.crop(frames[0],new VisionFrame());
+        full.setRois(fullDetector,0);
+        roi.crop(frames[0],new VisionFrame());
+        roi.setRois(smallDetector,0);
+
+        double share=roi.getShare();
+        System.out.printf("%-22s %9s %9s %9s  ROI/whole (pixel share %.3f)%n","","whole","ROI","ROI 320",share);
+        compare("barcode",new BarcodeStage(wholeDetector),new RoiStage(full,new BarcodeStage(fullDetector)),new RoiStage(roi,new BarcodeStage(smallDetector)),frames,levels);
+        compare("3x3 filter",new FilterStage(),new RoiStage(full,new FilterStage()),new RoiStage(roi,new FilterStage()),frames,null);
+
+        //once the duck is found, the ROI follows it instead of all three barcodes
+        double l=full.getTargetLeft(1),t=full.getTargetTop(1),r=full.getTargetRight(1),b=full.getTargetBottom(1);
+        full.addDetection(l+(r-l)*0.35,t+(b-t)*0.35,r-(r-l)*0.35,t+(b-t)*0.85);//where draw() puts the duck
+        full.update(START_X,START_Y,START_HEADING);
+        RoiStage tracked=new RoiStage(full,new FilterStage());
+        long start=System.nanoTime();
+        for(int i=0;i<REPEATS;i++){
+            for(VisionFrame frame:frames){
+                tracked.process(frame);
+            }
+        }
+        System.out.printf("tracking the duck: ROI %.1f%% of the pixels, 3x3 filter %.3f ms, tfod.setZoom(%.2f,%.2f)%n",100*full.getShare(),
+                (System.nanoTime()-start)/1e6/REPEATS/frames.length,full.getZoomMagnification(),full.getZoomAspectRatio());
+    }
+
+    static RoiManager camera(){
+        RoiManager roi=new RoiManager(WIDTH,HEIGHT,FOV);
+        roi.setMount(0,0,9,Math.toRadians(20),0);
+        return roi;
+    }
+
+    static void compare(String name,VisionStage whole,VisionStage full,VisionStage small,VisionFrame[] frames,int[] levels){
+        VisionStage[] stages={whole,full,small};
+        double[] ms=new double[3];
+        int[] right=new int[3];
+        for(int s=0;s<3;s++){
+            for(VisionFrame frame:frames){//warm up
+                stages[s].process(frame);
+            }
+            long start=System.nanoTime();
+            for(int r=0;r<REPEATS;r++){
+                for(int i=0;i<frames.length;i++){
+                    stages[s].process(frames[i]);
+                    if(r==0&&levels!=null&&stages[s].getResult()==levels[i])
+                        right[s]++;
+                }
+            }
+            ms[s]=(System.nanoTime()-start)/1e6/REPEATS/frames.length;
+        }
+        System.out.printf("%-22s %6.3f ms %6.3f ms %6.3f ms  %.3f",name,ms[0],ms[1],ms[2],ms[1]/ms[0]);
+        if(levels!=null)
+            System.out.printf("  right %d, %d, %d of %d",right[0],right[1],right[2],frames.length);
+        System.out.println();
+    }
+
+    static VisionFrame draw(RoiManager roi,int level,Random random){//grey mat, barcode tape, a duck on the level's barcode and one far away
+        VisionFrame frame=new VisionFrame();
+        frame.setSize(WIDTH,HEIGHT);
+        int[] pixels=frame.getPixels();
+        double light=0.8+0.4*random.nextDouble();
+        for(int i=0;i<WIDTH*HEIGHT;i++){
+            pixels[i]=rgb(110*light,112*light,118*light,random);
+        }
+        for(int target=0;target<3;target++){
+            double l=roi.getTargetLeft(target),t=roi.getTargetTop(target),r=roi.getTargetRight(target),b=roi.getTargetBottom(target);
+            fill(pixels,l,t+(b-t)*0.6,r,b,200*light,40*light,40*light,random);//red tape
+            if(target==level-1){
+                double cx=(l+r)/2+(r-l)*0.15*(random.nextDouble()-0.5),w=(r-l)*0.3;
+                fill(pixels,cx-w/2,t+(b-t)*0.35,cx+w/2,t+(b-t)*0.85,240*light,200*light,20*light,random);
+            }
+        }
+        fill(pixels,WIDTH*0.1,HEIGHT*0.05,WIDTH*0.16,HEIGHT*0.12,240*light,200*light,20*light,random);//a duck in the background
+        return frame;
+    }
+
+    static void fill(int[] pixels,double l,double t,double r,double b,double red,double green,double blue,Random random){
+        for(int y=(int)Math.max(0,t);y<Math.min(HEIGHT,b);y++){
+            for(int x=(int)Math.max(0,l);x<Math.min(WIDTH,r);x++){
+                pixels[y*WIDTH+x]=rgb(red,green,blue,random);
+            }
+        }
+    }
+
+    static int rgb(double r,double g,double b,Random random){
+        return 0xFF000000|noisy(r,random)<<16|noisy(g,random)<<8|noisy(b,random);
+    }
+
+    static int noisy(double value,Random random){
+        return (int)Math.max(0,Math.min(255,value+random.nextGaussian()*6));
+    }
+
+    static class FilterStage implements VisionStage {//a 3x3 blur of the green channel and a threshold, like the first layer of a network
+        private int[] out=new int[0];
+        private int bright;
+
+        @Override
+        public void process(VisionFrame frame){
+            int w=frame.getWidth(),h=frame.getHeight();
+            int[] in=frame.getPixels();
+            if(out.length<w*h)
+                out=new int[w*h];
+            bright=0;
+            for(int y=1;y<h-1;y++){
+                for(int x=1;x<w-1;x++){
+                    int sum=0;
+                    for(int dy=-1;dy<=1;dy++){
+                        int row=(y+dy)*w+x;
+                        sum+=(in[row-1]>>8&0xFF)+(in[row]>>8&0xFF)+(in[row+1]>>8&0xFF);
+                    }
+                    out[y*w+x]=sum/9;
+                    if(sum>9*150)
+                        bright++;
+                }
+            }
+        }
+
+        @Override
+        public int getResult(){
+            return -1;
+        }
+
+        @Override
+        public String getName(){
+            return "filter";
+        }
+    }
+
+    static void check(){
+        //a point on the camera's axis lands in the middle of the image
+        RoiManager roi=new RoiManager(WIDTH,HEIGHT,FOV);
+        roi.setMount(0,0,10,Math.atan2(10,50),0);
+        roi.addTarget(50,72,50,72,0);
+        if(!roi.update(0,72,0))
+            throw new AssertionError("a point in front of the camera isn't visible");
+        near(roi.getTargetLeft(0),WIDTH/2.0,"x of a point on the axis");
+        near(roi.getTargetTop(0),HEIGHT/2.0,"y of a point on the axis");
+
+        //turned around, it is behind the camera and the ROI is the whole image
+        if(roi.update(0,72,Math.PI))
+            throw new AssertionError("a point behind the camera is visible");
+        near(roi.getShare(),1,"share with nothing in view");
+
+        //a point to the robot's left is on the left of the image, and one above the axis is higher up
+        roi.clearTargets();
+        roi.addTarget(50,82,50,82,10);
+        roi.update(0,72,0);
+        if(roi.getTargetLeft(0)>=WIDTH/2.0)
+            throw new AssertionError("a point on the left is at x "+roi.getTargetLeft(0));
+        if(roi.getTargetTop(0)>=HEIGHT/2.0)
+            throw new AssertionError("a point above the axis is at y "+roi.getTargetTop(0));
+        //and the same with the camera turned 90 degrees left is straight ahead of it
+        roi.setMount(0,0,10,0,Math.PI/2);
+        roi.clearTargets();
+        roi.addTarget(0,82,0,82,10);
+        roi.update(0,72,0);
+        near(roi.getTargetLeft(0),WIDTH/2.0,"x of a point ahead of a camera turned left");
+        near(roi.getTargetTop(0),HEIGHT/2.0,"y of a point ahead of a camera turned left");
+
+        //detections move the ROI, and missing for too long goes back to the projection
+        roi=camera();
+        roi.addBarcode(FieldMap.RW2);
+        roi.update(START_X,START_Y,START_HEADING);
+        int projectedLeft=roi.getLeft();
+        for(int i=0;i<10;i++){
+            roi.addDetection(600,400,700,500);
+            roi.update(START_X,START_Y,START_HEADING);
+        }
+        double margin=100*RoiManager.TRACK_MARGIN;
+        if(!roi.isTracking()||Math.abs(roi.getLeft()-(600-margin))>1||Math.abs(roi.getTop()-(400-margin))>1
+                ||Math.abs(roi.getRight()-(700+margin))>1||Math.abs(roi.getBottom()-(500+margin))>1)
+            throw new AssertionError("the ROI didn't settle around the detections: "+roi.getLeft()+","+roi.getTop()+" to "+roi.getRight()+","+roi.getBottom());
+        for(int i=1;i<RoiManager.MISSES_TO_RESET;i++){
+            roi.update(START_X,START_Y,START_HEADING);
+        }
+        if(!roi.isTracking())
+            throw new AssertionError("the ROI stopped tracking too soon");
+        roi.update(START_X,START_Y,START_HEADING);
+        if(roi.isTracking()||roi.getLeft()!=projectedLeft)
+            throw new AssertionError("the ROI didn't go back to the projection");
+
+        //once the ROI is down to the middle barcode, the other two levels are turned off, not left pointing at old pixels
+        roi=camera();
+        for(int barcode=FieldMap.RW1;barcode<=FieldMap.RW3;barcode++){
+            roi.addBarcode(barcode);
+        }
+        roi.update(START_X,START_Y,START_HEADING);
+        BarcodeDetector detector=new BarcodeDetector(FieldMap.RW1);
+        roi.setRois(detector,0);
+        double middle=(roi.getTargetLeft(1)+roi.getTargetRight(1))/2,bottom=roi.getTargetBottom(1);
+        roi.addDetection(middle-20,bottom-60,middle+20,bottom-20);
+        roi.update(START_X,START_Y,START_HEADING);
+        roi.setRois(detector,0);
+        for(int level=1;level<=3;level++){
+            double[] box=detector.getRoi(level);
+            boolean on=box[0]<box[2]&&box[1]<box[3];
+            if(on!=(level==2))
+                throw new AssertionError("level "+level+" is "+(on?"on":"off")+" while tracking the middle barcode");
+        }
+
+        //a warehouse from inside it covers most of the image
+        RoiManager warehouse=camera();
+        warehouse.addWarehouse(FieldMap.RWH);
+        if(!warehouse.update(110,110,Math.PI/4)||warehouse.getShare()<0.5)
+            throw new AssertionError("the warehouse isn't in view from inside it");
+
+        //the patch's pixels come from where toImageX() and toImageY() say
+        VisionFrame frame=new VisionFrame();
+        frame.setSize(WIDTH,HEIGHT);
+        for(int i=0;i<WIDTH*HEIGHT;i++){
+            frame.getPixels()[i]=i;
+        }
+        roi=camera();
+        roi.setMaxPatchSize(160,160);
+        roi.addDetection(300,200,900,500);
+        roi.update(START_X,START_Y,START_HEADING);
+        VisionFrame patch=new VisionFrame();
+        roi.crop(frame,patch);
+        if(patch.getWidth()>160||patch.getHeight()>160)
+            throw new AssertionError("the patch is "+patch.getWidth()+"x"+patch.getHeight());
+        for(int y=0;y<patch.getHeight();y+=7){
+            for(int x=0;x<patch.getWidth();x+=5){
+                if(patch.getPixel(x,y)!=(int)roi.toImageY(y)*WIDTH+(int)roi.toImageX(x))
+                    throw new AssertionError("patch pixel "+x+","+y+" isn't from "+roi.toImageX(x)+","+roi.toImageY(y));
+            }
+        }
+        //fractions for BarcodeDetector are across the pixels the patch covers, which can be less than the ROI
+        near(roi.toPatchFractionX(roi.toImageX(patch.getWidth()/2.0)),0.5,"patch fraction x");
+        near(roi.toPatchFractionY(roi.toImageY(patch.getHeight()/2.0)),0.5,"patch fraction y");
+
+        //a centered ROI zooms by the width it leaves out
+        roi=new RoiManager(WIDTH,HEIGHT,FOV);
+        roi.addDetection(480,270,800,450);
+        roi.update(0,0,0);
+        near(roi.getZoomMagnification(),WIDTH/(320*(1+2*RoiManager.TRACK_MARGIN)),"magnification");
+        near(roi.getZoomAspectRatio(),16.0/9,"aspect ratio");
+        System.out.println("checks passed");
+    }
+
+    static void near(double got,double want,String name){
+        if(Math.abs(got-want)>1e-3*Math.max(1,Math.abs(want)))
+            throw new AssertionError(name+": got "+got+", expected "+want);
+    }
+}
@@ -0,0 +1,30 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+builds assets/route_table.bin for RouteTable. run it on a computer whenever PointsOfInterest, the
+obstacle zones or the robot size change, and commit the new file. from TeamCode/src:
+    java -cp out org.firstinspires.ftc.teamcode.RouteTableCompiler main/assets/route_table.bin
+ */
+public class RouteTableCompiler {
+    static final double RESOLUTION=1;//planning time doesn't matter here, so use a fine grid
+    static final double ROBOT_RADIUS=9;
+
+    public static void main(String[] args) throws IOException{
+        if(args.length!=1){
+            System.err.println("usage: RouteTableCompiler <output file>");
+            System.exit(1);
+        }
+        long start=System.nanoTime();
+        RouteTable table=RouteTable.plan(GridPlanner.freightFrenzy(RESOLUTION,ROBOT_RADIUS));
+        File file=new File(args[0]);
+        try(OutputStream out=new FileOutputStream(file)){
+            table.write(out);
+        }
+        System.out.printf("wrote %d routes to %s (%d bytes) in %.0f ms%n",FieldMap.count()*FieldMap.count(),file,file.length(),(System.nanoTime()-start)/1e6);
+    }
+}
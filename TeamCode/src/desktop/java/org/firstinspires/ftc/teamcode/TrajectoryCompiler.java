@@ -0,0 +1,306 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+builds assets/trajectories.traj for TrajectoryFile. run it on a computer whenever an autonomous path
+or the robot's limits change, and commit the new file. from TeamCode/src:
+    java -cp out org.firstinspires.ftc.teamcode.TrajectoryCompiler main/assets/trajectories.traj
+
+each path is a smooth curve (a centripetal Catmull-Rom spline) through its waypoints, driven as fast
+as MAX_VELOCITY and MAX_ACCELERATION allow. the acceleration limit covers the sideways acceleration
+on curves too, so the robot slows down for tight bends. the heading turns from the start heading to
+the end heading in step with how far along the path the robot is. every path is written for blue and
+mirrored for red. after writing, the file is loaded back and checked against the paths it was built
+from and against the limits; the compiler fails if any sample is over them
+ */
+public class TrajectoryCompiler {
+    static final double SAMPLE_PERIOD=0.01;//seconds
+    static final double MAX_VELOCITY=40,MAX_ACCELERATION=60;//inches and seconds; the acceleration limit is for the total, along the path and sideways
+    static final double LIMIT_TOLERANCE=0.01;//how far over the limits check() lets the samples be, for float rounding
+    static final int SPLINE_STEPS=200;//points worked out along each piece of spline
+
+    //name, start heading, end heading (degrees), then waypoints x,y,x,y,... for blue
+    static final Object[][] PATHS={
+            {"carousel_to_hub",0.0,0.0,new double[]{9,36, 20,50, 28,60}},
+            {"hub_to_carousel",0.0,-135.0,new double[]{28,60, 18,30, 12,12}},
+            {"carousel_to_storage",-135.0,0.0,new double[]{12,12, 12,24, 9,36}},
+            {"warehouse_start_to_hub",0.0,-30.0,new double[]{9,84, 24,80, 34,72}},
+            {"hub_to_warehouse",-30.0,90.0,new double[]{34,72, 12,90, 12,112, 24,124}},
+    };
+
+    static class Trajectory {
+        final String name;
+        final float[] samples;//SAMPLE_FLOATS per sample
+
+        Trajectory(String name,float[] samples){
+            this.name=name;
+            this.samples=samples;
+        }
+
+        int count(){
+            return samples.length/TrajectoryFile.SAMPLE_FLOATS;
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        if(args.length!=1){
+            System.err.println("usage: TrajectoryCompiler <output file>");
+            System.exit(1);
+        }
+        long start=System.nanoTime();
+        List<Trajectory> trajectories=new ArrayList<>();
+        for(Object[] path:PATHS){
+            double startHeading=Math.toRadians((Double)path[1]);
+            double endHeading=Math.toRadians((Double)path[2]);
+            double[] waypoints=(double[])path[3];
+            trajectories.add(build("blue_"+path[0],waypoints,startHeading,endHeading,false));
+            trajectories.add(build("red_"+path[0],waypoints,startHeading,endHeading,true));
+        }
+        double buildMs=(System.nanoTime()-start)/1e6;
+
+        File file=new File(args[0]);
+        try(OutputStream out=new FileOutputStream(file)){
+            out.write(write(trajectories));
+        }
+        System.out.printf("wrote %d trajectories to %s (%d bytes); building them took %.0f ms%n",trajectories.size(),file,file.length(),buildMs);
+
+        check(file,trajectories);
+    }
+
+    static Trajectory build(String name,double[] waypoints,double startHeading,double endHeading,boolean mirror){
+        int points=waypoints.length/2;
+        //dense points along the spline, and the distance along it to each
+        int dense=(points-1)*SPLINE_STEPS+1;
+        double[] xs=new double[dense],ys=new double[dense],along=new double[dense];
+        for(int piece=0;piece<points-1;piece++){
+            int p0=Math.max(0,piece-1),p3=Math.min(points-1,piece+2);
+            for(int step=0;step<=SPLINE_STEPS;step++){
+                int i=piece*SPLINE_STEPS+step;
+                double[] point=catmullRom(waypoints,p0,piece,piece+1,p3,(double)step/SPLINE_STEPS);
+                xs[i]=point[0];
+                ys[i]=point[1];
+                along[i]=i==0?0:along[i-1]+Math.hypot(xs[i]-xs[i-1],ys[i]-ys[i-1]);
+            }
+        }
+        double length=along[dense-1];
+        double turn=Odometry.wrap(endHeading-startHeading);
+
+        //curvature times the normal (the change in direction per inch) used between dense points i-1 and i
+        double[] cxs=new double[dense],cys=new double[dense],curvature=new double[dense];
+        for(int i=1;i<dense-1;i++){
+            double tx=(xs[i]-xs[i-1])/(along[i]-along[i-1]),ty=(ys[i]-ys[i-1])/(along[i]-along[i-1]);
+            double nx=(xs[i+1]-xs[i])/(along[i+1]-along[i]),ny=(ys[i+1]-ys[i])/(along[i+1]-along[i]);
+            double ds=(along[i+1]-along[i-1])/2;
+            cxs[i]=(nx-tx)/ds;
+            cys[i]=(ny-ty)/ds;
+            curvature[i]=Math.hypot(cxs[i],cys[i]);
+        }
+
+        //the fastest the robot can be going at each dense point. on a curve the sideways acceleration is
+        //v^2*curvature, so the speed is capped to keep that under MAX_ACCELERATION. then a forward pass
+        //limits speeding up and a backward pass limits slowing down to whatever acceleration is left
+        double[] v2=new double[dense];//speed squared
+        for(int i=0;i<dense;i++){
+            double bend=Math.max(curvature[i],i+1<dense?curvature[i+1]:0);//the point is in two pieces, use the tighter one
+            v2[i]=bend==0?MAX_VELOCITY*MAX_VELOCITY:Math.min(MAX_VELOCITY*MAX_VELOCITY,MAX_ACCELERATION/bend);
+        }
+        v2[0]=0;
+        v2[dense-1]=0;
+        for(int i=1;i<dense;i++){
+            v2[i]=Math.min(v2[i],fastestNext(v2[i-1],along[i]-along[i-1],curvature[i]));
+        }
+        for(int i=dense-2;i>=0;i--){
+            v2[i]=Math.min(v2[i],fastestNext(v2[i+1],along[i+1]-along[i],curvature[i+1]));
+        }
+
+        //acceleration is constant between dense points, which gives the time to reach each one
+        double[] times=new double[dense];
+        for(int i=1;i<dense;i++){
+            times[i]=times[i-1]+2*(along[i]-along[i-1])/(Math.sqrt(v2[i-1])+Math.sqrt(v2[i]));
+        }
+
+        int count=(int)Math.ceil(times[dense-1]/SAMPLE_PERIOD)+1;
+        float[] samples=new float[count*TrajectoryFile.SAMPLE_FLOATS];
+        int at=1;
+        for(int sample=0;sample<count;sample++){
+            double t=sample*SAMPLE_PERIOD;
+            while(at<dense-1&&times[at]<=t){
+                at++;
+            }
+            //where the robot is between dense points at-1 and at
+            double ds=along[at]-along[at-1];
+            double a=(v2[at]-v2[at-1])/(2*ds);
+            double dt=Math.min(t-times[at-1],times[at]-times[at-1]);
+            double v0=Math.sqrt(v2[at-1]);
+            double s=Math.min(along[at],along[at-1]+v0*dt+a*dt*dt/2);
+            double v=Math.max(0,v0+a*dt);
+            if(t>=times[dense-1]){//stopped at the end
+                s=length;
+                v=0;
+                a=0;
+            }
+            double f=(s-along[at-1])/ds;
+            double x=xs[at-1]+(xs[at]-xs[at-1])*f;
+            double y=ys[at-1]+(ys[at]-ys[at-1])*f;
+            double tx=(xs[at]-xs[at-1])/ds,ty=(ys[at]-ys[at-1])/ds;
+            double heading=startHeading+turn*s/length;
+            double turnRate=turn/length*v;
+            double turnAcceleration=turn/length*a;
+            double vx=v*tx,vy=v*ty;
+            double ax=a*tx+v*v*cxs[at],ay=a*ty+v*v*cys[at];
+            if(mirror){
+                x=FieldMap.mirrorX(x);
+                vx=-vx;
+                ax=-ax;
+                heading=Math.PI-heading;
+                turnRate=-turnRate;
+                turnAcceleration=-turnAcceleration;
+            }
+            int o=sample*TrajectoryFile.SAMPLE_FLOATS;
+            samples[o]=(float)x;
+            samples[o+1]=(float)y;
+            samples[o+2]=(float)Odometry.wrap(heading);
+            samples[o+3]=(float)vx;
+            samples[o+4]=(float)vy;
+            samples[o+5]=(float)turnRate;
+            samples[o+6]=(float)ax;
+            samples[o+7]=(float)ay;
+            samples[o+8]=(float)turnAcceleration;
+        }
+        return new Trajectory(name,samples);
+    }
+
+    static double fastestNext(double v2,double ds,double curvature){//the highest speed squared reachable over ds from speed squared v2
+        //with w the new speed squared, the acceleration along the path is (w-v2)/(2*ds) and the sideways one is
+        //at most w*curvature. keeping the total under MAX_ACCELERATION is a quadratic in w; this is its larger root
+        double c=1/(4*ds*ds);
+        double k2=curvature*curvature;
+        double a2=MAX_ACCELERATION*MAX_ACCELERATION;
+        double root=(c+k2)*a2-c*k2*v2*v2;
+        if(root<0)//already too fast for this curve; the speed cap stops that from happening
+            return v2;
+        return (c*v2+Math.sqrt(root))/(c+k2);
+    }
+
+    static double[] catmullRom(double[] w,int i0,int i1,int i2,int i3,double t){//centripetal, so it doesn't loop or overshoot at sharp corners
+        double x0=w[2*i0],y0=w[2*i0+1],x1=w[2*i1],y1=w[2*i1+1],x2=w[2*i2],y2=w[2*i2+1],x3=w[2*i3],y3=w[2*i3+1];
+        if(i0==i1){//make up points past the ends so the end pieces are curves too
+            x0=2*x1-x2;
+            y0=2*y1-y2;
+        }
+        if(i3==i2){
+            x3=2*x2-x1;
+            y3=2*y2-y1;
+        }
+        double t0=0;
+        double t1=t0+Math.sqrt(Math.hypot(x1-x0,y1-y0));
+        double t2=t1+Math.sqrt(Math.hypot(x2-x1,y2-y1));
+        double t3=t2+Math.sqrt(Math.hypot(x3-x2,y3-y2));
+        double u=t1+(t2-t1)*t;
+        double a1x=lerp(x0,x1,t0,t1,u),a1y=lerp(y0,y1,t0,t1,u);
+        double a2x=lerp(x1,x2,t1,t2,u),a2y=lerp(y1,y2,t1,t2,u);
+        double a3x=lerp(x2,x3,t2,t3,u),a3y=lerp(y2,y3,t2,t3,u);
+        double b1x=lerp(a1x,a2x,t0,t2,u),b1y=lerp(a1y,a2y,t0,t2,u);
+        double b2x=lerp(a2x,a3x,t1,t3,u),b2y=lerp(a2y,a3y,t1,t3,u);
+        return new double[]{lerp(b1x,b2x,t1,t2,u),lerp(b1y,b2y,t1,t2,u)};
+    }
+
+    static double lerp(double a,double b,double ta,double tb,double t){
+        return ta==tb?a:a+(b-a)*(t-ta)/(tb-ta);
+    }
+
+    static byte[] write(List<Trajectory> trajectories){
+        int total=0;
+        for(Trajectory trajectory:trajectories){
+            total+=trajectory.count();
+        }
+        int n=trajectories.size();
+        int size=TrajectoryFile.HEADER_BYTES+n*TrajectoryFile.ENTRY_BYTES+total*TrajectoryFile.SAMPLE_BYTES+4;
+        ByteBuffer out=ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(TrajectoryFile.MAGIC);
+        out.putShort((short)TrajectoryFile.VERSION);
+        out.putShort((short)n);
+        out.putFloat((float)SAMPLE_PERIOD);
+        out.putInt(total);
+        int first=0;
+        for(Trajectory trajectory:trajectories){
+            byte[] name=trajectory.name.getBytes(StandardCharsets.US_ASCII);
+            if(name.length>=TrajectoryFile.NAME_LENGTH)
+                throw new IllegalArgumentException("trajectory name "+trajectory.name+" is too long");
+            out.put(name);
+            out.put(new byte[TrajectoryFile.NAME_LENGTH-name.length]);
+            out.putInt(first);
+            out.putInt(trajectory.count());
+            first+=trajectory.count();
+        }
+        for(Trajectory trajectory:trajectories){
+            for(float value:trajectory.samples){
+                out.putFloat(value);
+            }
+        }
+        CRC32 crc=new CRC32();
+        crc.update(out.array(),0,size-4);
+        out.putInt((int)crc.getValue());
+        return out.array();
+    }
+
+    static void check(File file,List<Trajectory> trajectories) throws IOException{//load the file back the way the robot does and compare
+        long start=System.nanoTime();
+        TrajectoryFile loaded;
+        try(RandomAccessFile in=new RandomAccessFile(file,"r")){
+            loaded=TrajectoryFile.load(in.getChannel());
+        }
+        double loadMs=(System.nanoTime()-start)/1e6;
+        if(loaded.count()!=trajectories.size())
+            throw new AssertionError("loaded "+loaded.count()+" trajectories, wrote "+trajectories.size());
+        double worstSpeed=0,worstAcceleration=0;
+        for(int t=0;t<trajectories.size();t++){
+            Trajectory trajectory=trajectories.get(t);
+            int id=loaded.find(trajectory.name);
+            if(id!=t)
+                throw new AssertionError("couldn't find "+trajectory.name);
+            for(int i=0;i<trajectory.count();i++){
+                loaded.sample(id,i*SAMPLE_PERIOD);
+                int o=i*TrajectoryFile.SAMPLE_FLOATS;
+                if(Math.abs(loaded.getX()-trajectory.samples[o])>1e-3||Math.abs(loaded.getY()-trajectory.samples[o+1])>1e-3)
+                    throw new AssertionError(trajectory.name+" sample "+i+" doesn't match");
+                worstSpeed=Math.max(worstSpeed,Math.hypot(trajectory.samples[o+3],trajectory.samples[o+4]));
+                worstAcceleration=Math.max(worstAcceleration,Math.hypot(trajectory.samples[o+6],trajectory.samples[o+7]));
+            }
+            if(worstSpeed>MAX_VELOCITY*(1+LIMIT_TOLERANCE)||worstAcceleration>MAX_ACCELERATION*(1+LIMIT_TOLERANCE))
+                throw new AssertionError(trajectory.name+" goes "+worstSpeed+" in/s or accelerates "+worstAcceleration+" in/s^2, over the limits");
+            loaded.sample(id,1e9);
+            int last=(trajectory.count()-1)*TrajectoryFile.SAMPLE_FLOATS;
+            if(Math.abs(loaded.getX()-trajectory.samples[last])>1e-3||loaded.getVelocityX()!=0)
+                throw new AssertionError(trajectory.name+" doesn't stop at its end");
+        }
+
+        int rounds=2_000_000;
+        double sink=0;
+        long timing=0;
+        for(int round=0;round<3;round++){//the first rounds warm up the JIT
+            long begin=System.nanoTime();
+            for(int i=0;i<rounds;i++){
+                int id=i%loaded.count();
+                loaded.sample(id,(i%1000)*0.005);
+                sink+=loaded.getX();
+            }
+            timing=System.nanoTime()-begin;
+        }
+        if(Double.isNaN(sink))//uses the samples so the timing loop can't be skipped
+            throw new AssertionError("sample() returned NaN");
+        System.out.printf("loaded and checked in %.1f ms, sample() %.0f ns; fastest %.1f in/s, hardest %.1f in/s^2%n",
+                loadMs,(double)timing/rounds,worstSpeed,worstAcceleration);
+    }
+}
@@ -0,0 +1,171 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+/*
+runs recorded frames through vision stages on a computer and reports how fast each stage is and what
+it found, so vision code can be measured and improved without a robot or a webcam
+
+it reads either a folder of images (the webcam-frame-12.jpg files ConceptWebcam.saveBitmap() saves,
+FrameWriter's frame-000012.jpg files, or any png or jpg) in frame number order, or a raw .frames file
+from FrameWriter.raw(). every frame goes into one VisionFrame, then through every stage, each one timed
+repeats times. stages are VisionStages, so a new detector only has to implement that and be added in
+stages() below to be measured next to the others
+
+if an image's name says which level it shows, like red-warehouse-level2-017.png, the results are
+checked against it. at the end it prints, for every stage, the latency (mean, p50, p99, max), the
+frames a second it could keep up with, how many frames got each result, and how many were right
+ */
+public class VisionReplay {
+    private static final Pattern NUMBER=Pattern.compile("(\\d+)\\.\\w+$");//the frame number at the end of a file name
+    private static final Pattern LEVEL=Pattern.compile("level([123])");
+
+    private final VisionStage[] stages;
+    private final int repeats;
+    private final LatencyHistogram[] latencies;
+    private final List<Map<Integer,Integer>> results=new ArrayList<>();
+    private final int[] right;
+    private final LatencyHistogram decode=new LatencyHistogram(0);
+    private int frames,checked;
+
+    public VisionReplay(int repeats,VisionStage... stages){
+        if(repeats<1||stages.length==0)
+            throw new IllegalArgumentException("replay needs at least one stage and one repeat");
+        this.stages=stages;
+        this.repeats=repeats;
+        latencies=new LatencyHistogram[stages.length];
+        right=new int[stages.length];
+        for(int i=0;i<stages.length;i++){
+            latencies[i]=new LatencyHistogram(0);
+            results.add(new TreeMap<Integer,Integer>());
+        }
+    }
+
+    public static void main(String[] args) throws IOException{
+        if(args.length==0){
+            System.out.println("usage: VisionReplay <folder of images or .frames file> [BC1|BW1|RC1|RW1] [repeats]");
+            return;
+        }
+        int firstBarcode=args.length>1?FieldMap.id(args[1]):FieldMap.BC1;
+        if(firstBarcode<0)
+            throw new IllegalArgumentException("there is no barcode called "+args[1]);
+        int repeats=args.length>2?Integer.parseInt(args[2]):10;
+        VisionReplay replay=new VisionReplay(repeats,stages(firstBarcode));
+        replay.replay(new File(args[0]));
+        replay.report();
+    }
+
+    static VisionStage[] stages(int firstBarcode){//add new stages here
+        return new VisionStage[]{
+                new BarcodeStage(new BarcodeDetector(firstBarcode)),
+        };
+    }
+
+    public void replay(File input) throws IOException{
+        VisionFrame frame=new VisionFrame();
+        if(input.isDirectory()){
+            for(File file:images(input)){
+                long start=System.nanoTime();
+                BufferedImage image=ImageIO.read(file);
+                if(image==null)
+                    throw new IOException(file+" isn't an image");
+                frame.setSize(image.getWidth(),image.getHeight());
+                image.getRGB(0,0,image.getWidth(),image.getHeight(),frame.getPixels(),0,image.getWidth());
+                frame.setInfo(number(file),0);
+                frame.setName(file.getName());
+                decode.record(System.nanoTime()-start);
+                Matcher level=LEVEL.matcher(file.getName().toLowerCase(Locale.US));
+                process(frame,level.find()?Integer.parseInt(level.group(1)):-1);
+            }
+        }else{
+            try(FileChannel channel=new FileInputStream(input).getChannel()){
+                FrameReader reader=new FrameReader(channel);
+                long start=System.nanoTime();
+                while(reader.next(frame)){
+                    decode.record(System.nanoTime()-start);
+                    frame.setName(input.getName()+" #"+frame.getFrameNumber());
+                    process(frame,-1);
+                    start=System.nanoTime();
+                }
+            }
+        }
+        if(frames==0)
+            throw new IOException("there are no frames in "+input);
+    }
+
+    public void process(VisionFrame frame,int expected){//expected: the right result, or -1 if it isn't known
+        frames++;
+        if(expected>=0)
+            checked++;
+        for(int i=0;i<stages.length;i++){
+            for(int r=0;r<repeats;r++){
+                long start=System.nanoTime();
+                stages[i].process(frame);
+                latencies[i].record(System.nanoTime()-start);
+            }
+            int result=stages[i].getResult();
+            Map<Integer,Integer> counts=results.get(i);
+            Integer count=counts.get(result);
+            counts.put(result,count==null?1:count+1);
+            if(expected>=0&&result==expected)//a stage with no answer (-1) isn't right on an unlabelled frame
+                right[i]++;
+        }
+    }
+
+    public void report(){
+        System.out.printf("%d frames, reading took %.2f ms a frame%n",frames,decode.getMean()/1e6);
+        double pipeline=0;
+        for(int i=0;i<stages.length;i++){
+            LatencyHistogram latency=latencies[i];
+            pipeline+=latency.getMean();
+            System.out.printf("%-12s mean %7.3f  p50 %7.3f  p99 %7.3f  max %7.3f ms  %8.0f frames/s  results %s",
+                    stages[i].getName(),latency.getMean()/1e6,latency.percentile(0.5)/1e6,latency.percentile(0.99)/1e6,latency.getMax()/1e6,
+                    1e9/latency.getMean(),results.get(i));
+            if(checked>0)
+                System.out.printf("  right %d of %d (%.1f%%)",right[i],checked,100.0*right[i]/checked);
+            System.out.println();
+        }
+        System.out.printf("all stages   %7.3f ms a frame, %.0f frames/s%n",pipeline/1e6,1e9/pipeline);
+    }
+
+    static File[] images(File folder) throws IOException{//png and jpg files, by the frame number in their names
+        File[] files=folder.listFiles();
+        if(files==null)
+            throw new IOException(folder+" isn't a folder");
+        List<File> images=new ArrayList<>();
+        for(File file:files){
+            String name=file.getName().toLowerCase(Locale.US);
+            if(name.endsWith(".png")||name.endsWith(".jpg")||name.endsWith(".jpeg"))
+                images.add(file);
+        }
+        File[] sorted=images.toArray(new File[0]);
+        Arrays.sort(sorted,new Comparator<File>(){
+            @Override
+            public int compare(File a,File b){//webcam-frame-9.jpg before webcam-frame-10.jpg
+                int byNumber=Long.compare(number(a),number(b));
+                return byNumber!=0?byNumber:a.getName().compareTo(b.getName());
+            }
+        });
+        return sorted;
+    }
+
+    static long number(File file){
+        Matcher matcher=NUMBER.matcher(file.getName());
+        return matcher.find()?Long.parseLong(matcher.group(1)):-1;
+    }
+}
@@ -0,0 +1,35 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+
+/*
+ImuIo for the BNO055 inside a Control Hub or Expansion Hub. the IMU has to be initialized first, the
+way SensorBNO055IMU does it. each read is its own I2C transaction and blocks for a few milliseconds,
+which is why ImuSampler does them on its own thread
+ */
+public class BNO055ImuIo implements ImuIo {
+    private final BNO055IMU imu;
+
+    public BNO055ImuIo(BNO055IMU imu){
+        this.imu=imu;
+    }
+
+    @Override
+    public double readHeading(){
+        return imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.DEGREES).firstAngle;
+    }
+
+    @Override
+    public double readHeadingRate(){
+        return imu.getAngularVelocity().toAngleUnit(AngleUnit.DEGREES).zRotationRate;
+    }
+
+    @Override
+    public String getName(){
+        return "BNO055";
+    }
+}
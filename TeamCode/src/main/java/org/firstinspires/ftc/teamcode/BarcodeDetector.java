@@ -0,0 +1,185 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+finds which barcode the duck (or team shipping element) is on by its color, in a millisecond or two
+instead of the hundreds of milliseconds a TFObjectDetector inference takes on the Control Hub
+
+each frame is looked at every STEP pixels in both directions, so a 640x480 frame becomes 160x120. every
+sampled pixel is turned into YCbCr (brightness, blueness, redness) with integer math and marked if it
+is the element's color; YCbCr separates color from brightness, so shadows and the field lights change
+it much less than RGB. the marks are summed into an integral image, where the number of marked pixels
+in any rectangle is 4 lookups. there are three regions of interest (ROIs), one per barcode, and the
+level is the one with the largest share of marked pixels:
+
+    BarcodeDetector detector=new BarcodeDetector(FieldMap.RW1);//the start on the red warehouse side
+    int[] pixels=new int[width*height];//made once
+    ...
+    bitmap.getPixels(pixels,0,width,0,0,width,height);
+    detector.process(pixels,width,height);
+    int level=detector.getLevel();//1 to 3, or 0 if the element wasn't found
+    int barcode=detector.getBarcode();//FieldMap.RW1 to RW3, or -1
+
+the detector is made for the first barcode of the three in front of the starting position (BC1, BW1,
+RC1 or RW1). by default the ROIs are equal thirds across the lower middle of the frame, ordered left to
+right the way those barcodes look from a camera facing them from the alliance wall, worked out from
+where they are in PointsOfInterest. setRoi() moves one to match the camera mount. ROIs and colors are
+fractions of the frame and YCbCr values, so they don't depend on the camera's resolution or STEP
+
+process() doesn't allocate except the first time it sees a new frame size. it only uses plain java,
+so it runs the same on a computer (see BarcodeDetectorBenchmark)
+ */
+public class BarcodeDetector {
+    public static final int STEP=4;//look at every 4th pixel in both directions
+    public static final double MIN_FRACTION=0.05;//the share of an ROI that has to be the element's color to count
+
+    //YCbCr ranges of a duck: bright, very little blue, somewhat red
+    public static final int DUCK_Y_MIN=60,DUCK_CB_MAX=100,DUCK_CR_MIN=135,DUCK_CR_MAX=185;
+
+    private final int firstBarcode;
+    private final double[] left=new double[3],top=new double[3],right=new double[3],bottom=new double[3];//ROIs by level-1
+    private int yMin=DUCK_Y_MIN,cbMin=0,cbMax=DUCK_CB_MAX,crMin=DUCK_CR_MIN,crMax=DUCK_CR_MAX;
+
+    private int[] integral=new int[0];//(gridWidth+1)*(gridHeight+1), integral[0][*] and [*][0] are 0
+    private int gridWidth,gridHeight;
+
+    private final double[] fractions=new double[3];
+    private int level;
+    private long processNanos;
+
+    public BarcodeDetector(int firstBarcode){//FieldMap.BC1, BW1, RC1 or RW1
+        if(firstBarcode!=FieldMap.BC1&&firstBarcode!=FieldMap.BW1&&firstBarcode!=FieldMap.RC1&&firstBarcode!=FieldMap.RW1)
+            throw new IllegalArgumentException(FieldMap.name(firstBarcode)+" isn't the first of a set of barcodes");
+        this.firstBarcode=firstBarcode;
+        for(int level=1;level<=3;level++){
+            int place=place(firstBarcode,level);
+            setRoi(level,place/3.0,0.35,(place+1)/3.0,0.85);
+        }
+    }
+
+    public static int place(int firstBarcode,int level){//where that level's barcode is in the frame: 0 is the left, 2 the right
+        //a camera facing the barcodes from the alliance wall: +x on blue, -x on red. its left is +y on blue
+        //and -y on red, so the barcode furthest to that side is the leftmost one in the frame
+        double side=FieldMap.x(firstBarcode)<FieldMap.FIELD_SIZE/2?1:-1;
+        int place=0;//how many of the other barcodes are further left
+        for(int j=0;j<3;j++){
+            if(FieldMap.y(firstBarcode+j)*side>FieldMap.y(firstBarcode+level-1)*side)
+                place++;
+        }
+        return place;
+    }
+
+    public static int levelAt(int firstBarcode,double x){//the level of the barcode at x, a fraction of the frame's width
+        int place=Math.max(0,Math.min(2,(int)(x*3)));
+        for(int level=1;level<3;level++){
+            if(place(firstBarcode,level)==place)
+                return level;
+        }
+        return 3;
+    }
+
+    public void setRoi(int level,double left,double top,double right,double bottom){//fractions of the frame, 0,0 is the top left
+        if(level<1||level>3)
+            throw new IllegalArgumentException("the level has to be 1, 2 or 3");
+        if(left<0||top<0||right>1||bottom>1||left>=right||top>=bottom)
+            throw new IllegalArgumentException("the ROI has to be inside the frame and not empty");
+        this.left[level-1]=left;
+        this.top[level-1]=top;
+        this.right[level-1]=right;
+        this.bottom[level-1]=bottom;
+    }
+
+    public void clearRoi(int level){//turn a level off, for example when its barcode isn't in the frame; setRoi() turns it back on
+        if(level<1||level>3)
+            throw new IllegalArgumentException("the level has to be 1, 2 or 3");
+        left[level-1]=0;
+        top[level-1]=0;
+        right[level-1]=0;
+        bottom[level-1]=0;
+    }
+
+    public double[] getRoi(int level){//left, top, right, bottom; all 0 if the level is cleared
+        return new double[]{left[level-1],top[level-1],right[level-1],bottom[level-1]};
+    }
+
+    public void setColor(int yMin,int cbMin,int cbMax,int crMin,int crMax){//YCbCr ranges, 0 to 255, for a team shipping element
+        this.yMin=yMin;
+        this.cbMin=cbMin;
+        this.cbMax=cbMax;
+        this.crMin=crMin;
+        this.crMax=crMax;
+    }
+
+    public int process(int[] argb,int width,int height){//pixels as Bitmap.getPixels() gives them, row by row; returns getLevel()
+        long start=System.nanoTime();
+        gridWidth=(width+STEP-1)/STEP;
+        gridHeight=(height+STEP-1)/STEP;
+        int stride=gridWidth+1;
+        if(integral.length<stride*(gridHeight+1))
+            integral=new int[stride*(gridHeight+1)];
+
+        for(int gy=0;gy<gridHeight;gy++){
+            int row=gy*STEP*width;
+            int above=gy*stride;
+            int at=above+stride;
+            integral[at]=0;
+            int rowSum=0;
+            for(int gx=0;gx<gridWidth;gx++){
+                int pixel=argb[row+gx*STEP];
+                int r=(pixel>>16)&0xFF,g=(pixel>>8)&0xFF,b=pixel&0xFF;
+                int y=(77*r+150*g+29*b)>>8;
+                int cb=((-43*r-85*g+128*b)>>8)+128;
+                int cr=((128*r-107*g-21*b)>>8)+128;
+                if(y>=yMin&&cb>=cbMin&&cb<=cbMax&&cr>=crMin&&cr<=crMax)
+                    rowSum++;
+                integral[at+gx+1]=integral[above+gx+1]+rowSum;
+            }
+        }
+
+        level=0;
+        double best=MIN_FRACTION;
+        for(int i=0;i<3;i++){
+            int x0=(int)Math.round(left[i]*gridWidth),x1=(int)Math.round(right[i]*gridWidth);
+            int y0=(int)Math.round(top[i]*gridHeight),y1=(int)Math.round(bottom[i]*gridHeight);
+            int area=(x1-x0)*(y1-y0);
+            int marked=integral[y1*stride+x1]-integral[y0*stride+x1]-integral[y1*stride+x0]+integral[y0*stride+x0];
+            fractions[i]=area>0?(double)marked/area:0;//a cleared ROI is empty, so it never wins
+            if(fractions[i]>=best){
+                best=fractions[i];
+                level=i+1;
+            }
+        }
+        processNanos=System.nanoTime()-start;
+        return level;
+    }
+
+    public int count(double left,double top,double right,double bottom){//marked pixels in any rectangle of the last frame, in sampled pixels
+        int stride=gridWidth+1;
+        int x0=(int)Math.round(left*gridWidth),x1=(int)Math.round(right*gridWidth);
+        int y0=(int)Math.round(top*gridHeight),y1=(int)Math.round(bottom*gridHeight);
+        return integral[y1*stride+x1]-integral[y0*stride+x1]-integral[y1*stride+x0]+integral[y0*stride+x0];
+    }
+
+    public int getLevel(){//1 to 3, or 0 if no ROI had MIN_FRACTION of the element's color
+        return level;
+    }
+
+    public int getBarcode(){//the FieldMap id of the barcode the element is on, or -1
+        return level==0?-1:firstBarcode+level-1;
+    }
+
+    public double getFraction(int level){//the share of that level's ROI that was the element's color
+        return fractions[level-1];
+    }
+
+    public long getProcessNanos(){//how long the last process() took
+        return processNanos;
+    }
+
+    public int getGridWidth(){
+        return gridWidth;
+    }
+
+    public int getGridHeight(){
+        return gridHeight;
+    }
+}
@@ -0,0 +1,91 @@
+package org.firstinspires.ftc.teamcode;
+
+import android.graphics.Bitmap;
+
+/*
+a RecognitionSource that runs a BarcodeDetector on frames from a WebcamFrameSource. every update()
+takes the newest waiting frame and lets older ones go back to the pool. the confidence is how much of
+the ROIs' color was in the winning one
+
+while the service is skipping, the webcam is paused after each answer, so the frames in between are
+never copied or looked at. the next update() unpauses it and waits for a frame from after that, the
+same way TfodRecognitionSource deactivates TensorFlow between answers
+ */
+public class BarcodeRecognitionSource implements RecognitionSource {
+    private final WebcamFrameSource webcam;
+    private final FramePool<Bitmap> frames;
+    private final BarcodeDetector detector;
+    private boolean skipping;
+    private int[] pixels=new int[0];
+    private int answer;
+    private double confidence;
+    private long time;
+
+    public BarcodeRecognitionSource(WebcamFrameSource webcam,BarcodeDetector detector){
+        this.webcam=webcam;
+        frames=webcam.getFrames();
+        this.detector=detector;
+    }
+
+    @Override
+    public boolean update(){
+        if(webcam.isPaused()){//skipping; let frames through again and wait for one from after now
+            releaseWaiting();
+            webcam.setPaused(false);
+            return false;
+        }
+        int frame=frames.poll();
+        if(frame<0)
+            return false;
+        for(int next=frames.poll();next>=0;next=frames.poll()){//only the newest frame matters
+            frames.release(frame);
+            frame=next;
+        }
+        if(skipping)
+            webcam.setPaused(true);
+        Bitmap bitmap=frames.get(frame);
+        int width=bitmap.getWidth(),height=bitmap.getHeight();
+        if(pixels.length<width*height)
+            pixels=new int[width*height];
+        bitmap.getPixels(pixels,0,width,0,0,width,height);
+        time=frames.getCaptureTime(frame);
+        frames.release(frame);
+        answer=detector.process(pixels,width,height);
+        double total=detector.getFraction(1)+detector.getFraction(2)+detector.getFraction(3);
+        confidence=answer==0?0.5:detector.getFraction(answer)/total;
+        return true;
+    }
+
+    @Override
+    public int getAnswer(){
+        return answer;
+    }
+
+    @Override
+    public double getConfidence(){
+        return confidence;
+    }
+
+    @Override
+    public long getTime(){
+        return time;
+    }
+
+    private void releaseWaiting(){//give back frames from before the pause
+        for(int frame=frames.poll();frame>=0;frame=frames.poll()){
+            frames.release(frame);
+        }
+    }
+
+    @Override
+    public void setSkipping(boolean skipping){
+        this.skipping=skipping;
+        if(!skipping)
+            webcam.setPaused(false);
+    }
+
+    @Override
+    public String getName(){
+        return "barcode detector";
+    }
+}
@@ -0,0 +1,31 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+a VisionStage that runs a BarcodeDetector; the result is the level, 1 to 3, or 0 if the element wasn't found
+ */
+public class BarcodeStage implements VisionStage {
+    private final BarcodeDetector detector;
+
+    public BarcodeStage(BarcodeDetector detector){
+        this.detector=detector;
+    }
+
+    @Override
+    public void process(VisionFrame frame){
+        detector.process(frame.getPixels(),frame.getWidth(),frame.getHeight());
+    }
+
+    @Override
+    public int getResult(){
+        return detector.getLevel();
+    }
+
+    @Override
+    public String getName(){
+        return "barcode";
+    }
+
+    public BarcodeDetector getDetector(){
+        return detector;
+    }
+}
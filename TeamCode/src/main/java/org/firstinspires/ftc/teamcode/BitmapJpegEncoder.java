@@ -0,0 +1,22 @@
+package org.firstinspires.ftc.teamcode;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+a JpegEncoder that uses Android's own, through one Bitmap made once and filled again for every frame
+ */
+public class BitmapJpegEncoder implements JpegEncoder {
+    private Bitmap bitmap;
+
+    @Override
+    public void encode(int[] argb,int width,int height,int quality,OutputStream out) throws IOException{
+        if(bitmap==null||bitmap.getWidth()!=width||bitmap.getHeight()!=height)
+            bitmap=Bitmap.createBitmap(width,height,Bitmap.Config.ARGB_8888);
+        bitmap.setPixels(argb,0,width,0,0,width,height);
+        if(!bitmap.compress(Bitmap.CompressFormat.JPEG,quality,out))
+            throw new IOException("the frame couldn't be compressed");
+    }
+}
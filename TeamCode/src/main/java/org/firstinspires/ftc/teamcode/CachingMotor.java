@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+
+/*
+a DcMotor or DcMotorEx that skips setPower and setVelocity calls that wouldn't change anything
+(see CachingOutput). everything else goes straight to the motor through getMotor()
+
+power and velocity share one cache, so switching from one to the other always sends the new command
+ */
+public class CachingMotor extends CachingOutput {
+    public static final double DEFAULT_POWER_EPSILON=0.005;
+    public static final double DEFAULT_REFRESH_SECONDS=0.5;
+
+    private final DcMotor motor;
+    private final double powerEpsilon,velocityEpsilon;
+    private boolean velocityMode;
+
+    public CachingMotor(DcMotor motor){
+        this(motor,DEFAULT_POWER_EPSILON,1,DEFAULT_REFRESH_SECONDS);
+    }
+
+    public CachingMotor(DcMotor motor,double powerEpsilon,double velocityEpsilon,double refreshSeconds){//velocityEpsilon is in ticks per second
+        super(refreshSeconds);
+        this.motor=motor;
+        this.powerEpsilon=powerEpsilon;
+        this.velocityEpsilon=velocityEpsilon;
+    }
+
+    public void setPower(double power){
+        if(velocityMode){
+            velocityMode=false;
+            invalidate();
+        }
+        if(shouldWrite(power,powerEpsilon))
+            motor.setPower(power);
+    }
+
+    public void setVelocity(double ticksPerSecond){//only works if the motor was made from a DcMotorEx
+        if(!(motor instanceof DcMotorEx))
+            throw new IllegalStateException("setVelocity needs a DcMotorEx");
+        if(!velocityMode){
+            velocityMode=true;
+            invalidate();
+        }
+        if(shouldWrite(ticksPerSecond,velocityEpsilon))
+            ((DcMotorEx)motor).setVelocity(ticksPerSecond);
+    }
+
+    public DcMotor getMotor(){
+        return motor;
+    }
+}
@@ -0,0 +1,70 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+shared logic for CachingMotor and CachingServo
+
+every setPower/setPosition on a hub device becomes a command on the hub's serial link, even if the
+value is the same as last time. a caching output remembers the last value it sent and skips writes
+that change it by less than epsilon. it still sends a write every refreshSeconds (0 turns this off)
+in case something else changed the device, and it always sends an exact 0 so a motor can be stopped
+
+the counters show how many writes were sent and how many were skipped
+ */
+public abstract class CachingOutput {
+    private final long refreshNanos;
+
+    private double lastValue=Double.NaN;//NaN means the next write always goes through
+    private long lastWriteTime;
+    private long issued,suppressed;
+
+    protected CachingOutput(double refreshSeconds){
+        this.refreshNanos=(long)(refreshSeconds*1e9);
+    }
+
+    protected boolean shouldWrite(double value,double epsilon){//true if value should be sent to the device; records it as sent if so
+        long now=System.nanoTime();
+        boolean refreshDue=refreshNanos>0&&now-lastWriteTime>=refreshNanos;
+        boolean changed=Double.isNaN(lastValue)||Math.abs(value-lastValue)>=epsilon||(value==0&&lastValue!=0);
+        if(!changed&&!refreshDue){
+            suppressed++;
+            return false;
+        }
+        lastValue=value;
+        lastWriteTime=now;
+        issued++;
+        return true;
+    }
+
+    public void invalidate(){//forget the last value so the next write is always sent
+        lastValue=Double.NaN;
+    }
+
+    public long getIssuedWrites(){
+        return issued;
+    }
+
+    public long getSuppressedWrites(){
+        return suppressed;
+    }
+
+    public void resetCounters(){
+        issued=0;
+        suppressed=0;
+    }
+
+    public static long totalIssued(CachingOutput... outputs){
+        long total=0;
+        for(CachingOutput output:outputs){
+            total+=output.issued;
+        }
+        return total;
+    }
+
+    public static long totalSuppressed(CachingOutput... outputs){
+        long total=0;
+        for(CachingOutput output:outputs){
+            total+=output.suppressed;
+        }
+        return total;
+    }
+}
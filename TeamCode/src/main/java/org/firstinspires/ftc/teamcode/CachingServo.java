@@ -0,0 +1,34 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Servo;
+
+/*
+a Servo that skips setPosition calls that wouldn't change anything (see CachingOutput). everything
+else goes straight to the servo through getServo()
+ */
+public class CachingServo extends CachingOutput {
+    public static final double DEFAULT_POSITION_EPSILON=0.001;
+    public static final double DEFAULT_REFRESH_SECONDS=0.5;
+
+    private final Servo servo;
+    private final double positionEpsilon;
+
+    public CachingServo(Servo servo){
+        this(servo,DEFAULT_POSITION_EPSILON,DEFAULT_REFRESH_SECONDS);
+    }
+
+    public CachingServo(Servo servo,double positionEpsilon,double refreshSeconds){
+        super(refreshSeconds);
+        this.servo=servo;
+        this.positionEpsilon=positionEpsilon;
+    }
+
+    public void setPosition(double position){
+        if(shouldWrite(position,positionEpsilon))
+            servo.setPosition(position);
+    }
+
+    public Servo getServo(){
+        return servo;
+    }
+}
@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+every point in PointsOfInterest packed into plain arrays, built once when the class is loaded
+
+points are referred to by an int id instead of a Point object. the ids are the constants below and
+follow the order of PointsOfInterest's getters (barcodes, then hubs, then warehouses). nothing
+here can be changed after the class is loaded, and none of the methods allocate, so they are safe to
+call from a control loop
+
+use distances() to get the distance to every point in one pass, and mirror() or forAlliance() to
+turn a point on one alliance's side into the matching point on the other side
+ */
+public final class FieldMap {
+    public static final double FIELD_SIZE=144;//the field is 12 feet square
+
+    //ids for each point
+    public static final int BC1=0,BC2=1,BC3=2,BW1=3,BW2=4,BW3=5;
+    public static final int RC1=6,RC2=7,RC3=8,RW1=9,RW2=10,RW3=11;
+    public static final int BSH=12,RSH=13,SSH=14;
+    public static final int BWH=15,RWH=16;
+
+    private static final double[] xs;
+    private static final double[] ys;
+    private static final String[] names;
+    private static final int[] mirrors;//mirrors[id] is the id of the same point on the other alliance's side
+    private static final Map<String,Integer> ids=new HashMap<>();
+
+    static{
+        List<Point> barcodes=PointsOfInterest.getBarcodes();
+        PointsOfInterest.Hub[] hubs=PointsOfInterest.Hub.values();
+        PointsOfInterest.Alliance[] alliances=PointsOfInterest.Alliance.values();
+        int count=barcodes.size()+hubs.length+alliances.length;
+        xs=new double[count];
+        ys=new double[count];
+        names=new String[count];
+        int id=0;
+        for(int i=0;i<barcodes.size();i++){
+            id=add(id,barcodes.get(i));
+        }
+        for(PointsOfInterest.Hub hub:hubs){
+            id=add(id,PointsOfInterest.getHub(hub));
+        }
+        for(PointsOfInterest.Alliance alliance:alliances){
+            id=add(id,PointsOfInterest.getWarehouse(alliance));
+        }
+
+        mirrors=new int[count];
+        for(int i=0;i<count;i++){//the field is mirrored across x=72, so the matching point has the same y
+            mirrors[i]=-1;
+            for(int j=0;j<count;j++){
+                if(xs[j]==FIELD_SIZE-xs[i]&&ys[j]==ys[i])
+                    mirrors[i]=j;
+            }
+            if(mirrors[i]==-1)
+                throw new IllegalStateException(names[i]+" has no matching point on the other alliance's side");
+        }
+    }
+
+    private static int add(int id,Point p){
+        xs[id]=p.x;
+        ys[id]=p.y;
+        names[id]=p.name.intern();
+        ids.put(names[id],id);
+        return id+1;
+    }
+
+    private FieldMap(){}
+
+    public static int count(){//number of points in the map
+        return xs.length;
+    }
+
+    public static double x(int id){
+        return xs[id];
+    }
+
+    public static double y(int id){
+        return ys[id];
+    }
+
+    public static String name(int id){
+        return names[id];
+    }
+
+    public static int id(String name){//return the id for a name like "BC1", or -1 if there is no point with that name
+        Integer id=ids.get(name);
+        return id==null?-1:id;
+    }
+
+    public static int mirror(int id){//return the same point on the other alliance's side; the shared hub is its own mirror
+        return mirrors[id];
+    }
+
+    public static int forAlliance(int blueId,PointsOfInterest.Alliance alliance){//lets an autonomous written for blue run on red
+        return alliance==PointsOfInterest.Alliance.BLUE?blueId:mirrors[blueId];
+    }
+
+    public static double mirrorX(double x){//mirror any x coordinate, for example the robot's position, to the other alliance's side
+        return FIELD_SIZE-x;
+    }
+
+    public static double distance(int id,double x,double y){
+        double dx=xs[id]-x,dy=ys[id]-y;
+        return Math.sqrt(dx*dx+dy*dy);
+    }
+
+    public static void distances(double x,double y,double[] out){//fill out[id] with the distance from (x,y) to every point
+        for(int i=0;i<xs.length;i++){
+            double dx=xs[i]-x,dy=ys[i]-y;
+            out[i]=Math.sqrt(dx*dx+dy*dy);
+        }
+    }
+
+    public static int nearest(double x,double y){//return the id of the closest point
+        int nearest=0;
+        double best=Double.MAX_VALUE;
+        for(int i=0;i<xs.length;i++){
+            double dx=xs[i]-x,dy=ys[i]-y;
+            double d=dx*dx+dy*dy;
+            if(d<best){
+                best=d;
+                nearest=i;
+            }
+        }
+        return nearest;
+    }
+}
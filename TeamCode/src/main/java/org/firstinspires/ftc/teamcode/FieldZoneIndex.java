@@ -0,0 +1,332 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+a uniform grid over the field that answers "which zones is this point in" and "which point of
+interest is closest" without looping over every zone
+
+zones are polygons or circles in the same inch coordinates as PointsOfInterest. add every zone and
+point, then call build() once; queries after that do not allocate. zone queries return a bit mask
+where bit i is set if the point is in zone i, so there can be at most 64 zones
+
+each grid cell remembers which zones cover it completely and which only touch it. a query only has to
+do the exact shape test for the zones that touch its cell, which is usually zero or one of them
+ */
+public class FieldZoneIndex {
+    public static final int MAX_ZONES=64;
+    static final double HUB_KEEP_OUT_RADIUS=12;//hub base radius plus some room for the robot to turn
+    static final double CAROUSEL_RADIUS=15;
+    static final double BARCODE_MARGIN=4.25;//half the width of a barcode tape square
+    static final double BARRIER_HALF_WIDTH=2;
+
+    private static final int POLYGON=0,CIRCLE=1;
+
+    private final double cellSize;
+    private final int cells;//number of cells along each side of the grid
+
+    //zone shapes, one entry per zone
+    private final List<String> zoneNames=new ArrayList<>();
+    private final List<double[]> zoneShapes=new ArrayList<>();//polygons are x0,y0,x1,y1,..., circles are x,y,radius
+    private final List<Integer> zoneTypes=new ArrayList<>();
+    private double[][] shapes;
+    private int[] types;
+
+    //points of interest for nearest point queries
+    private final List<Point> pointList=new ArrayList<>();
+    private Point[] points;
+
+    //per cell data, filled in by build()
+    private long[] insideMask;//zones that cover the whole cell
+    private long[] edgeMask;//zones that cover part of the cell and need an exact test
+    private int[] candidateStart;//candidates for cell i are candidates[candidateStart[i]] to candidates[candidateStart[i+1]-1]
+    private int[] candidates;
+
+    public FieldZoneIndex(double cellSize){
+        this.cellSize=cellSize;
+        cells=(int)Math.ceil(FieldMap.FIELD_SIZE/cellSize);
+    }
+
+    public static FieldZoneIndex freightFrenzy(){//build the index with the zones and points of interest for this season
+        FieldZoneIndex index=new FieldZoneIndex(6);
+        Point blueWarehouse=PointsOfInterest.getWarehouse(PointsOfInterest.Alliance.BLUE);
+        Point redWarehouse=PointsOfInterest.getWarehouse(PointsOfInterest.Alliance.RED);
+        index.addRectangle("BWH",0,blueWarehouse.y,blueWarehouse.x,FieldMap.FIELD_SIZE);//warehouses run from their boundary to the walls
+        index.addRectangle("RWH",redWarehouse.x,redWarehouse.y,FieldMap.FIELD_SIZE,FieldMap.FIELD_SIZE);
+        for(PointsOfInterest.Hub hub:PointsOfInterest.Hub.values()){//keep out zone around each shipping hub
+            Point center=PointsOfInterest.getHub(hub);
+            index.addCircle(center.name,center.x,center.y,HUB_KEEP_OUT_RADIUS);
+        }
+        index.addCircle("BCA",0,0,CAROUSEL_RADIUS);//carousels sit in the corners on the carousel side
+        index.addCircle("RCA",FieldMap.FIELD_SIZE,0,CAROUSEL_RADIUS);
+        addBarcodeZone(index,"BC",PointsOfInterest.Alliance.BLUE,PointsOfInterest.Side.CAROUSEL);
+        addBarcodeZone(index,"BW",PointsOfInterest.Alliance.BLUE,PointsOfInterest.Side.WAREHOUSE);
+        addBarcodeZone(index,"RC",PointsOfInterest.Alliance.RED,PointsOfInterest.Side.CAROUSEL);
+        addBarcodeZone(index,"RW",PointsOfInterest.Alliance.RED,PointsOfInterest.Side.WAREHOUSE);
+        index.addRectangle("BAR",blueWarehouse.x,blueWarehouse.y-BARRIER_HALF_WIDTH,redWarehouse.x,redWarehouse.y+BARRIER_HALF_WIDTH);//the tall part of the barrier between the warehouses
+        for(Point barcode:PointsOfInterest.getBarcodes()){
+            index.addPoint(barcode);
+        }
+        for(PointsOfInterest.Hub hub:PointsOfInterest.Hub.values()){
+            index.addPoint(PointsOfInterest.getHub(hub));
+        }
+        for(PointsOfInterest.Alliance alliance:PointsOfInterest.Alliance.values()){
+            index.addPoint(PointsOfInterest.getWarehouse(alliance));
+        }
+        index.build();
+        return index;
+    }
+
+    private static void addBarcodeZone(FieldZoneIndex index,String name,PointsOfInterest.Alliance alliance,PointsOfInterest.Side side){//one rectangle around the 3 barcodes of a group
+        Point level1=PointsOfInterest.getBarcode(alliance,side,PointsOfInterest.Level.ONE);
+        Point level3=PointsOfInterest.getBarcode(alliance,side,PointsOfInterest.Level.THREE);
+        index.addRectangle(name,
+                level1.x-BARCODE_MARGIN,Math.min(level1.y,level3.y)-BARCODE_MARGIN,
+                level1.x+BARCODE_MARGIN,Math.max(level1.y,level3.y)+BARCODE_MARGIN);
+    }
+
+    public int addPolygon(String name,double... xy){//add a polygon given as x0,y0,x1,y1,...; returns the zone number
+        if(xy.length<6||xy.length%2!=0)
+            throw new IllegalArgumentException("a polygon needs at least 3 x,y pairs");
+        return addZone(name,POLYGON,xy.clone());
+    }
+
+    public int addRectangle(String name,double x1,double y1,double x2,double y2){
+        return addPolygon(name,x1,y1,x2,y1,x2,y2,x1,y2);
+    }
+
+    public int addCircle(String name,double x,double y,double radius){
+        return addZone(name,CIRCLE,new double[]{x,y,radius});
+    }
+
+    public int addPoint(Point point){//add a point of interest for nearestPoint; returns the point number
+        checkNotBuilt();
+        pointList.add(point);
+        return pointList.size()-1;
+    }
+
+    private int addZone(String name,int type,double[] shape){
+        checkNotBuilt();
+        if(zoneNames.size()==MAX_ZONES)
+            throw new IllegalStateException("a FieldZoneIndex can only hold "+MAX_ZONES+" zones");
+        zoneNames.add(name);
+        zoneTypes.add(type);
+        zoneShapes.add(shape);
+        return zoneNames.size()-1;
+    }
+
+    private void checkNotBuilt(){
+        if(shapes!=null)
+            throw new IllegalStateException("zones and points have to be added before build()");
+    }
+
+    public void build(){//work out which zones and points matter for each cell
+        checkNotBuilt();
+        shapes=zoneShapes.toArray(new double[0][]);
+        types=new int[shapes.length];
+        for(int i=0;i<types.length;i++){
+            types[i]=zoneTypes.get(i);
+        }
+        points=pointList.toArray(new Point[0]);
+
+        insideMask=new long[cells*cells];
+        edgeMask=new long[cells*cells];
+        candidateStart=new int[cells*cells+1];
+        int[] found=new int[Math.max(points.length,1)];
+        int[] all=new int[cells*cells*Math.max(points.length,1)];
+        int count=0;
+        for(int row=0;row<cells;row++){
+            for(int col=0;col<cells;col++){
+                int cell=row*cells+col;
+                double x1=col*cellSize,y1=row*cellSize,x2=x1+cellSize,y2=y1+cellSize;
+                for(int zone=0;zone<shapes.length;zone++){
+                    if(coversCell(zone,x1,y1,x2,y2))
+                        insideMask[cell]|=1L<<zone;
+                    else if(touchesCell(zone,x1,y1,x2,y2))
+                        edgeMask[cell]|=1L<<zone;
+                }
+                //a point can only be the closest if its nearest distance to the cell is no more than
+                //the farthest distance to the cell of the best other point
+                double best=Double.MAX_VALUE;
+                for(Point p:points){
+                    best=Math.min(best,maxDistanceSquared(p.x,p.y,x1,y1,x2,y2));
+                }
+                int n=0;
+                for(int i=0;i<points.length;i++){
+                    if(minDistanceSquared(points[i].x,points[i].y,x1,y1,x2,y2)<=best)
+                        found[n++]=i;
+                }
+                candidateStart[cell]=count;
+                System.arraycopy(found,0,all,count,n);
+                count+=n;
+            }
+        }
+        candidateStart[cells*cells]=count;
+        candidates=Arrays.copyOf(all,count);
+    }
+
+    public long zonesAt(double x,double y){//return a bit mask of every zone that contains the point
+        if(x<0||y<0||x>=FieldMap.FIELD_SIZE||y>=FieldMap.FIELD_SIZE)
+            return 0;
+        int cell=cellOf(x,y);
+        long result=insideMask[cell];
+        long edges=edgeMask[cell];
+        while(edges!=0){//only the zones that cross this cell need an exact test
+            int zone=Long.numberOfTrailingZeros(edges);
+            edges&=edges-1;
+            if(containsExact(zone,x,y))
+                result|=1L<<zone;
+        }
+        return result;
+    }
+
+    public boolean inZone(int zone,double x,double y){//return true if the point is in one zone
+        return (zonesAt(x,y)&(1L<<zone))!=0;
+    }
+
+    public int nearestPoint(double x,double y){//return the number of the closest point of interest, or -1 if there are none
+        if(x<0||y<0||x>=FieldMap.FIELD_SIZE||y>=FieldMap.FIELD_SIZE)//a cell's candidates are only right for points inside it
+            return nearestPointExact(x,y);
+        int cell=cellOf(x,y);
+        int nearest=-1;
+        double best=Double.MAX_VALUE;
+        for(int i=candidateStart[cell];i<candidateStart[cell+1];i++){
+            Point p=points[candidates[i]];
+            double dx=p.x-x,dy=p.y-y;
+            double d=dx*dx+dy*dy;
+            if(d<best){
+                best=d;
+                nearest=candidates[i];
+            }
+        }
+        return nearest;
+    }
+
+    private int nearestPointExact(double x,double y){//check every point, without using the grid
+        int nearest=-1;
+        double best=Double.MAX_VALUE;
+        for(int i=0;i<points.length;i++){
+            double dx=points[i].x-x,dy=points[i].y-y;
+            double d=dx*dx+dy*dy;
+            if(d<best){
+                best=d;
+                nearest=i;
+            }
+        }
+        return nearest;
+    }
+
+    public Point getPoint(int point){
+        return points[point];
+    }
+
+    public int getZone(String name){//return the zone number for a name, or -1 if there is no zone with that name
+        return zoneNames.indexOf(name);
+    }
+
+    public long getZoneMask(String... names){//return a mask with the bit set for each named zone, for comparing against zonesAt
+        long mask=0;
+        for(String name:names){
+            int zone=getZone(name);
+            if(zone==-1)
+                throw new IllegalArgumentException("no zone named "+name);
+            mask|=1L<<zone;
+        }
+        return mask;
+    }
+
+    public String getZoneName(int zone){
+        return zoneNames.get(zone);
+    }
+
+    public int zoneCount(){
+        return zoneNames.size();
+    }
+
+    public int pointCount(){
+        return pointList.size();
+    }
+
+    private int cellOf(double x,double y){
+        int col=Math.min((int)(x/cellSize),cells-1);
+        int row=Math.min((int)(y/cellSize),cells-1);
+        return row*cells+col;
+    }
+
+    boolean containsExact(int zone,double x,double y){//the exact shape test, without using the grid
+        double[] s=shapes[zone];
+        if(types[zone]==CIRCLE){
+            double dx=x-s[0],dy=y-s[1];
+            return dx*dx+dy*dy<=s[2]*s[2];
+        }
+        boolean inside=false;//even-odd ray casting
+        for(int i=0,j=s.length-2;i<s.length;j=i,i+=2){
+            double xi=s[i],yi=s[i+1],xj=s[j],yj=s[j+1];
+            if((yi>y)!=(yj>y)&&x<(xj-xi)*(y-yi)/(yj-yi)+xi)
+                inside=!inside;
+        }
+        return inside;
+    }
+
+    private boolean coversCell(int zone,double x1,double y1,double x2,double y2){
+        double[] s=shapes[zone];
+        if(types[zone]==CIRCLE)
+            return maxDistanceSquared(s[0],s[1],x1,y1,x2,y2)<=s[2]*s[2];
+        //every corner has to be inside and no edge of the polygon can cross into the cell
+        if(!containsExact(zone,x1,y1)||!containsExact(zone,x2,y1)||!containsExact(zone,x2,y2)||!containsExact(zone,x1,y2))
+            return false;
+        for(int i=0,j=s.length-2;i<s.length;j=i,i+=2){
+            if(segmentCrossesInterior(s[j],s[j+1],s[i],s[i+1],x1,y1,x2,y2))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean touchesCell(int zone,double x1,double y1,double x2,double y2){//may be true for a cell the zone doesn't quite reach; that only costs an exact test
+        double[] s=shapes[zone];
+        if(types[zone]==CIRCLE)
+            return minDistanceSquared(s[0],s[1],x1,y1,x2,y2)<=s[2]*s[2];
+        double minX=Double.MAX_VALUE,minY=Double.MAX_VALUE,maxX=-Double.MAX_VALUE,maxY=-Double.MAX_VALUE;
+        for(int i=0;i<s.length;i+=2){
+            minX=Math.min(minX,s[i]);
+            maxX=Math.max(maxX,s[i]);
+            minY=Math.min(minY,s[i+1]);
+            maxY=Math.max(maxY,s[i+1]);
+        }
+        return minX<=x2&&maxX>=x1&&minY<=y2&&maxY>=y1;
+    }
+
+    private static boolean segmentCrossesInterior(double ax,double ay,double bx,double by,double x1,double y1,double x2,double y2){
+        //clip the segment against the open cell rectangle (Liang-Barsky)
+        double t0=0,t1=1,dx=bx-ax,dy=by-ay;
+        double[] p={-dx,dx,-dy,dy};
+        double[] q={ax-x1,x2-ax,ay-y1,y2-ay};
+        for(int i=0;i<4;i++){
+            if(p[i]==0){
+                if(q[i]<=0)
+                    return false;
+            }else{
+                double t=q[i]/p[i];
+                if(p[i]<0)
+                    t0=Math.max(t0,t);
+                else
+                    t1=Math.min(t1,t);
+            }
+        }
+        return t0<t1;
+    }
+
+    private static double minDistanceSquared(double x,double y,double x1,double y1,double x2,double y2){
+        double dx=Math.max(Math.max(x1-x,0),x-x2);
+        double dy=Math.max(Math.max(y1-y,0),y-y2);
+        return dx*dx+dy*dy;
+    }
+
+    private static double maxDistanceSquared(double x,double y,double x1,double y1,double x2,double y2){
+        double dx=Math.max(Math.abs(x-x1),Math.abs(x-x2));
+        double dy=Math.max(Math.abs(y-y1),Math.abs(y-y2));
+        return dx*dx+dy*dy;
+    }
+}
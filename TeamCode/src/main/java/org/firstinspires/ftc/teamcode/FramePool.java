@@ -0,0 +1,183 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+a fixed set of frame buffers that are handed from the camera's thread to the op mode and back again,
+so capturing frames doesn't allocate anything once the buffers are made
+
+ConceptWebcam makes a new Bitmap for every frame and recycles the ones the op mode didn't get to. at
+30 frames a second that is megabytes of garbage a second, and the garbage collector pausing the
+camera's thread is what drops frames. here every buffer is made once, then goes around in a circle:
+free -> acquire() -> the camera copies a frame into it -> publish() -> waiting to be used -> poll() ->
+the op mode uses it -> release() -> free again
+
+buffers are passed around as slot numbers, and get(slot) is the buffer itself:
+
+    FramePool<Bitmap> pool=new FramePool<>(4,2);//4 buffers, at most 2 frames waiting
+    for(int i=0;i<4;i++) pool.add(captureRequest.createEmptyBitmap());
+
+    camera thread:
+        int slot=pool.acquire();
+        if(slot<0) return;//every buffer is in use, the frame is skipped
+        cameraFrame.copyToBitmap(pool.get(slot));
+        pool.publish(slot,cameraFrame.getFrameNumber(),cameraFrame.getCaptureTime());
+
+    op mode:
+        int frame=pool.poll();//-1 if there's no new frame
+        if(frame>=0){
+            ...use pool.get(frame)
+            pool.release(frame);
+        }
+
+like the EvictingBlockingQueue in ConceptWebcam, at most depth frames wait to be used and the oldest
+one is dropped to make room for a new one, so the op mode never falls further behind than that. if
+the op mode is holding every other buffer, acquire() returns -1 and the camera's frame is skipped.
+getDropped() and getExhausted() count both, so you can tell if the pool needs more buffers
+
+the buffer type can be anything, so the same pool works with int[] pixels on a computer
+ */
+public class FramePool<T> {
+    private static final int UNUSED=0,FREE=1,FILLING=2,READY=3,HELD=4;
+
+    private final Object[] buffers;
+    private final int[] states;
+    private final long[] frameNumbers,captureTimes;
+    private final int[] free;//stack of free slots
+    private int freeCount;
+    private final int[] ready;//ring of published slots, oldest first
+    private int readyStart,readyCount;
+    private final int depth;
+    private int size;
+
+    private long published,delivered,dropped,exhausted;
+
+    public FramePool(int buffers,int depth){
+        if(buffers<2||depth<1||depth>buffers)
+            throw new IllegalArgumentException("a FramePool needs at least 2 buffers and a depth from 1 to the number of buffers");
+        this.buffers=new Object[buffers];
+        states=new int[buffers];
+        frameNumbers=new long[buffers];
+        captureTimes=new long[buffers];
+        free=new int[buffers];
+        ready=new int[depth];
+        this.depth=depth;
+    }
+
+    public synchronized void add(T buffer){//during setup, once for every buffer
+        if(size==buffers.length)
+            throw new IllegalStateException("the pool already has "+size+" buffers");
+        buffers[size]=buffer;
+        states[size]=FREE;
+        free[freeCount++]=size;
+        size++;
+    }
+
+    public synchronized int acquire(){//camera thread: a buffer to copy a frame into, or -1 if they're all in use
+        int slot;
+        if(freeCount>0){
+            slot=free[--freeCount];
+        }else if(readyCount>0){//reuse the oldest frame nobody has taken yet
+            slot=takeReady();
+            dropped++;
+        }else{
+            exhausted++;
+            return -1;
+        }
+        states[slot]=FILLING;
+        return slot;
+    }
+
+    public synchronized void publish(int slot,long frameNumber,long captureTime){//camera thread: the frame in slot is ready to use
+        if(slot<0||slot>=size||states[slot]!=FILLING)
+            throw new IllegalStateException("slot "+slot+" wasn't acquired, so it can't be published");
+        frameNumbers[slot]=frameNumber;
+        captureTimes[slot]=captureTime;
+        if(readyCount==depth){//too many waiting, drop the oldest
+            makeFree(takeReady());
+            dropped++;
+        }
+        ready[(readyStart+readyCount)%depth]=slot;
+        readyCount++;
+        states[slot]=READY;
+        published++;
+        notifyAll();
+    }
+
+    public synchronized int poll(){//op mode: the oldest frame waiting, or -1 if there isn't one; release() it when done
+        if(readyCount==0)
+            return -1;
+        int slot=takeReady();
+        states[slot]=HELD;
+        delivered++;
+        return slot;
+    }
+
+    public synchronized int take(long timeoutMillis) throws InterruptedException{//like poll(), but waits up to timeoutMillis for a frame
+        long end=System.nanoTime()+timeoutMillis*1000000;
+        while(readyCount==0){
+            long left=(end-System.nanoTime())/1000000;
+            if(left<=0)
+                return -1;
+            wait(left);
+        }
+        return poll();
+    }
+
+    public synchronized void release(int slot){//give back a slot from poll(), or one from acquire() that won't be published
+        if(slot<0||slot>=size||(states[slot]!=HELD&&states[slot]!=FILLING))
+            throw new IllegalStateException("slot "+slot+" isn't acquired or polled, so it can't be released");
+        makeFree(slot);
+    }
+
+    private int takeReady(){
+        int slot=ready[readyStart];
+        readyStart=(readyStart+1)%depth;
+        readyCount--;
+        return slot;
+    }
+
+    private void makeFree(int slot){
+        states[slot]=FREE;
+        free[freeCount++]=slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int slot){//only while the slot is acquired or polled
+        return (T)buffers[slot];
+    }
+
+    public synchronized long getFrameNumber(int slot){
+        return frameNumbers[slot];
+    }
+
+    public synchronized long getCaptureTime(int slot){//the System.nanoTime() the frame was captured at
+        return captureTimes[slot];
+    }
+
+    public synchronized int size(){//buffers added so far
+        return size;
+    }
+
+    public int getCapacity(){
+        return buffers.length;
+    }
+
+    public synchronized int waiting(){//frames published and not polled yet
+        return readyCount;
+    }
+
+    public synchronized long getPublished(){
+        return published;
+    }
+
+    public synchronized long getDelivered(){
+        return delivered;
+    }
+
+    public synchronized long getDropped(){//published frames that were replaced before the op mode polled them
+        return dropped;
+    }
+
+    public synchronized long getExhausted(){//camera frames skipped because every buffer was in use
+        return exhausted;
+    }
+}
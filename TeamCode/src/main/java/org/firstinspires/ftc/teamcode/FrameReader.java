@@ -0,0 +1,78 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+reads back the raw files FrameWriter.raw() writes, one frame at a time into a VisionFrame, so a whole
+recorded match never has to fit in memory. the file layout is described in FrameWriter:
+
+    try(FileChannel channel=new FileInputStream(file).getChannel()){
+        FrameReader reader=new FrameReader(channel);
+        VisionFrame frame=new VisionFrame();
+        while(reader.next(frame)){
+            ...
+        }
+    }
+ */
+public class FrameReader {
+    private final FileChannel channel;
+    private final ByteBuffer header=ByteBuffer.allocateDirect(FrameWriter.FRAME_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer pixels=ByteBuffer.allocateDirect(0);
+    private long frames;
+
+    public FrameReader(FileChannel channel) throws IOException{
+        this.channel=channel;
+        ByteBuffer start=ByteBuffer.allocate(FrameWriter.FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if(!fill(start))
+            throw new IOException("the frame file is empty");
+        if(start.getInt(0)!=FrameWriter.MAGIC)
+            throw new IOException("not a frame file");
+        int version=start.getShort(4);
+        if(version!=FrameWriter.VERSION)
+            throw new IOException("frame file version "+version+" is not supported");
+    }
+
+    public boolean next(VisionFrame frame) throws IOException{//false at the end of the file
+        header.clear();
+        if(!fill(header))
+            return false;
+        int width=header.getInt(0),height=header.getInt(4);
+        if(width<=0||height<=0||(long)width*height>1<<26)
+            throw new IOException("frame "+frames+" says it is "+width+"x"+height+", the file is damaged");
+        int size=width*height*4;
+        if(pixels.capacity()<size)
+            pixels=ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        pixels.clear();
+        pixels.limit(size);
+        if(!fill(pixels))
+            throw new EOFException("the frame file ends in the middle of frame "+frames);
+        frame.setSize(width,height);
+        IntBuffer ints=pixels.asIntBuffer();
+        ints.get(frame.getPixels(),0,width*height);
+        frame.setInfo(header.getLong(8),header.getLong(16));
+        frames++;
+        return true;
+    }
+
+    private boolean fill(ByteBuffer buffer) throws IOException{//reads up to the limit; false if the file ended before anything was read
+        int start=buffer.position();
+        while(buffer.hasRemaining()){
+            if(channel.read(buffer)<0){
+                if(buffer.position()==start)
+                    return false;
+                throw new EOFException("the frame file ends in the middle of frame "+frames);
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    public long getFrames(){//frames read so far
+        return frames;
+    }
+}
@@ -0,0 +1,244 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+
+/*
+saves camera frames on its own thread, so recording a match doesn't slow down the op mode or the camera
+
+ConceptWebcam.saveBitmap() compresses a quality 100 JPEG right where it polls for frames, which takes
+tens of milliseconds a frame. here the op mode only copies the frame's pixels into a buffer from a
+FramePool and goes on; the writer's thread takes them from there. when the writer falls behind, the
+pool drops the oldest frame waiting, so a slow SD card costs frames, never loop time:
+
+    FrameWriter recorder=FrameWriter.raw(new File(AppUtil.ROBOT_DATA_DIR,"match.frames"),width,height,4);
+    recorder.start();
+    ...
+    FramePool<int[]> queue=recorder.getQueue();
+    int slot=queue.acquire();
+    if(slot>=0){
+        bitmap.getPixels(queue.get(slot),0,width,0,0,width,height);
+        queue.publish(slot,frameNumber,captureTime);
+    }
+    ...
+    recorder.stop();//writes what is still waiting, then closes the file
+
+there are two formats:
+    raw() appends every frame to one file, exactly as Bitmap.getPixels() gives it, with one gather write
+    per frame through a direct buffer and a FileChannel. nothing is compressed, so it costs the least
+    CPU and keeps every pixel, but it is width*height*4 bytes a frame
+    jpeg() writes frame-000123.jpg files at a lower quality (70 looks fine and is much faster than 100)
+    into a folder, with a JpegEncoder (BitmapJpegEncoder on the robot)
+
+raw file layout, all little endian like TrajectoryFile:
+    int    magic ("FRMS")
+    short  version
+    short  0
+    then for every frame:
+    int    width
+    int    height
+    long   frame number
+    long   System.nanoTime() the frame was captured at
+    width*height ints of ARGB pixels, row by row
+
+getWriteLatency() is how long writing each frame took, getAge() how old each frame was by the time
+it was written, and getDropped() how many frames were dropped because the writer was behind
+ */
+public class FrameWriter {
+    public enum Format {RAW,JPEG}
+
+    public static final int MAGIC=0x534D5246;//"FRMS" when written little endian
+    public static final int VERSION=1;
+    public static final int FILE_HEADER_BYTES=8;
+    public static final int FRAME_HEADER_BYTES=24;
+    public static final long TAKE_TIMEOUT_MS=50;
+
+    private final Format format;
+    private final File target;//the file for RAW, the folder for JPEG
+    private final int width,height;
+    private final int quality;
+    private final JpegEncoder encoder;
+    private final FramePool<int[]> queue;
+
+    //only used by the writer's thread
+    private FileChannel channel;
+    private ByteBuffer header,pixels;
+    private IntBuffer pixelInts;
+    private ByteBuffer[] frame;
+
+    private final LatencyHistogram writeLatency=new LatencyHistogram(0),age=new LatencyHistogram(0);
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long written,bytes,failed;
+    private volatile IOException error;
+
+    public static FrameWriter raw(File file,int width,int height,int buffers){//buffers: frames waiting, plus the one being written
+        return new FrameWriter(Format.RAW,file,width,height,buffers,0,null);
+    }
+
+    public static FrameWriter jpeg(File folder,int width,int height,int buffers,int quality,JpegEncoder encoder){
+        if(quality<0||quality>100)
+            throw new IllegalArgumentException("the JPEG quality has to be 0 to 100");
+        return new FrameWriter(Format.JPEG,folder,width,height,buffers,quality,encoder);
+    }
+
+    private FrameWriter(Format format,File target,int width,int height,int buffers,int quality,JpegEncoder encoder){
+        this.format=format;
+        this.target=target;
+        this.width=width;
+        this.height=height;
+        this.quality=quality;
+        this.encoder=encoder;
+        queue=new FramePool<>(buffers,buffers-1);
+        for(int i=0;i<buffers;i++){
+            queue.add(new int[width*height]);
+        }
+    }
+
+    public void start() throws IOException{
+        if(thread!=null)
+            throw new IllegalStateException("the writer is already running");
+        if(format==Format.RAW){
+            header=ByteBuffer.allocateDirect(FRAME_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            pixels=ByteBuffer.allocateDirect(width*height*4).order(ByteOrder.LITTLE_ENDIAN);
+            pixelInts=pixels.asIntBuffer();
+            frame=new ByteBuffer[]{header,pixels};
+            channel=new FileOutputStream(target).getChannel();
+            ByteBuffer start=ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            start.putInt(MAGIC).putShort((short)VERSION).putShort((short)0).flip();
+            while(start.hasRemaining()){
+                channel.write(start);
+            }
+        }else if(!target.isDirectory()&&!target.mkdirs()){
+            throw new IOException("couldn't make the folder "+target);
+        }
+        running=true;
+        thread=new Thread(this::run,"frame writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop(){//write the frames still waiting, then close the file
+        running=false;
+        if(thread==null)
+            return;
+        try{
+            thread.join();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }
+        thread=null;
+        if(channel!=null){
+            try{
+                channel.close();
+            }catch(IOException e){
+                error=e;
+            }
+            channel=null;
+        }
+    }
+
+    public FramePool<int[]> getQueue(){//acquire a buffer, fill it with width*height ARGB pixels, publish it
+        return queue;
+    }
+
+    public boolean offer(int[] argb,long frameNumber,long captureTime){//copies the pixels in; false if every buffer was in use
+        int slot=queue.acquire();
+        if(slot<0)
+            return false;
+        System.arraycopy(argb,0,queue.get(slot),0,width*height);
+        queue.publish(slot,frameNumber,captureTime);
+        return true;
+    }
+
+    private void run(){//runs on the writer's thread
+        while(running||queue.waiting()>0){
+            int slot;
+            try{
+                slot=queue.take(TAKE_TIMEOUT_MS);
+            }catch(InterruptedException e){
+                return;
+            }
+            if(slot<0)
+                continue;
+            long start=System.nanoTime();
+            try{
+                long size=format==Format.RAW?writeRaw(slot):writeJpeg(slot);
+                bytes+=size;
+                written++;
+            }catch(IOException e){
+                error=e;
+                failed++;
+            }
+            long end=System.nanoTime();
+            synchronized(this){
+                writeLatency.record(end-start);
+                age.record(end-queue.getCaptureTime(slot));
+            }
+            queue.release(slot);
+        }
+    }
+
+    private long writeRaw(int slot) throws IOException{
+        header.clear();
+        header.putInt(width).putInt(height).putLong(queue.getFrameNumber(slot)).putLong(queue.getCaptureTime(slot));
+        header.flip();
+        pixelInts.clear();
+        pixelInts.put(queue.get(slot),0,width*height);
+        pixels.clear();
+        long size=0;
+        while(pixels.hasRemaining()){
+            size+=channel.write(frame);
+        }
+        return size;
+    }
+
+    private long writeJpeg(int slot) throws IOException{
+        File file=new File(target,String.format(Locale.US,"frame-%06d.jpg",queue.getFrameNumber(slot)));
+        try(OutputStream out=new BufferedOutputStream(new FileOutputStream(file),1<<16)){
+            encoder.encode(queue.get(slot),width,height,quality,out);
+        }
+        return file.length();
+    }
+
+    public synchronized long getWriteLatency(double fraction){//nanoseconds, for example getWriteLatency(0.99) for p99
+        return writeLatency.percentile(fraction);
+    }
+
+    public synchronized long getMaxWriteLatency(){
+        return writeLatency.getMax();
+    }
+
+    public synchronized long getAge(double fraction){//nanoseconds from capture to written
+        return age.percentile(fraction);
+    }
+
+    public long getWritten(){
+        return written;
+    }
+
+    public long getBytes(){
+        return bytes;
+    }
+
+    public long getDropped(){//frames replaced while waiting, or skipped because every buffer was in use
+        return queue.getDropped()+queue.getExhausted();
+    }
+
+    public long getFailed(){//frames that couldn't be written, see getError()
+        return failed;
+    }
+
+    public IOException getError(){//the last write that failed, or null
+        return error;
+    }
+}
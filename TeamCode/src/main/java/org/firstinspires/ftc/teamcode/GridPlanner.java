@@ -0,0 +1,379 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+plans paths around obstacles on the field using A* on a grid
+
+the field is split into square cells of the given resolution (in inches). a cell is an obstacle if
+its center is inside any of the obstacle zones of a FieldZoneIndex. when the planner is created it
+runs a distance transform, so it knows how far every cell is from the nearest obstacle or wall. cells
+closer than the robot radius are blocked, which lets the planner treat the robot as a single point
+
+plan() runs A* with 8 neighbours and then removes waypoints that have a clear straight line between
+them, so the result is a short list of corners instead of every cell. all of the search arrays are
+made in the constructor and reused, so plan() does not allocate. a planner is not thread safe
+
+this is plain java so it can be tested and timed on a computer (see GridPlannerBenchmark)
+ */
+public class GridPlanner {
+    private static final double SQRT2=Math.sqrt(2);
+    private static final double INF=1e20;
+
+    private final double resolution;
+    private final double robotRadius;
+    private final int cols,rows;
+
+    private final double[] clearance;//distance in inches from each cell center to the nearest obstacle or wall
+    private final boolean[] blocked;
+
+    //A* state, reused between plans. a cell's g/parent/heapIndex are only valid if its stamp matches the current search
+    private final double[] g;
+    private final int[] parent;
+    private final int[] stamp;
+    private final boolean[] closed;
+    private final int[] heapIndex;
+    private final int[] heap;//binary heap of cells ordered by f
+    private final double[] heapF;
+    private int heapSize;
+    private int search;
+    private final int[] cellPath;//the unsmoothed path, goal first
+
+    private double lastLength;//length of the most recent plan in inches
+    private int lastExpanded;//cells expanded by the most recent plan
+
+    public GridPlanner(FieldZoneIndex field,long obstacleZones,double resolution,double robotRadius){
+        this.resolution=resolution;
+        this.robotRadius=robotRadius;
+        cols=(int)Math.ceil(FieldMap.FIELD_SIZE/resolution);
+        rows=cols;
+        int n=cols*rows;
+
+        //squared distance in cells to the nearest obstacle cell, from a separable exact distance transform
+        double[] distance=new double[n];
+        for(int row=0;row<rows;row++){
+            for(int col=0;col<cols;col++){
+                boolean obstacle=(field.zonesAt(centerX(col),centerY(row))&obstacleZones)!=0;
+                distance[row*cols+col]=obstacle?0:INF;
+            }
+        }
+        distanceTransform(distance,cols,rows);
+
+        clearance=new double[n];
+        blocked=new boolean[n];
+        for(int row=0;row<rows;row++){
+            for(int col=0;col<cols;col++){
+                int cell=row*cols+col;
+                double wall=Math.min(Math.min(centerX(col),FieldMap.FIELD_SIZE-centerX(col)),
+                        Math.min(centerY(row),FieldMap.FIELD_SIZE-centerY(row)));
+                clearance[cell]=Math.min(Math.sqrt(distance[cell])*resolution,wall);
+                blocked[cell]=clearance[cell]<robotRadius;
+            }
+        }
+
+        g=new double[n];
+        parent=new int[n];
+        stamp=new int[n];
+        closed=new boolean[n];
+        heapIndex=new int[n];
+        heap=new int[n];
+        heapF=new double[n];
+        cellPath=new int[n];
+    }
+
+    public static GridPlanner freightFrenzy(double resolution,double robotRadius){//hubs, carousels and the barrier are obstacles
+        FieldZoneIndex field=FieldZoneIndex.freightFrenzy();
+        return new GridPlanner(field,field.getZoneMask("BSH","RSH","SSH","BCA","RCA","BAR"),resolution,robotRadius);
+    }
+
+    public int plan(double startX,double startY,double goalX,double goalY,double[] path){
+        //find a path and write it into path as x0,y0,x1,y1,... starting at the start point
+        //returns the number of waypoints, or -1 if there is no path. path needs room for 2*maxWaypoints() values
+        //a start or goal inside an obstacle is moved to the closest free cell, so you can plan "to" a hub
+        lastLength=0;
+        lastExpanded=0;
+        int start=nearestFree(cellOf(startX,startY));
+        int goal=nearestFree(cellOf(goalX,goalY));
+        if(start<0||goal<0)
+            return -1;
+
+        search++;
+        heapSize=0;
+        open(start,-1,0,goal);
+        boolean found=false;
+        while(heapSize>0){
+            int cell=pop();
+            if(cell==goal){
+                found=true;
+                break;
+            }
+            closed[cell]=true;
+            lastExpanded++;
+            int col=cell%cols,row=cell/cols;
+            for(int dy=-1;dy<=1;dy++){
+                for(int dx=-1;dx<=1;dx++){
+                    if(dx==0&&dy==0)
+                        continue;
+                    int c=col+dx,r=row+dy;
+                    if(c<0||r<0||c>=cols||r>=rows)
+                        continue;
+                    int next=r*cols+c;
+                    if(blocked[next])
+                        continue;
+                    if(dx!=0&&dy!=0&&(blocked[row*cols+c]||blocked[r*cols+col]))//don't cut the corner of an obstacle
+                        continue;
+                    if(stamp[next]==search&&closed[next])
+                        continue;
+                    open(next,cell,g[cell]+(dx!=0&&dy!=0?SQRT2:1),goal);
+                }
+            }
+        }
+        if(!found)
+            return -1;
+
+        int length=0;
+        for(int cell=goal;cell!=-1;cell=parent[cell]){
+            cellPath[length++]=cell;
+        }
+        return smooth(length,path);
+    }
+
+    private int smooth(int length,double[] path){//keep only the cells where the straight line from the last corner gets blocked
+        int anchor=length-1;//cellPath runs from the goal back to the start
+        int waypoints=0;
+        waypoints=addWaypoint(path,waypoints,cellPath[anchor]);
+        for(int i=anchor-1;i>0;i--){
+            if(!lineOfSight(cellPath[anchor],cellPath[i-1])){
+                anchor=i;
+                waypoints=addWaypoint(path,waypoints,cellPath[anchor]);
+            }
+        }
+        if(length>1)
+            waypoints=addWaypoint(path,waypoints,cellPath[0]);
+        return waypoints;
+    }
+
+    private int addWaypoint(double[] path,int waypoints,int cell){
+        double x=centerX(cell%cols),y=centerY(cell/cols);
+        if(waypoints>0)
+            lastLength+=Math.hypot(x-path[2*waypoints-2],y-path[2*waypoints-1]);
+        path[2*waypoints]=x;
+        path[2*waypoints+1]=y;
+        return waypoints+1;
+    }
+
+    private boolean lineOfSight(int from,int to){//walk every cell the segment between two cell centers passes through
+        int x0=from%cols,y0=from/cols,x1=to%cols,y1=to/cols;
+        int dx=Math.abs(x1-x0),dy=Math.abs(y1-y0);
+        int sx=x1>x0?1:-1,sy=y1>y0?1:-1;
+        int error=dx-dy;
+        int x=x0,y=y0;
+        for(int steps=dx+dy;steps>0;steps--){
+            int e2=2*error;
+            if(e2>-dy&&e2<dx){//the line goes exactly through a corner; both side cells have to be free
+                if(blocked[y*cols+x+sx]||blocked[(y+sy)*cols+x])
+                    return false;
+                error+=dx-dy;
+                x+=sx;
+                y+=sy;
+                steps--;
+            }else if(e2>-dy){
+                error-=dy;
+                x+=sx;
+            }else{
+                error+=dx;
+                y+=sy;
+            }
+            if(blocked[y*cols+x])
+                return false;
+        }
+        return true;
+    }
+
+    private void open(int cell,int from,double cost,int goal){//add a cell to the open set, or lower its cost if it is already there
+        if(stamp[cell]!=search){
+            stamp[cell]=search;
+            closed[cell]=false;
+            heapIndex[cell]=-1;
+        }else if(cost>=g[cell]){
+            return;
+        }
+        g[cell]=cost;
+        parent[cell]=from;
+        double f=cost+heuristic(cell,goal);
+        if(heapIndex[cell]<0){
+            heapIndex[cell]=heapSize;
+            heap[heapSize]=cell;
+            heapF[heapSize]=f;
+            heapSize++;
+        }else{
+            heapF[heapIndex[cell]]=f;
+        }
+        siftUp(heapIndex[cell]);
+    }
+
+    private double heuristic(int cell,int goal){//octile distance, in cells
+        int dx=Math.abs(cell%cols-goal%cols),dy=Math.abs(cell/cols-goal/cols);
+        return dx+dy+(SQRT2-2)*Math.min(dx,dy);
+    }
+
+    private int pop(){
+        int top=heap[0];
+        heapIndex[top]=-1;
+        heapSize--;
+        if(heapSize>0){
+            move(heap[heapSize],heapF[heapSize],0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i){
+        int cell=heap[i];
+        double f=heapF[i];
+        while(i>0){
+            int up=(i-1)/2;
+            if(heapF[up]<=f)
+                break;
+            move(heap[up],heapF[up],i);
+            i=up;
+        }
+        move(cell,f,i);
+    }
+
+    private void siftDown(int i){
+        int cell=heap[i];
+        double f=heapF[i];
+        while(true){
+            int child=2*i+1;
+            if(child>=heapSize)
+                break;
+            if(child+1<heapSize&&heapF[child+1]<heapF[child])
+                child++;
+            if(heapF[child]>=f)
+                break;
+            move(heap[child],heapF[child],i);
+            i=child;
+        }
+        move(cell,f,i);
+    }
+
+    private void move(int cell,double f,int i){
+        heap[i]=cell;
+        heapF[i]=f;
+        heapIndex[cell]=i;
+    }
+
+    private int nearestFree(int cell){//search outward in square rings for the closest cell that isn't blocked
+        if(!blocked[cell])
+            return cell;
+        int col=cell%cols,row=cell/cols;
+        int best=-1;
+        double bestDistance=INF;
+        for(int ring=1;ring<cols;ring++){
+            for(int r=row-ring;r<=row+ring;r++){
+                for(int c=col-ring;c<=col+ring;c++){
+                    if(r<0||c<0||r>=rows||c>=cols)
+                        continue;
+                    if(Math.abs(r-row)!=ring&&Math.abs(c-col)!=ring)//only the edge of the ring
+                        continue;
+                    int next=r*cols+c;
+                    double d=(r-row)*(r-row)+(c-col)*(c-col);
+                    if(!blocked[next]&&d<bestDistance){
+                        best=next;
+                        bestDistance=d;
+                    }
+                }
+            }
+            if(best>=0&&bestDistance<=ring*ring)//nothing in a later ring can be closer
+                return best;
+        }
+        return best;
+    }
+
+    public double clearance(double x,double y){//distance from a point to the nearest obstacle or wall, to the resolution of the grid
+        return clearance[cellOf(x,y)];
+    }
+
+    public boolean isFree(double x,double y){//true if the robot's center can be at this point
+        return !blocked[cellOf(x,y)];
+    }
+
+    public int maxWaypoints(){
+        return cols*rows;
+    }
+
+    public double lastPathLength(){
+        return lastLength;
+    }
+
+    public int lastCellsExpanded(){
+        return lastExpanded;
+    }
+
+    public double getResolution(){
+        return resolution;
+    }
+
+    public double getRobotRadius(){
+        return robotRadius;
+    }
+
+    private int cellOf(double x,double y){
+        int col=Math.max(0,Math.min((int)(x/resolution),cols-1));
+        int row=Math.max(0,Math.min((int)(y/resolution),rows-1));
+        return row*cols+col;
+    }
+
+    private double centerX(int col){
+        return (col+0.5)*resolution;
+    }
+
+    private double centerY(int row){
+        return (row+0.5)*resolution;
+    }
+
+    private static void distanceTransform(double[] grid,int cols,int rows){
+        //exact squared euclidean distance transform (Felzenszwalb and Huttenlocher), first down the columns then along the rows
+        int size=Math.max(cols,rows);
+        double[] f=new double[size],d=new double[size],z=new double[size+1];
+        int[] v=new int[size];
+        for(int col=0;col<cols;col++){
+            for(int row=0;row<rows;row++){
+                f[row]=grid[row*cols+col];
+            }
+            distanceTransform1d(f,rows,d,v,z);
+            for(int row=0;row<rows;row++){
+                grid[row*cols+col]=d[row];
+            }
+        }
+        for(int row=0;row<rows;row++){
+            System.arraycopy(grid,row*cols,f,0,cols);
+            distanceTransform1d(f,cols,d,v,z);
+            System.arraycopy(d,0,grid,row*cols,cols);
+        }
+    }
+
+    private static void distanceTransform1d(double[] f,int n,double[] d,int[] v,double[] z){//lower envelope of parabolas
+        int k=0;
+        v[0]=0;
+        z[0]=-INF;
+        z[1]=INF;
+        for(int q=1;q<n;q++){
+            double s=((f[q]+q*q)-(f[v[k]]+v[k]*v[k]))/(2.0*q-2.0*v[k]);
+            while(s<=z[k]){
+                k--;
+                s=((f[q]+q*q)-(f[v[k]]+v[k]*v[k]))/(2.0*q-2.0*v[k]);
+            }
+            k++;
+            v[k]=q;
+            z[k]=s;
+            z[k+1]=INF;
+        }
+        k=0;
+        for(int q=0;q<n;q++){
+            while(z[k+1]<q){
+                k++;
+            }
+            d[q]=(q-v[k])*(q-v[k])+f[v[k]];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+the reads and writes for the motors on one hub, so HubIoExecutor can work the same with real hubs
+(LynxHubIo) and without any hardware (SimulatedHubIo)
+ */
+public interface HubIo {
+    int motorCount();
+
+    void read(int[] positions,double[] velocities);//read every motor's encoder position and velocity
+
+    void write(double[] powers);//set every motor's power
+
+    String getName();
+}
@@ -0,0 +1,146 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+gives each hub its own thread, so the Control Hub and an Expansion Hub are read and written at the
+same time instead of one after the other on the op mode thread
+
+each worker thread loops: if new motor powers were sent, write them to its hub, then bulk read the
+hub and publish the result. results and powers are passed through TripleBuffers, so the op mode
+thread never waits for a hub and never sees a half finished read. the op mode loop looks like:
+
+    HubIoExecutor io=new HubIoExecutor(new LynxHubIo(controlHub,m0,m1),new LynxHubIo(expansionHub,m2,m3));
+    io.start();
+    while(opModeIsActive()){
+        io.refresh();//take the latest reads from every hub
+        int position=io.getPosition(0,1);//hub 0, motor 1
+        ...
+        io.setPower(1,0,power);//hub 1, motor 0
+        io.send();//hand all the powers to the workers
+    }
+    io.stop();
+
+a read taken by refresh() can be up to one hub round trip old; getSampleTime() says when it was read
+ */
+public class HubIoExecutor {
+    private final Worker[] workers;
+
+    private static class Sample {//one bulk read of one hub
+        final int[] positions;
+        final double[] velocities;
+        long timeNanos;
+        long sequence;
+
+        Sample(int motors){
+            positions=new int[motors];
+            velocities=new double[motors];
+        }
+    }
+
+    private static class Worker implements Runnable {
+        final HubIo hub;
+        final TripleBuffer<Sample> inputs;
+        final TripleBuffer<double[]> outputs;
+        final double[] pendingPowers;//filled by the op mode thread, copied into outputs by send()
+        Thread thread;
+        volatile boolean running;
+        volatile long cycles;
+
+        Worker(HubIo hub){
+            this.hub=hub;
+            int motors=hub.motorCount();
+            inputs=new TripleBuffer<>(new Sample(motors),new Sample(motors),new Sample(motors));
+            outputs=new TripleBuffer<>(new double[motors],new double[motors],new double[motors]);
+            pendingPowers=new double[motors];
+        }
+
+        @Override
+        public void run(){
+            long sequence=0;
+            while(running&&!Thread.currentThread().isInterrupted()){
+                if(outputs.refresh())
+                    hub.write(outputs.front());
+                Sample sample=inputs.back();
+                hub.read(sample.positions,sample.velocities);
+                sample.timeNanos=System.nanoTime();
+                sample.sequence=++sequence;
+                inputs.publish();
+                cycles++;
+            }
+        }
+    }
+
+    public HubIoExecutor(HubIo... hubs){
+        workers=new Worker[hubs.length];
+        for(int i=0;i<hubs.length;i++){
+            workers[i]=new Worker(hubs[i]);
+        }
+    }
+
+    public void start(){
+        for(Worker worker:workers){
+            worker.running=true;
+            worker.thread=new Thread(worker,"hub io "+worker.hub.getName());
+            worker.thread.setDaemon(true);
+            worker.thread.start();
+        }
+    }
+
+    public void stop(){//stop the workers and wait for them to finish their current read or write
+        for(Worker worker:workers){
+            worker.running=false;
+        }
+        for(Worker worker:workers){
+            if(worker.thread==null)
+                continue;
+            try{
+                worker.thread.join();
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+            worker.thread=null;
+        }
+    }
+
+    public void refresh(){//op mode thread: take the latest read from every hub
+        for(Worker worker:workers){
+            worker.inputs.refresh();
+        }
+    }
+
+    public int getPosition(int hub,int motor){
+        return workers[hub].inputs.front().positions[motor];
+    }
+
+    public double getVelocity(int hub,int motor){
+        return workers[hub].inputs.front().velocities[motor];
+    }
+
+    public long getSampleTime(int hub){//System.nanoTime() when the hub's current values were read, 0 if none yet
+        return workers[hub].inputs.front().timeNanos;
+    }
+
+    public long getSampleSequence(int hub){//counts up by one for every read the worker has published
+        return workers[hub].inputs.front().sequence;
+    }
+
+    public void setPower(int hub,int motor,double power){//op mode thread: takes effect at the next send()
+        workers[hub].pendingPowers[motor]=power;
+    }
+
+    public void send(){//op mode thread: hand every hub's powers to its worker
+        for(Worker worker:workers){
+            double[] back=worker.outputs.back();
+            System.arraycopy(worker.pendingPowers,0,back,0,back.length);
+            worker.outputs.publish();
+        }
+    }
+
+    public long getCycles(int hub){//reads the worker has done since start()
+        return workers[hub].cycles;
+    }
+
+    public int hubCount(){
+        return workers.length;
+    }
+}
@@ -0,0 +1,13 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+the reads ImuSampler needs from an IMU, so it can work the same with a real BNO055 (BNO055ImuIo) and
+without any hardware (SimulatedImuIo). angles are in degrees, counterclockwise is positive
+ */
+public interface ImuIo {
+    double readHeading();//-180 to 180
+
+    double readHeadingRate();//degrees per second
+
+    String getName();
+}
@@ -0,0 +1,157 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+reads the IMU on its own thread, so the control loop never waits on I2C
+
+imu.getAngularOrientation() is an I2C transaction that blocks for a few milliseconds, and reading the
+angular velocity is another one. the sampler's thread does both at a fixed rate and publishes each
+result through a TripleBuffer with the time it was read. the op mode thread takes the latest one with
+refresh(), which never waits:
+
+    ImuSampler sampler=new ImuSampler(new BNO055ImuIo(imu),100);//100 reads a second
+    sampler.start();
+    while(opModeIsActive()){
+        sampler.refresh();
+        double heading=sampler.getHeadingNow();
+        ...
+    }
+    sampler.stop();
+
+a sample is always a little old by the time it is used, so getHeadingNow() moves it forward to the
+current time using the angular velocity that was read with it. it never extrapolates more than
+MAX_EXTRAPOLATION_SECONDS, so if the IMU stops answering the heading stops moving instead of running off
+ */
+public class ImuSampler {
+    public static final double MAX_EXTRAPOLATION_SECONDS=0.1;
+
+    private final ImuIo imu;
+    private final long period;
+    private final TripleBuffer<Sample> samples=new TripleBuffer<>(new Sample(),new Sample(),new Sample());
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long reads,missed;
+
+    private static class Sample {
+        double heading;//degrees, -180 to 180
+        double rate;//degrees per second
+        long timeNanos;//System.nanoTime() halfway through reading the heading
+        long readNanos;//how long both reads took
+        long sequence;
+    }
+
+    public ImuSampler(ImuIo imu,double hz){
+        if(hz<=0)
+            throw new IllegalArgumentException("the IMU has to be read more than 0 times a second");
+        this.imu=imu;
+        period=(long)(1e9/hz);
+    }
+
+    public void start(){
+        if(thread!=null)
+            throw new IllegalStateException("the sampler is already running");
+        running=true;
+        thread=new Thread(this::sample,"imu "+imu.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop(){//stop the thread and wait for it to finish its current read, at most one period
+        running=false;
+        if(thread==null)
+            return;
+        try{
+            thread.join();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }
+        thread=null;
+    }
+
+    private void sample(){//runs on the sampler's thread
+        long sequence=0;
+        long deadline=System.nanoTime();
+        while(running&&!Thread.currentThread().isInterrupted()){
+            Sample sample=samples.back();
+            long start=System.nanoTime();
+            sample.heading=imu.readHeading();
+            long middle=System.nanoTime();
+            sample.rate=imu.readHeadingRate();
+            long end=System.nanoTime();
+            sample.timeNanos=start+(middle-start)/2;
+            sample.readNanos=end-start;
+            sample.sequence=++sequence;
+            samples.publish();
+            reads++;
+
+            deadline+=period;
+            long remaining=deadline-System.nanoTime();
+            if(remaining<=-period){//the reads took longer than a whole period, start again from now
+                missed+=-remaining/period;
+                deadline=System.nanoTime();
+                continue;
+            }
+            if(remaining>0){
+                try{
+                    Thread.sleep(remaining/1_000_000,(int)(remaining%1_000_000));
+                }catch(InterruptedException e){
+                    return;
+                }
+            }
+        }
+    }
+
+    public boolean refresh(){//op mode thread: take the latest sample; returns false if there isn't a new one
+        return samples.refresh();
+    }
+
+    public double getHeading(){//degrees, as it was read at getSampleTime()
+        return samples.front().heading;
+    }
+
+    public double getHeadingRate(){//degrees per second
+        return samples.front().rate;
+    }
+
+    public double getHeadingNow(){
+        return getHeadingAt(System.nanoTime());
+    }
+
+    public double getHeadingAt(long timeNanos){//the heading moved forward from the sample to timeNanos at the sampled rate
+        Sample sample=samples.front();
+        if(sample.sequence==0)
+            return 0;
+        double seconds=(timeNanos-sample.timeNanos)/1e9;
+        seconds=Math.max(0,Math.min(MAX_EXTRAPOLATION_SECONDS,seconds));
+        return wrap(sample.heading+sample.rate*seconds);
+    }
+
+    static double wrap(double degrees){//-180 to 180
+        degrees%=360;
+        if(degrees>180)
+            degrees-=360;
+        else if(degrees<-180)
+            degrees+=360;
+        return degrees;
+    }
+
+    public long getSampleTime(){//System.nanoTime() when the current sample was read, 0 if none yet
+        return samples.front().timeNanos;
+    }
+
+    public long getSampleSequence(){//counts up by one for every sample the thread has published
+        return samples.front().sequence;
+    }
+
+    public long getReadNanos(){//how long the I2C reads for the current sample took
+        return samples.front().readNanos;
+    }
+
+    public long getReads(){//samples read since start()
+        return reads;
+    }
+
+    public long getMissed(){//periods skipped because the reads took too long
+        return missed;
+    }
+}
@@ -0,0 +1,12 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+how FrameWriter turns pixels into a JPEG, so it works the same on the robot (BitmapJpegEncoder) and on
+a computer (javax.imageio in FrameWriterBenchmark)
+ */
+public interface JpegEncoder {
+    void encode(int[] argb,int width,int height,int quality,OutputStream out) throws IOException;//quality 0 to 100
+}
@@ -0,0 +1,93 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+counts how long something took, in nanoseconds, using a fixed set of buckets so recording a time is
+a few array operations and never allocates
+
+buckets are split by powers of two, and each power of two is split into 8 more buckets, so any
+percentile is accurate to within about 12%. times from 1 microsecond to 2^(MIN_SHIFT+OCTAVES)
+nanoseconds, about 34 seconds, fit; longer times go in the last bucket (the max is always exact)
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS=3;//8 buckets per power of two
+    private static final int SUB_BUCKETS=1<<SUB_BITS;
+    private static final int MIN_SHIFT=10;//times under 1024 ns all go in the first buckets
+    private static final int OCTAVES=25;
+    private static final int BUCKETS=(OCTAVES+1)*SUB_BUCKETS;
+
+    private final long[] counts=new long[BUCKETS];
+    private final long overrunNanos;
+    private long count,overruns,max,total;
+
+    public LatencyHistogram(long overrunNanos){//times longer than overrunNanos are counted as overruns; 0 turns that off
+        this.overrunNanos=overrunNanos;
+    }
+
+    public void record(long nanos){
+        if(nanos<0)
+            nanos=0;
+        counts[bucketOf(nanos)]++;
+        count++;
+        total+=nanos;
+        if(nanos>max)
+            max=nanos;
+        if(overrunNanos>0&&nanos>overrunNanos)
+            overruns++;
+    }
+
+    private static int bucketOf(long nanos){
+        long v=nanos>>(MIN_SHIFT-SUB_BITS);//v<8 is the first octave
+        if(v<SUB_BUCKETS)
+            return (int)v;
+        int octave=63-Long.numberOfLeadingZeros(v)-SUB_BITS+1;//which power of two, counting the first octave as 0
+        if(octave>OCTAVES)
+            return BUCKETS-1;
+        int sub=(int)(v>>(octave-1))&(SUB_BUCKETS-1);//the 3 bits under the top bit
+        return octave*SUB_BUCKETS+sub;
+    }
+
+    private static long upperBound(int bucket){//the largest time that would go in a bucket
+        int octave=bucket/SUB_BUCKETS,sub=bucket%SUB_BUCKETS;
+        long v=octave==0?sub+1:((long)(SUB_BUCKETS+sub+1))<<(octave-1);
+        return (v<<(MIN_SHIFT-SUB_BITS))-1;
+    }
+
+    public long percentile(double fraction){//for example percentile(0.99) for p99; returns the top of the bucket it falls in
+        if(count==0)
+            return 0;
+        long target=(long)Math.ceil(fraction*count);
+        long seen=0;
+        for(int i=0;i<BUCKETS;i++){
+            seen+=counts[i];
+            if(seen>=target&&counts[i]>0)
+                return Math.min(upperBound(i),max);
+        }
+        return max;
+    }
+
+    public long getCount(){
+        return count;
+    }
+
+    public long getOverruns(){
+        return overruns;
+    }
+
+    public long getMax(){
+        return max;
+    }
+
+    public double getMean(){
+        return count==0?0:(double)total/count;
+    }
+
+    public void reset(){
+        for(int i=0;i<BUCKETS;i++){
+            counts[i]=0;
+        }
+        count=0;
+        overruns=0;
+        max=0;
+        total=0;
+    }
+}
@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/*
+telemetry that is set up once and only formatted when it is actually sent
+
+the driver station only shows a few updates a second, but calling telemetry.addData with a built
+string every loop does all the string work every loop anyway. instead, add every item once before
+the loop with a Func, the way ConceptTelemetry shows for the battery voltage. the Func is only called
+when telemetry is sent, and update() only calls telemetry.update() when the next send is due, so a
+loop that isn't sending does no string work at all:
+
+    LazyTelemetry display=new LazyTelemetry(telemetry,4);//4 updates a second
+    display.addData("heading","%.1f degrees",()->heading);//heading has to be a field, not a local
+    while(opModeIsActive()){
+        heading=...;
+        display.update();
+    }
+
+the Funcs run on the op mode thread inside update(), so they can read the op mode's fields safely
+ */
+public class LazyTelemetry {
+    private final Telemetry telemetry;
+    private final long intervalNanos;
+    private long nextSend;
+    private long sent,skipped;
+
+    public LazyTelemetry(Telemetry telemetry,double updatesPerSecond){//removes anything already added to telemetry
+        this.telemetry=telemetry;
+        intervalNanos=(long)(1e9/updatesPerSecond);
+        telemetry.setAutoClear(false);//items stay until removed, so they only have to be added once
+        telemetry.clearAll();
+        telemetry.setMsTransmissionInterval(0);//this class does the throttling; the SDK's own, at the same period, would drop sends that are right on time
+        nextSend=System.nanoTime();
+    }
+
+    public <T> Telemetry.Item addData(String caption,Func<T> value){
+        return telemetry.addData(caption,value);
+    }
+
+    public <T> Telemetry.Item addData(String caption,String format,Func<T> value){
+        return telemetry.addData(caption,format,value);
+    }
+
+    public boolean update(){//send telemetry if it is due; returns true if it was sent
+        long now=System.nanoTime();
+        if(now-nextSend<0){
+            skipped++;
+            return false;
+        }
+        nextSend=now+intervalNanos;
+        sent++;
+        return telemetry.update();
+    }
+
+    public void forceUpdate(){//send right now, for example just before the op mode ends
+        nextSend=System.nanoTime()+intervalNanos;
+        sent++;
+        telemetry.update();
+    }
+
+    public long getSentCount(){
+        return sent;
+    }
+
+    public long getSkippedCount(){
+        return skipped;
+    }
+
+    public Telemetry getTelemetry(){
+        return telemetry;
+    }
+}
@@ -0,0 +1,161 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+runs tasks at fixed rates instead of as fast as the loop happens to go, so things like controller
+gains behave the same no matter how busy the robot is
+
+each task has a deadline. when it runs, its next deadline is one period after the old deadline (not
+after when it actually ran), so a task doesn't slowly drift. if a task falls more than a whole period
+behind, the periods it missed are counted and it starts again from now instead of running several
+times in a row to catch up
+
+in a LinearOpMode, call run(this) after waitForStart(); it runs tasks until the op mode stops and
+sleeps until the next deadline in between. in an iterative OpMode, call runDue() from loop(); the
+SDK decides how often loop() is called, so runDue() never sleeps
+
+    LoopScheduler scheduler=new LoopScheduler();
+    scheduler.addTask("drive",200,this::drive);
+    scheduler.addTask("telemetry",10,display::forceUpdate);
+    waitForStart();
+    scheduler.run(this);
+
+for every task it records how late it started (jitter), how long it took and how many periods it
+missed, and it records how much of the time no task was running (headroom)
+ */
+public class LoopScheduler {
+    private static final long SPIN_NANOS=500_000;//sleeping is only accurate to about a millisecond, so spin for the last bit
+
+    private final List<Task> taskList=new ArrayList<>();
+    private Task[] tasks=new Task[0];
+    private long startTime,busyNanos;
+    private boolean started;
+
+    private static class Task {
+        final String name;
+        final double hz;
+        final long period;
+        final Runnable action;
+        final LatencyHistogram lateness;//how long after its deadline the task started
+        final LatencyHistogram runTime;
+        long deadline;
+        long missed;
+
+        Task(String name,double hz,Runnable action){
+            this.name=name;
+            this.hz=hz;
+            this.period=(long)(1e9/hz);
+            this.action=action;
+            lateness=new LatencyHistogram(period/2);//starting more than half a period late counts as an overrun
+            runTime=new LatencyHistogram(period);//taking longer than the period counts as an overrun
+        }
+    }
+
+    public int addTask(String name,double hz,Runnable action){//returns the task number
+        if(started)
+            throw new IllegalStateException("tasks have to be added before the scheduler starts");
+        taskList.add(new Task(name,hz,action));
+        tasks=taskList.toArray(new Task[0]);
+        return tasks.length-1;
+    }
+
+    public void run(LinearOpMode opMode){//run tasks until the op mode stops
+        if(tasks.length==0)
+            throw new IllegalStateException("the scheduler has no tasks to run");
+        while(opMode.opModeIsActive()){
+            runDue();
+            sleepUntil(nextDeadline());
+        }
+    }
+
+    public void runDue(){//run every task whose deadline has passed, in the order they were added
+        long now=System.nanoTime();
+        if(!started){
+            started=true;
+            startTime=now;
+            for(Task task:tasks){
+                task.deadline=now;
+            }
+        }
+        for(Task task:tasks){
+            if(now-task.deadline<0)
+                continue;
+            long late=now-task.deadline;
+            task.lateness.record(late);
+            if(late>=task.period){//skip the periods that were missed instead of running back to back
+                task.missed+=late/task.period;
+                task.deadline=now;
+            }
+            task.deadline+=task.period;
+
+            task.action.run();
+            long end=System.nanoTime();
+            task.runTime.record(end-now);
+            busyNanos+=end-now;
+            now=end;
+        }
+    }
+
+    private long nextDeadline(){
+        long next=Long.MAX_VALUE;
+        boolean first=true;
+        for(Task task:tasks){
+            if(first||task.deadline-next<0){
+                next=task.deadline;
+                first=false;
+            }
+        }
+        return next;
+    }
+
+    private static void sleepUntil(long deadline){
+        long remaining=deadline-System.nanoTime();
+        if(remaining>SPIN_NANOS){
+            long sleep=remaining-SPIN_NANOS;
+            try{
+                Thread.sleep(sleep/1_000_000,(int)(sleep%1_000_000));
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();//let the op mode see that it was stopped
+                return;
+            }
+        }
+        while(deadline-System.nanoTime()>0){
+            Thread.yield();
+        }
+    }
+
+    public double getHeadroom(){//fraction of the time since starting that no task was running, 0 to 1
+        if(!started)
+            return 1;
+        long elapsed=System.nanoTime()-startTime;
+        return elapsed<=0?1:1-(double)busyNanos/elapsed;
+    }
+
+    public LatencyHistogram getJitter(int task){
+        return tasks[task].lateness;
+    }
+
+    public LatencyHistogram getRunTime(int task){
+        return tasks[task].runTime;
+    }
+
+    public long getMissed(int task){
+        return tasks[task].missed;
+    }
+
+    public String summary(){//one line per task, times in milliseconds; builds a string, so only call it for telemetry
+        StringBuilder text=new StringBuilder();
+        for(Task task:tasks){
+            text.append(String.format(Locale.US,"%s %.0f Hz: late p99 %.2f max %.2f, run p99 %.2f, missed %d%n",
+                    task.name,task.hz,task.lateness.percentile(0.99)/1e6,task.lateness.getMax()/1e6,
+                    task.runTime.percentile(0.99)/1e6,task.missed));
+        }
+        text.append(String.format(Locale.US,"headroom %.0f%%",getHeadroom()*100));
+        return text.toString();
+    }
+}
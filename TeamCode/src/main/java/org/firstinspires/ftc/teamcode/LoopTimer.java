@@ -0,0 +1,114 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+times each stage of a control loop (for example read, compute, write and telemetry) and the whole
+loop, and keeps a LatencyHistogram for each one so the slow loops show up, not just the average
+
+add the stages during init, then in the loop call startLoop() once, endStage() after each stage and
+endLoop() at the end. each endStage() records the time since the previous endStage() or startLoop(),
+so timing a stage costs one System.nanoTime() call and one histogram update, well under a
+microsecond. the loop time runs from startLoop() to endLoop(), so time spent waiting between loops
+isn't counted:
+
+    LoopTimer timer=new LoopTimer(20);//a loop over 20 ms counts as an overrun
+    int read=timer.addStage("read",5);
+    int write=timer.addStage("write",5);
+    while(opModeIsActive()){
+        timer.startLoop();
+        ...read sensors...
+        timer.endStage(read);
+        ...set motor powers...
+        timer.endStage(write);
+        timer.endLoop();
+    }
+
+a stage that runs separately from the loop, like a LoopScheduler task, calls startStage() before it
+instead, so its time isn't counted from the end of the loop
+
+summary() builds a string for telemetry, so only call it when telemetry is actually being sent
+ */
+public class LoopTimer {
+    private final List<String> names=new ArrayList<>();
+    private final List<LatencyHistogram> stageList=new ArrayList<>();
+    private LatencyHistogram[] stages=new LatencyHistogram[0];
+    private final LatencyHistogram loop;
+
+    private long loopStart,lastMark;
+    private boolean running;
+
+    public LoopTimer(double loopBudgetMs){
+        loop=new LatencyHistogram((long)(loopBudgetMs*1e6));
+    }
+
+    public int addStage(String name,double budgetMs){//returns the stage number to pass to endStage
+        names.add(name);
+        stageList.add(new LatencyHistogram((long)(budgetMs*1e6)));
+        stages=stageList.toArray(new LatencyHistogram[0]);
+        return stages.length-1;
+    }
+
+    public void startLoop(){
+        loopStart=System.nanoTime();
+        lastMark=loopStart;
+        running=true;
+    }
+
+    public void endLoop(){//records the time since startLoop(); does nothing if the loop wasn't started
+        if(!running)
+            return;
+        loop.record(System.nanoTime()-loopStart);
+        running=false;
+    }
+
+    public void startStage(){//for a stage that runs on its own, not inside startLoop(), like a telemetry task in a LoopScheduler
+        lastMark=System.nanoTime();
+    }
+
+    public void endStage(int stage){
+        long now=System.nanoTime();
+        stages[stage].record(now-lastMark);
+        lastMark=now;
+    }
+
+    public LatencyHistogram getStage(int stage){
+        return stages[stage];
+    }
+
+    public LatencyHistogram getLoop(){
+        return loop;
+    }
+
+    public String getStageName(int stage){
+        return names.get(stage);
+    }
+
+    public int stageCount(){
+        return stages.length;
+    }
+
+    public void reset(){
+        loop.reset();
+        for(LatencyHistogram stage:stages){
+            stage.reset();
+        }
+        running=false;
+    }
+
+    public String summary(){//one line per stage and one for the whole loop, all times in milliseconds
+        StringBuilder text=new StringBuilder();
+        for(int i=0;i<stages.length;i++){
+            appendLine(text,names.get(i),stages[i]);
+        }
+        appendLine(text,"loop",loop);
+        return text.toString();
+    }
+
+    private static void appendLine(StringBuilder text,String name,LatencyHistogram histogram){
+        text.append(String.format(Locale.US,"%s p50 %.2f p99 %.2f max %.2f over %d%n",name,
+                histogram.percentile(0.5)/1e6,histogram.percentile(0.99)/1e6,histogram.getMax()/1e6,histogram.getOverruns()));
+    }
+}
@@ -0,0 +1,46 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+
+/*
+HubIo for a real Control Hub or Expansion Hub. the hub is put in MANUAL bulk caching mode, so each
+read() is one bulk read no matter how many motors there are. only pass motors that are plugged into
+this hub, or their reads will go to the other hub's serial link instead
+ */
+public class LynxHubIo implements HubIo {
+    private final LynxModule hub;
+    private final DcMotorEx[] motors;
+
+    public LynxHubIo(LynxModule hub,DcMotorEx... motors){
+        this.hub=hub;
+        this.motors=motors;
+        hub.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+    }
+
+    @Override
+    public int motorCount(){
+        return motors.length;
+    }
+
+    @Override
+    public void read(int[] positions,double[] velocities){
+        hub.clearBulkCache();
+        for(int i=0;i<motors.length;i++){
+            positions[i]=motors[i].getCurrentPosition();
+            velocities[i]=motors[i].getVelocity();
+        }
+    }
+
+    @Override
+    public void write(double[] powers){
+        for(int i=0;i<motors.length;i++){
+            motors[i].setPower(powers[i]);
+        }
+    }
+
+    @Override
+    public String getName(){
+        return hub.getDeviceName();
+    }
+}
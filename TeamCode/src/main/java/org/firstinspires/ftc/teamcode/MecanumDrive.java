@@ -0,0 +1,65 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+turns a requested robot motion into powers for the 4 wheels of a mecanum drive
+
+x is strafe (right is positive), y is forward and turn is rotation (clockwise is positive), each
+from -1 to 1. every wheel gets y plus or minus x plus or minus turn; if any wheel ends up over 1,
+all 4 are scaled down by the same amount so the robot still moves in the requested direction
+
+in field centric mode x and y are relative to the field instead of the robot, so pushing the stick
+away from the driver always drives away from the driver. pass the robot's heading (radians,
+counterclockwise positive, 0 when facing the same way as at the start) to driveFieldCentric
+
+the powers are stored in this object instead of being returned in an array, so driving doesn't
+allocate. this class doesn't touch any hardware; the op mode copies the powers to the motors
+ */
+public class MecanumDrive {
+    private double frontLeft,frontRight,backLeft,backRight;
+
+    public void drive(double x,double y,double turn){//robot centric
+        double fl=y+x+turn;
+        double fr=y-x-turn;
+        double bl=y-x+turn;
+        double br=y+x-turn;
+        double max=Math.max(Math.max(Math.abs(fl),Math.abs(fr)),Math.max(Math.abs(bl),Math.abs(br)));
+        if(max>1){//scale every wheel by the same amount so the direction doesn't change
+            fl/=max;
+            fr/=max;
+            bl/=max;
+            br/=max;
+        }
+        frontLeft=fl;
+        frontRight=fr;
+        backLeft=bl;
+        backRight=br;
+    }
+
+    public void driveFieldCentric(double x,double y,double turn,double heading){//rotate the field direction into the robot's frame, then drive
+        double cos=Math.cos(heading),sin=Math.sin(heading);
+        drive(x*cos+y*sin,-x*sin+y*cos,turn);
+    }
+
+    public void stop(){
+        frontLeft=0;
+        frontRight=0;
+        backLeft=0;
+        backRight=0;
+    }
+
+    public double getFrontLeft(){
+        return frontLeft;
+    }
+
+    public double getFrontRight(){
+        return frontRight;
+    }
+
+    public double getBackLeft(){
+        return backLeft;
+    }
+
+    public double getBackRight(){
+        return backRight;
+    }
+}
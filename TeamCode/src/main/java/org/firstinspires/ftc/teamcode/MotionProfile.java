@@ -0,0 +1,164 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+plans a move from one position to another that starts and ends stopped and never goes over a top
+velocity, acceleration or jerk (how fast the acceleration changes), then says where the mechanism
+should be at any time during the move
+
+with a jerk limit the velocity is an S curve: the acceleration ramps up instead of jumping, which is
+gentler on the robot and keeps wheels from slipping. pass Double.POSITIVE_INFINITY as the jerk to get
+a plain trapezoid (the acceleration jumps straight to the limit). moves too short to reach the top
+velocity or acceleration are planned with lower peaks, so the limits still hold
+
+the move is split into up to 7 phases, each with a constant jerk: speeding up (jerk up, hold, jerk
+down), cruising, and slowing down (the same in reverse). plan() works out the phases once;
+sample() only has to find the phase the time is in and evaluate one polynomial, so it takes the
+same time however long the move is. the results are stored in the profile instead of returned in an
+object, so neither one allocates and a profile can be planned again for the next move:
+
+    MotionProfile profile=new MotionProfile(30,60,240);//inches/s, inches/s^2, inches/s^3
+    profile.plan(0,24);
+    ...
+    profile.sample(timer.seconds());
+    double target=profile.getPosition(),velocity=profile.getVelocity();
+
+units are whatever the caller uses, as long as time is in seconds
+ */
+public class MotionProfile {
+    private static final int PHASES=7;
+    private static final double[] JERKS={1,0,-1,0,-1,0,1};//the jerk in each phase, times maxJerk
+    private static final double[] TRAPEZOID_ACCELERATIONS={0,1,0,0,0,-1,0};//without a jerk limit, times maxAcceleration
+
+    private final double maxVelocity,maxAcceleration,maxJerk;
+
+    //the start of each phase
+    private final double[] startTimes=new double[PHASES+1];//startTimes[PHASES] is the end of the move
+    private final double[] positions=new double[PHASES],velocities=new double[PHASES],accelerations=new double[PHASES];
+    private final double[] jerks=new double[PHASES];
+    private final double[] durations=new double[PHASES];
+    private double start,end;
+
+    private double position,velocity,acceleration;//from the last sample()
+
+    public MotionProfile(double maxVelocity,double maxAcceleration,double maxJerk){
+        if(maxVelocity<=0||maxAcceleration<=0||maxJerk<=0)
+            throw new IllegalArgumentException("the limits have to be more than 0");
+        this.maxVelocity=maxVelocity;
+        this.maxAcceleration=maxAcceleration;
+        this.maxJerk=maxJerk;
+    }
+
+    public void plan(double start,double end){
+        this.start=start;
+        this.end=end;
+        double distance=Math.abs(end-start);
+        double direction=end>=start?1:-1;
+
+        //the fastest the move can get, and how long it takes to speed up to that
+        double peakVelocity=maxVelocity;
+        if(accelerationDistance(peakVelocity)*2>distance)
+            peakVelocity=reachableVelocity(distance);
+        double rampTime;//time spent jerking up or down
+        double holdTime;//time at the top acceleration
+        if(peakVelocity*maxJerk<maxAcceleration*maxAcceleration){//the top acceleration is never reached
+            rampTime=Math.sqrt(peakVelocity/maxJerk);
+            holdTime=0;
+        }else{
+            rampTime=maxAcceleration/maxJerk;
+            holdTime=Math.max(0,peakVelocity/maxAcceleration-rampTime);
+        }
+        double cruiseTime=peakVelocity>0?(distance-accelerationDistance(peakVelocity)*2)/peakVelocity:0;
+
+        durations[0]=rampTime;
+        durations[1]=holdTime;
+        durations[2]=rampTime;
+        durations[3]=Math.max(0,cruiseTime);
+        durations[4]=rampTime;
+        durations[5]=holdTime;
+        durations[6]=rampTime;
+
+        boolean trapezoid=Double.isInfinite(maxJerk);
+        double p=start,v=0,a=0,t=0;
+        for(int i=0;i<PHASES;i++){
+            if(trapezoid)//no jerk phases, the acceleration jumps between 0 and the limit
+                a=TRAPEZOID_ACCELERATIONS[i]*maxAcceleration*direction;
+            startTimes[i]=t;
+            positions[i]=p;
+            velocities[i]=v;
+            accelerations[i]=a;
+            jerks[i]=trapezoid?0:JERKS[i]*maxJerk*direction;
+            double dt=durations[i];
+            p+=v*dt+a*dt*dt/2+jerks[i]*dt*dt*dt/6;
+            v+=a*dt+jerks[i]*dt*dt/2;
+            a+=jerks[i]*dt;
+            t+=dt;
+        }
+        startTimes[PHASES]=t;
+    }
+
+    private double accelerationDistance(double velocity){//distance to speed up from stopped to velocity
+        double time;
+        if(velocity*maxJerk<maxAcceleration*maxAcceleration)
+            time=2*Math.sqrt(velocity/maxJerk);
+        else
+            time=velocity/maxAcceleration+maxAcceleration/maxJerk;
+        return velocity*time/2;//the S curve is symmetric, so the average velocity is half the peak
+    }
+
+    private double reachableVelocity(double distance){//the peak velocity of a move with no cruise phase
+        double velocity=Math.pow(distance*Math.sqrt(maxJerk)/2,2.0/3);//if the top acceleration isn't reached
+        if(velocity*maxJerk<maxAcceleration*maxAcceleration)
+            return velocity;
+        //otherwise distance=v*(v/maxAcceleration+maxAcceleration/maxJerk), solved for v
+        double rampTime=maxAcceleration/maxJerk;
+        return (-rampTime+Math.sqrt(rampTime*rampTime+4*distance/maxAcceleration))*maxAcceleration/2;
+    }
+
+    public void sample(double time){//seconds since the move started; before 0 it is at the start, after getDuration() at the end
+        if(time<=0){
+            position=start;
+            velocity=0;
+            acceleration=0;
+            return;
+        }
+        if(time>=startTimes[PHASES]){
+            position=end;
+            velocity=0;
+            acceleration=0;
+            return;
+        }
+        int phase=PHASES-1;
+        while(time<startTimes[phase]){
+            phase--;
+        }
+        double dt=time-startTimes[phase];
+        double jerk=jerks[phase];
+        position=positions[phase]+velocities[phase]*dt+accelerations[phase]*dt*dt/2+jerk*dt*dt*dt/6;
+        velocity=velocities[phase]+accelerations[phase]*dt+jerk*dt*dt/2;
+        acceleration=accelerations[phase]+jerk*dt;
+    }
+
+    public double getDuration(){//seconds
+        return startTimes[PHASES];
+    }
+
+    public boolean isFinished(double time){
+        return time>=startTimes[PHASES];
+    }
+
+    public double getPosition(){
+        return position;
+    }
+
+    public double getVelocity(){
+        return velocity;
+    }
+
+    public double getAcceleration(){
+        return acceleration;
+    }
+
+    public double getEnd(){
+        return end;
+    }
+}
@@ -0,0 +1,183 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+keeps track of where the robot is on the field from its encoders and the IMU
+
+the pose is in the same frame as PointsOfInterest: x and y in inches from the corner of the field
+(0 to 144), and heading in radians, counterclockwise positive, 0 when the robot faces +x. call
+setPose() with where the robot starts, then call an update method once per loop with the latest
+encoder positions (not the change, the odometry remembers the last ones) and the IMU heading:
+
+    Odometry odometry=new Odometry(COUNTS_PER_INCH);
+    odometry.setPose(9,36,0);
+    while(opModeIsActive()){
+        odometry.updateMecanum(fl.getCurrentPosition(),fr.getCurrentPosition(),bl.getCurrentPosition(),
+                br.getCurrentPosition(),Math.toRadians(sampler.getHeadingNow()));
+        ...
+    }
+
+the IMU is much better at heading than the wheels are, since wheels slip when the robot turns. if
+there is no IMU, pass Double.NaN as the heading and set the wheel base with setWheelBase(); the turn
+is then worked out from the wheels
+
+each update treats the motion since the last one as an arc (constant speed and turn rate), which is
+exact for a robot that moved smoothly and much better than a straight line when it turned. updates
+take the same time no matter how far the robot went and don't allocate
+ */
+public class Odometry {
+    private final double ticksPerInch;
+    private double lateralMultiplier=1;//mecanum wheels slip when strafing, so they strafe less than the ticks say
+    private double turnRadius=Double.NaN;//(track width+wheel base)/2, only used without an IMU
+    private double centerWheelOffset;//inches the center dead wheel is in front of the turning center
+
+    private double x,y,heading;
+    private boolean first=true;
+    private int last0,last1,last2,last3;
+    private double lastImuHeading;
+    private long updates;
+
+    public Odometry(double ticksPerInch){
+        this.ticksPerInch=ticksPerInch;
+    }
+
+    public void setLateralMultiplier(double multiplier){//measure by strafing a known distance: real inches/odometry inches
+        lateralMultiplier=multiplier;
+    }
+
+    public void setWheelBase(double trackWidth,double wheelBase){//inches between the left and right wheels, and front and back
+        turnRadius=(trackWidth+wheelBase)/2;
+    }
+
+    public void setCenterWheelOffset(double inches){
+        centerWheelOffset=inches;
+    }
+
+    public void setPose(double x,double y,double heading){//the next update only records the encoders and IMU, it doesn't move the pose
+        this.x=x;
+        this.y=y;
+        this.heading=wrap(heading);
+        first=true;
+    }
+
+    public void setPose(Point point,double heading){
+        setPose(point.x,point.y,heading);
+    }
+
+    public void updateMecanum(int frontLeft,int frontRight,int backLeft,int backRight,double imuHeading){
+        if(first){
+            start(frontLeft,frontRight,backLeft,backRight,imuHeading);
+            return;
+        }
+        double fl=(frontLeft-last0)/ticksPerInch;
+        double fr=(frontRight-last1)/ticksPerInch;
+        double bl=(backLeft-last2)/ticksPerInch;
+        double br=(backRight-last3)/ticksPerInch;
+        last0=frontLeft;
+        last1=frontRight;
+        last2=backLeft;
+        last3=backRight;
+
+        double forward=(fl+fr+bl+br)/4;
+        double left=-(fl-fr-bl+br)/4*lateralMultiplier;//the opposite of MecanumDrive.drive()
+        double turn;
+        if(Double.isNaN(imuHeading)){
+            checkWheelBase();
+            turn=(-fl+fr-bl+br)/4/turnRadius;
+        }else{
+            turn=imuTurn(imuHeading);
+        }
+        move(forward,left,turn);
+    }
+
+    public void updateDeadWheels(int leftWheel,int rightWheel,int centerWheel,double imuHeading){//two parallel wheels and one sideways
+        if(first){
+            start(leftWheel,rightWheel,centerWheel,0,imuHeading);
+            return;
+        }
+        double l=(leftWheel-last0)/ticksPerInch;
+        double r=(rightWheel-last1)/ticksPerInch;
+        double c=(centerWheel-last2)/ticksPerInch;
+        last0=leftWheel;
+        last1=rightWheel;
+        last2=centerWheel;
+
+        double turn;
+        if(Double.isNaN(imuHeading)){
+            checkWheelBase();
+            turn=(r-l)/(2*turnRadius);//for dead wheels the "wheel base" is 0, so turnRadius is half the track width
+        }else{
+            turn=imuTurn(imuHeading);
+        }
+        double forward=(l+r)/2;
+        double left=c-centerWheelOffset*turn;//a center wheel in front of the turning center also rolls when the robot turns
+        move(forward,left,turn);
+    }
+
+    private void start(int a,int b,int c,int d,double imuHeading){
+        last0=a;
+        last1=b;
+        last2=c;
+        last3=d;
+        lastImuHeading=imuHeading;//only the change in the IMU heading is used, so the IMU and field headings can differ
+        first=false;
+    }
+
+    private double imuTurn(double imuHeading){//the change since the last update, the short way around
+        double turn=wrap(imuHeading-lastImuHeading);
+        lastImuHeading=imuHeading;
+        return turn;
+    }
+
+    private void checkWheelBase(){
+        if(Double.isNaN(turnRadius))
+            throw new IllegalStateException("without an IMU heading, setWheelBase() has to be called first");
+    }
+
+    private void move(double forward,double left,double turn){//forward and left in the robot's frame, along an arc
+        double s,c;//sin(turn)/turn and (1-cos(turn))/turn
+        if(Math.abs(turn)<1e-6){
+            s=1-turn*turn/6;
+            c=turn/2;
+        }else{
+            s=Math.sin(turn)/turn;
+            c=(1-Math.cos(turn))/turn;
+        }
+        double arcForward=s*forward-c*left;
+        double arcLeft=c*forward+s*left;
+
+        double cos=Math.cos(heading),sin=Math.sin(heading);
+        x+=arcForward*cos-arcLeft*sin;
+        y+=arcForward*sin+arcLeft*cos;
+        heading=wrap(heading+turn);
+        updates++;
+    }
+
+    static double wrap(double radians){//-pi to pi
+        radians%=2*Math.PI;
+        if(radians>Math.PI)
+            radians-=2*Math.PI;
+        else if(radians<-Math.PI)
+            radians+=2*Math.PI;
+        return radians;
+    }
+
+    public double getX(){
+        return x;
+    }
+
+    public double getY(){
+        return y;
+    }
+
+    public double getHeading(){//radians
+        return heading;
+    }
+
+    public double distanceTo(Point point){
+        return Math.hypot(point.x-x,point.y-y);
+    }
+
+    public long getUpdates(){
+        return updates;
+    }
+}
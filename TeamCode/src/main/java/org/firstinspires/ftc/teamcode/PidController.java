@@ -0,0 +1,155 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+a PID controller with feedforward, for things like holding a heading or an arm angle
+
+output = kP*error + kI*(integral of error) - kD*(rate of change of the measurement)
+       + kS*(sign of the error) + kV*(setpoint velocity)
+
+kS is the power it takes to get the mechanism moving at all, so small errors still move it instead
+of stalling. kV is for when the setpoint itself is moving, for example following a motion profile
+
+the extra pieces that a bare P controller (like getSteer in the Pushbot gyro sample) is missing:
+ - the derivative is taken from the measurement, not the error, so changing the setpoint doesn't
+   cause a spike, and it is low pass filtered so sensor noise doesn't make the output jump
+ - the integral stops growing while the output is maxed out in the same direction (anti windup),
+   and is limited to integralLimit
+ - with setContinuous, the error takes the short way around, so 179 to -179 degrees is 2 degrees
+ - isSettled() is only true after the error and rate have stayed inside the tolerances for
+   settleSeconds, so a mechanism that swings through the target doesn't count as done
+
+update() does not allocate. times are in seconds and all other units are whatever the caller uses
+ */
+public class PidController {
+    private final double kP,kI,kD;
+    private double kS,kV;
+    private double minOutput=-1,maxOutput=1;
+    private double integralLimit=Double.POSITIVE_INFINITY;
+    private double derivativeFilter;//0 is no filtering, closer to 1 is smoother but slower
+    private boolean continuous;
+    private double inputMin,inputMax;
+    private double tolerance,rateTolerance=Double.POSITIVE_INFINITY,settleSeconds;
+
+    private double integral;
+    private double lastMeasurement;
+    private double rate;//filtered rate of change of the measurement
+    private double error;
+    private boolean first=true;
+    private boolean inside;//the last update was inside the tolerances
+    private double settledFor;//seconds the controller has been inside the tolerances
+    private long lastTime;
+
+    public PidController(double kP,double kI,double kD){
+        this.kP=kP;
+        this.kI=kI;
+        this.kD=kD;
+    }
+
+    public void setFeedforward(double kS,double kV){
+        this.kS=kS;
+        this.kV=kV;
+    }
+
+    public void setOutputLimits(double min,double max){
+        minOutput=min;
+        maxOutput=max;
+    }
+
+    public void setIntegralLimit(double limit){//the most the I term alone can add to the output
+        integralLimit=limit;
+    }
+
+    public void setDerivativeFilter(double alpha){//0 to just under 1
+        derivativeFilter=alpha;
+    }
+
+    public void setContinuous(double min,double max){//for angles, for example -180 and 180
+        continuous=true;
+        inputMin=min;
+        inputMax=max;
+    }
+
+    public void setTolerance(double tolerance,double rateTolerance,double settleSeconds){
+        this.tolerance=tolerance;
+        this.rateTolerance=rateTolerance;
+        this.settleSeconds=settleSeconds;
+    }
+
+    public double update(double setpoint,double measurement){//for a setpoint that isn't moving, timed with System.nanoTime()
+        long now=System.nanoTime();
+        double dt=lastTime==0?0:(now-lastTime)/1e9;
+        lastTime=now;
+        return update(setpoint,0,measurement,dt);
+    }
+
+    public double update(double setpoint,double setpointVelocity,double measurement,double dt){
+        error=wrap(setpoint-measurement);
+        if(first||dt<=0){
+            first=false;
+            lastMeasurement=measurement;
+            rate=0;
+        }else{
+            double rawRate=wrap(measurement-lastMeasurement)/dt;
+            rate=derivativeFilter*rate+(1-derivativeFilter)*rawRate;
+            lastMeasurement=measurement;
+        }
+
+        double output=kP*error-kD*rate+kV*setpointVelocity+kI*integral;
+        if(Math.abs(error)>tolerance)
+            output+=kS*Math.signum(error);
+
+        //only let the integral grow if that wouldn't push a maxed out output further
+        boolean saturatedHigh=output>=maxOutput&&error>0;
+        boolean saturatedLow=output<=minOutput&&error<0;
+        if(kI!=0&&dt>0&&!saturatedHigh&&!saturatedLow){
+            integral+=error*dt;
+            double limit=integralLimit/kI;
+            integral=Math.max(-Math.abs(limit),Math.min(Math.abs(limit),integral));
+        }
+
+        inside=Math.abs(error)<=tolerance&&Math.abs(rate)<=rateTolerance;
+        if(inside)
+            settledFor+=dt;
+        else
+            settledFor=0;
+
+        return Math.max(minOutput,Math.min(maxOutput,output));
+    }
+
+    private double wrap(double value){//the short way around for continuous inputs
+        if(!continuous)
+            return value;
+        double range=inputMax-inputMin;
+        value=(value-inputMin)%range;
+        if(value<0)
+            value+=range;
+        value+=inputMin;
+        if(value>range/2)
+            value-=range;
+        else if(value<-range/2)
+            value+=range;
+        return value;
+    }
+
+    public boolean isSettled(){//the last update was inside the tolerances, and so were the ones for settleSeconds before it
+        return inside&&settledFor>=settleSeconds;
+    }
+
+    public double getError(){
+        return error;
+    }
+
+    public double getRate(){
+        return rate;
+    }
+
+    public void reset(){//call before starting a new move
+        integral=0;
+        rate=0;
+        error=0;
+        inside=false;
+        settledFor=0;
+        first=true;
+        lastTime=0;
+    }
+}
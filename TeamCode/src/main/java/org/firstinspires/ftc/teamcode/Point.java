@@ -6,19 +6,14 @@ do not edit
 
 
 //a simple class that stores an x and Y value
+//the values are final because the arrays in PointsOfInterest are shared by everything on the robot
 public class Point {
-    protected double x;
-    protected double y;
-    protected String name;
+    protected final double x;
+    protected final double y;
+    protected final String name;
     Point(double X,double Y,String Name){
         x=X;
         y=Y;
         name=Name;
     }
-    void setX(double X){
-        x=X;
-    }
-    void setY(double Y){
-        y=Y;
-    }
 }
@@ -1,6 +1,11 @@
 package org.firstinspires.ftc.teamcode;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /*
 class created by Stephen Duffy and Smyan Sengupta
@@ -13,7 +18,7 @@ a class that can be used to refer to various point of interest on the field
 do not edit without permission
  */
 public class PointsOfInterest {
-    static Point[] barcode = {//create an array of points for barcodes
+    private static final Point[] barcode = {//create an array of points for barcodes
             //B=blue, R=red, C=carousel side, W=warehouse side, number corresponds to level of shipping hub
             new Point(34.25,42.5,"BC1"),//barcodes on the blue carousel side
             new Point(34.25,34,"BC2"),
@@ -30,82 +35,100 @@ public class PointsOfInterest {
 
     };
 
-    static Point[] hubs = { //points for centers of shipping hubs
+    private static final Point[] hubs = { //points for centers of shipping hubs
         new Point(48,60,"BSH"), //blue shipping hub
         new Point(96,60,"RSH"), //red shipping hub
         new Point(72,120,"SSH") //shared shipping hub
     };
 
-    static Point[] warehouses = { //points for boundaries of warehouses; used in inWareHouse, inBlueWarehouse, and inRedWarehouse functions
+    private static final Point[] warehouses = { //points for boundaries of warehouses; used in inWareHouse, inBlueWarehouse, and inRedWarehouse functions
         new Point(43.5,100.5,"BWH"), //blue warehouse boundaries
         new Point(100.5,100.5,"RWH") //red warehouse boundaries
     };
 
-    public static Point[] getBarcodePosition(String name){//returns an array of 1 or mode barcodes that meet the requested criteria
-        String name2=name.toLowerCase();
-        if(name2.equals("barcode")||name2.equals("barcodes")||name2.equals("all"))//return all the barcode postiions
-            return barcode;
-        if(name2.equals("barcode blue")||name2.equals("blue barcode")||name2.equals("blue barcodes")||name2.equals("barcodes blue")){//return all the barcodes on the blue side
-            Point output[]= new Point[6];
-            output[0]=barcode[0];
-            output[1]=barcode[1];
-            output[2]=barcode[2];
-            output[3]=barcode[3];
-            output[4]=barcode[4];
-            output[5]=barcode[5];
-            return output;
+    public enum Alliance{BLUE,RED}//which side of the field a point belongs to
+    public enum Side{CAROUSEL,WAREHOUSE}//which end of the alliance wall a barcode is on
+    public enum Level{ONE,TWO,THREE}//shipping hub level a barcode corresponds to
+    public enum Hub{BLUE,RED,SHARED}//the three shipping hubs, in the same order as the hubs array
+
+    //precomputed views of the barcode array so that the typed lookups below never allocate
+    //index these with get(i) in control loops; a for-each loop creates an iterator every time
+    private static final List<Point> allBarcodes=view(0,1,2,3,4,5,6,7,8,9,10,11);
+    private static final List<Point> blueBarcodes=view(0,1,2,3,4,5);
+    private static final List<Point> redBarcodes=view(6,7,8,9,10,11);
+    private static final List<Point> warehouseBarcodes=view(3,4,5,9,10,11);
+    private static final List<Point> carouselBarcodes=view(0,1,2,6,7,8);
+
+    //lower case aliases accepted by getBarcodePosition(String) for each group of barcodes
+    private static final Map<String,List<Point>> barcodeGroups=new HashMap<>();
+    private static final Map<String,Point> barcodesByName=new HashMap<>();
+    private static final Map<String,Point> hubsByName=new HashMap<>();
+    static{
+        alias(allBarcodes,"barcode","barcodes","all");
+        alias(blueBarcodes,"barcode blue","blue barcode","blue barcodes","barcodes blue");
+        alias(redBarcodes,"barcode red","red barcode","red barcodes","barcodes red");
+        alias(warehouseBarcodes,"barcode warehouse","warehouse barcode","warehouse barcodes","barcodes warehouse");
+        alias(carouselBarcodes,"barcode carousel","carousel barcode","carousel barcodes","barcodes carousel");
+        for(Point p:barcode){
+            barcodesByName.put(p.name,p);
         }
-
-        if(name2.equals("barcode red")||name2.equals("red barcode")||name2.equals("red barcodes")||name2.equals("barcodes red")){//return all the barcodes on the red side
-            Point output[]= new Point[6];
-            output[0]=barcode[6];
-            output[1]=barcode[7];
-            output[2]=barcode[8];
-            output[3]=barcode[9];
-            output[4]=barcode[10];
-            output[5]=barcode[11];
-            return output;
+        for(Point p:hubs){
+            hubsByName.put(p.name,p);
         }
+    }
 
-        if(name2.equals("barcode warehouse")||name2.equals("warehouse barcode")||name2.equals("warehouse barcodes")||name2.equals("barcodes warehouse")){//return all the barcodes on the warehouse side
-            Point output[]= new Point[6];
-            output[0]=barcode[3];
-            output[1]=barcode[4];
-            output[2]=barcode[5];
-            output[3]=barcode[9];
-            output[4]=barcode[10];
-            output[5]=barcode[11];
-            return output;
+    private static List<Point> view(int... indices){//build an unmodifiable list of barcodes from their indices in the barcode array
+        Point[] points=new Point[indices.length];
+        for(int i=0;i<indices.length;i++){
+            points[i]=barcode[indices[i]];
         }
+        return Collections.unmodifiableList(Arrays.asList(points));
+    }
 
-        if(name2.equals("barcode carousel")||name2.equals("carousel barcode")||name2.equals("carousel barcodes")||name2.equals("barcodes carousel")){//return all the barcodes on the carousel side
-            Point output[]= new Point[6];
-            output[0]=barcode[0];
-            output[1]=barcode[1];
-            output[2]=barcode[2];
-            output[3]=barcode[6];
-            output[4]=barcode[7];
-            output[5]=barcode[8];
-            return output;
+    private static void alias(List<Point> group,String... names){
+        for(String name:names){
+            barcodeGroups.put(name,group);
         }
+    }
 
+    public static Point getBarcode(Alliance alliance,Side side,Level level){//return a single barcode without any string handling
+        return barcode[alliance.ordinal()*6+side.ordinal()*3+level.ordinal()];
+    }
 
+    public static List<Point> getBarcodes(){//return all 12 barcodes
+        return allBarcodes;
+    }
 
-        for(int i=0;i<barcode.length;i++){//return a single point if the proved name is that of a specific name
-            if(barcode[i].name.equals(name)){
-                return new Point[]{barcode[i]};
-            }
-        }
+    public static List<Point> getBarcodes(Alliance alliance){//return the 6 barcodes on one alliance's side, carousel side first
+        return alliance==Alliance.BLUE?blueBarcodes:redBarcodes;
+    }
+
+    public static List<Point> getBarcodes(Side side){//return the 6 barcodes on one end of the field, blue first
+        return side==Side.CAROUSEL?carouselBarcodes:warehouseBarcodes;
+    }
+
+    public static Point getHub(Hub hub){//return the center of the requested shipping hub
+        return hubs[hub.ordinal()];
+    }
+
+    public static Point getWarehouse(Alliance alliance){//return the corner of the warehouse boundary that faces the middle of the field
+        return warehouses[alliance.ordinal()];
+    }
+
+    public static Point[] getBarcodePosition(String name){//returns an array of 1 or mode barcodes that meet the requested criteria
+        //kept for older code; new code should use getBarcode/getBarcodes, which do not allocate
+        List<Point> group=barcodeGroups.get(name.toLowerCase(Locale.US));
+        if(group!=null)
+            return group.toArray(new Point[0]);//copy so callers can't change the shared views
+
+        Point single=barcodesByName.get(name);//return a single point if the proved name is that of a specific name
+        if(single!=null)
+            return new Point[]{single};
         return null;
     }
 
     public static Point gethub(String name){//return the hub with the provided name if one exists
-        for(int i=0;i<hubs.length;i++){
-            if(hubs[i].name.equals(name)){
-                return hubs[i];
-            }
-        }
-        return null;
+        return hubsByName.get(name);
     }
 
     public static boolean inWareHouse(double x,double y){//return true if the provided point is in a warehouse
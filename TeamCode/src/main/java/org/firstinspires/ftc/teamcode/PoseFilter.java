@@ -0,0 +1,316 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+combines odometry with field position fixes from the camera (Vuforia) into one pose, using an
+extended Kalman filter
+
+odometry is smooth and fast but slowly drifts; camera fixes don't drift but only come now and then,
+are noisy, and describe where the robot was when the picture was taken, which can be a tenth of a
+second or more before the fix arrives. the filter keeps an estimate of how uncertain the pose is
+(the covariance), grows it as the robot moves, and shrinks it when a fix comes in, weighting the fix
+by how uncertain each side is
+
+to deal with late fixes, the filter remembers the last HISTORY odometry steps. a fix goes back to the
+step that was current when its picture was taken, corrects the pose there, and then replays every
+step since, so the correction ends up in the right place instead of being applied to where the robot
+is now. fixes older than the history, or too far from the current estimate to be believable (a
+misread target), are thrown away and counted
+
+    PoseFilter filter=new PoseFilter();
+    filter.setPose(9,36,0,1,Math.toRadians(2));
+    while(opModeIsActive()){
+        odometry.updateMecanum(...);
+        filter.addOdometry(odometry,System.nanoTime());
+        if(there is a new Vuforia location)
+            filter.addFix(x,y,heading,timeThePictureWasTaken);
+        ...filter.getX(),filter.getY(),filter.getHeading()
+    }
+
+units and frame are the same as Odometry and PointsOfInterest: inches, radians counterclockwise from
++x. the matrices are 3x3 and kept in plain double arrays, so nothing is allocated after construction
+ */
+public class PoseFilter {
+    public static final int HISTORY=256;//odometry steps kept for late fixes, 2.5 seconds at 100 Hz
+    public static final double GATE=11.34;//chi squared, 3 values, 99%: fixes further out than this are rejected
+
+    //how much odometry is trusted
+    private double translationNoise=0.02;//inches of error per inch moved
+    private double headingNoise=0.05;//radians of error per radian turned
+    private double headingDriftPerInch=0.001;//radians of error per inch moved
+    //how much fixes are trusted
+    private double fixNoise=1.5;//inches
+    private double fixHeadingNoise=Math.toRadians(3);
+
+    private double x,y,heading;
+    private final double[] p=new double[9];//covariance of x, y, heading, row by row
+
+    //history ring: the motion of each step and the pose and covariance after it
+    private final long[] times=new long[HISTORY];
+    private final double[] forwards=new double[HISTORY],lefts=new double[HISTORY],turns=new double[HISTORY];
+    private final double[] xs=new double[HISTORY],ys=new double[HISTORY],headings=new double[HISTORY];
+    private final double[] ps=new double[HISTORY*9];
+    private int newest=-1;//index of the newest step
+    private int stored;
+
+    //scratch space
+    private final double[] f=new double[9],a=new double[9],b=new double[9],k=new double[9];
+    private final double[] innovation=new double[3];
+
+    //the last odometry pose, for addOdometry
+    private boolean haveOdometry;
+    private double lastOdometryX,lastOdometryY,lastOdometryHeading;
+
+    private long fixesUsed,fixesRejected,fixesTooOld,stepsReplayed;
+
+    public void setProcessNoise(double translationNoise,double headingNoise,double headingDriftPerInch){
+        this.translationNoise=translationNoise;
+        this.headingNoise=headingNoise;
+        this.headingDriftPerInch=headingDriftPerInch;
+    }
+
+    public void setFixNoise(double inches,double radians){
+        fixNoise=inches;
+        fixHeadingNoise=radians;
+    }
+
+    public void setPose(double x,double y,double heading,double sigmaInches,double sigmaRadians){//also forgets the history
+        this.x=x;
+        this.y=y;
+        this.heading=Odometry.wrap(heading);
+        for(int i=0;i<9;i++){
+            p[i]=0;
+        }
+        p[0]=sigmaInches*sigmaInches;
+        p[4]=sigmaInches*sigmaInches;
+        p[8]=sigmaRadians*sigmaRadians;
+        newest=-1;
+        stored=0;
+        haveOdometry=false;
+    }
+
+    public void addOdometry(Odometry odometry,long timeNanos){//the motion since the last call, from the odometry's pose
+        addOdometry(odometry.getX(),odometry.getY(),odometry.getHeading(),timeNanos);
+    }
+
+    public void addOdometry(double odometryX,double odometryY,double odometryHeading,long timeNanos){
+        if(!haveOdometry){
+            haveOdometry=true;
+            lastOdometryX=odometryX;
+            lastOdometryY=odometryY;
+            lastOdometryHeading=odometryHeading;
+            return;
+        }
+        double turn=Odometry.wrap(odometryHeading-lastOdometryHeading);
+        double middle=lastOdometryHeading+turn/2;//the direction it was going halfway through the step
+        double dx=odometryX-lastOdometryX,dy=odometryY-lastOdometryY;
+        double cos=Math.cos(middle),sin=Math.sin(middle);
+        lastOdometryX=odometryX;
+        lastOdometryY=odometryY;
+        lastOdometryHeading=odometryHeading;
+        addMotion(dx*cos+dy*sin,-dx*sin+dy*cos,turn,timeNanos);
+    }
+
+    public void addMotion(double forward,double left,double turn,long timeNanos){//in the robot's frame, since the last step
+        predict(forward,left,turn);
+        newest=(newest+1)%HISTORY;
+        if(stored<HISTORY)
+            stored++;
+        times[newest]=timeNanos;
+        forwards[newest]=forward;
+        lefts[newest]=left;
+        turns[newest]=turn;
+        save(newest);
+    }
+
+    public boolean addFix(double fixX,double fixY,double fixHeading,long captureNanos){//returns false if the fix was thrown away
+        //find the newest step from before the picture was taken
+        int step=-1;
+        int back=0;
+        for(;back<stored;back++){
+            int i=(newest-back+HISTORY)%HISTORY;
+            if(times[i]-captureNanos<=0){
+                step=i;
+                break;
+            }
+        }
+        if(stored>0&&step<0){
+            fixesTooOld++;
+            return false;
+        }
+        if(step>=0)
+            load(step);
+
+        if(!correct(fixX,fixY,fixHeading)){
+            fixesRejected++;
+            if(step>=0)
+                load(newest);
+            return false;
+        }
+        fixesUsed++;
+        if(step<0)
+            return true;
+
+        //redo every step since the picture with the corrected pose
+        save(step);
+        for(int i=back-1;i>=0;i--){
+            int next=(newest-i+HISTORY)%HISTORY;
+            predict(forwards[next],lefts[next],turns[next]);
+            save(next);
+            stepsReplayed++;
+        }
+        return true;
+    }
+
+    private void predict(double forward,double left,double turn){
+        double middle=heading+turn/2;
+        double cos=Math.cos(middle),sin=Math.sin(middle);
+        double dx=forward*cos-left*sin;
+        double dy=forward*sin+left*cos;
+        x+=dx;
+        y+=dy;
+        heading=Odometry.wrap(heading+turn);
+
+        //P=F*P*Ft+Q, F is how the new pose changes with the old one
+        f[0]=1;f[1]=0;f[2]=-dy;
+        f[3]=0;f[4]=1;f[5]=dx;
+        f[6]=0;f[7]=0;f[8]=1;
+        multiply(f,p,a);
+        multiplyTransposed(a,f,p);
+
+        //odometry error grows with how far the robot went and how much it turned
+        double distance=Math.hypot(forward,left);
+        double sigma=translationNoise*distance;
+        double turnSigma=headingNoise*Math.abs(turn)+headingDriftPerInch*distance;
+        p[0]+=sigma*sigma;
+        p[4]+=sigma*sigma;
+        p[8]+=turnSigma*turnSigma;
+    }
+
+    private boolean correct(double fixX,double fixY,double fixHeading){//the Kalman update, with the fix measuring the whole pose
+        innovation[0]=fixX-x;
+        innovation[1]=fixY-y;
+        innovation[2]=Odometry.wrap(fixHeading-heading);
+
+        //S=P+R
+        for(int i=0;i<9;i++){
+            a[i]=p[i];
+        }
+        a[0]+=fixNoise*fixNoise;
+        a[4]+=fixNoise*fixNoise;
+        a[8]+=fixHeadingNoise*fixHeadingNoise;
+        if(!invert(a,b))
+            return false;
+
+        //how far the fix is from the estimate, in standard deviations squared
+        double distance=0;
+        for(int r=0;r<3;r++){
+            for(int c=0;c<3;c++){
+                distance+=innovation[r]*b[r*3+c]*innovation[c];
+            }
+        }
+        if(distance>GATE)
+            return false;
+
+        //K=P*S^-1, pose+=K*innovation, P=(I-K)*P
+        multiply(p,b,k);
+        x+=k[0]*innovation[0]+k[1]*innovation[1]+k[2]*innovation[2];
+        y+=k[3]*innovation[0]+k[4]*innovation[1]+k[5]*innovation[2];
+        heading=Odometry.wrap(heading+k[6]*innovation[0]+k[7]*innovation[1]+k[8]*innovation[2]);
+        for(int i=0;i<9;i++){
+            a[i]=(i%4==0?1:0)-k[i];
+        }
+        multiply(a,p,b);
+        for(int r=0;r<3;r++){//keep it symmetric, rounding slowly pulls it apart
+            for(int c=0;c<3;c++){
+                p[r*3+c]=(b[r*3+c]+b[c*3+r])/2;
+            }
+        }
+        return true;
+    }
+
+    private void save(int step){
+        xs[step]=x;
+        ys[step]=y;
+        headings[step]=heading;
+        System.arraycopy(p,0,ps,step*9,9);
+    }
+
+    private void load(int step){
+        x=xs[step];
+        y=ys[step];
+        heading=headings[step];
+        System.arraycopy(ps,step*9,p,0,9);
+    }
+
+    private static void multiply(double[] m,double[] n,double[] out){//out=m*n
+        for(int r=0;r<3;r++){
+            for(int c=0;c<3;c++){
+                out[r*3+c]=m[r*3]*n[c]+m[r*3+1]*n[3+c]+m[r*3+2]*n[6+c];
+            }
+        }
+    }
+
+    private static void multiplyTransposed(double[] m,double[] n,double[] out){//out=m*(n transposed)
+        for(int r=0;r<3;r++){
+            for(int c=0;c<3;c++){
+                out[r*3+c]=m[r*3]*n[c*3]+m[r*3+1]*n[c*3+1]+m[r*3+2]*n[c*3+2];
+            }
+        }
+    }
+
+    private static boolean invert(double[] m,double[] out){//returns false if m can't be inverted
+        double c0=m[4]*m[8]-m[5]*m[7];
+        double c1=m[5]*m[6]-m[3]*m[8];
+        double c2=m[3]*m[7]-m[4]*m[6];
+        double determinant=m[0]*c0+m[1]*c1+m[2]*c2;
+        if(Math.abs(determinant)<1e-18)
+            return false;
+        double inverse=1/determinant;
+        out[0]=c0*inverse;
+        out[1]=(m[2]*m[7]-m[1]*m[8])*inverse;
+        out[2]=(m[1]*m[5]-m[2]*m[4])*inverse;
+        out[3]=c1*inverse;
+        out[4]=(m[0]*m[8]-m[2]*m[6])*inverse;
+        out[5]=(m[2]*m[3]-m[0]*m[5])*inverse;
+        out[6]=c2*inverse;
+        out[7]=(m[1]*m[6]-m[0]*m[7])*inverse;
+        out[8]=(m[0]*m[4]-m[1]*m[3])*inverse;
+        return true;
+    }
+
+    public double getX(){
+        return x;
+    }
+
+    public double getY(){
+        return y;
+    }
+
+    public double getHeading(){//radians
+        return heading;
+    }
+
+    public double getPositionSigma(){//about how far off the position could be, in inches (one standard deviation)
+        return Math.sqrt(Math.max(p[0],p[4]));
+    }
+
+    public double getHeadingSigma(){//radians
+        return Math.sqrt(p[8]);
+    }
+
+    public long getFixesUsed(){
+        return fixesUsed;
+    }
+
+    public long getFixesRejected(){//too far from the estimate
+        return fixesRejected;
+    }
+
+    public long getFixesTooOld(){//taken before the oldest step in the history
+        return fixesTooOld;
+    }
+
+    public long getStepsReplayed(){
+        return stepsReplayed;
+    }
+}
@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+
+/*
+moves a group of motors along a MotionProfile with DcMotorEx.setVelocity, instead of RUN_TO_POSITION
+and waiting on isBusy() the way encoderDrive in the Pushbot sample does
+
+every update() samples the profile and sends each motor the velocity it should have right now
+(feedforward), plus a bit extra for the acceleration (the hub's velocity control lags behind), plus
+a correction for how far the motor is from where it should be. update() returns right away, so the
+op mode keeps running other things during the move:
+
+    ProfileFollower follower=new ProfileFollower(new MotionProfile(30,60,240),COUNTS_PER_INCH,leftDrive,rightDrive);
+    follower.start(24,24);//inches for each motor
+    while(opModeIsActive()&&follower.update()){
+        ...anything else
+    }
+
+each motor can go a different distance (for example -12 and 12 to turn). the profile is planned for
+the longest one and the others are scaled to finish at the same time. once the profile is over,
+update() keeps correcting until every motor is within TOLERANCE of its target, then stops them
+ */
+public class ProfileFollower {
+    public static final double TOLERANCE=0.25;//same units as the profile
+    public static final double TIMEOUT_SECONDS=1;//stop correcting this long after the profile ends, even if not there yet
+
+    private final MotionProfile profile;
+    private final double ticksPerUnit;
+    private final DcMotorEx[] motors;
+    private final int[] startTicks;
+    private final double[] scales;//each motor's distance divided by the profile's
+    private double kP=2,kA=0.1;//1/seconds and seconds
+    private long startTime;
+    private boolean busy;
+
+    public ProfileFollower(MotionProfile profile,double ticksPerUnit,DcMotorEx... motors){
+        this.profile=profile;
+        this.ticksPerUnit=ticksPerUnit;
+        this.motors=motors;
+        startTicks=new int[motors.length];
+        scales=new double[motors.length];
+    }
+
+    public void setGains(double kP,double kA){//kP: units/s for each unit behind; kA: seconds of acceleration to add
+        this.kP=kP;
+        this.kA=kA;
+    }
+
+    public void start(double... distances){//one distance per motor
+        if(distances.length!=motors.length)
+            throw new IllegalArgumentException("there are "+motors.length+" motors but "+distances.length+" distances");
+        double longest=0;
+        for(double distance:distances){
+            longest=Math.max(longest,Math.abs(distance));
+        }
+        profile.plan(0,longest);
+        for(int i=0;i<motors.length;i++){
+            motors[i].setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            startTicks[i]=motors[i].getCurrentPosition();
+            scales[i]=longest==0?0:distances[i]/longest;
+        }
+        startTime=System.nanoTime();
+        busy=true;
+    }
+
+    public boolean update(){//send every motor its velocity; returns false once the move is done
+        if(!busy)
+            return false;
+        double time=(System.nanoTime()-startTime)/1e9;
+        profile.sample(time);
+        boolean finished=profile.isFinished(time);
+        boolean arrived=true;
+        for(int i=0;i<motors.length;i++){
+            double target=profile.getPosition()*scales[i];
+            double position=(motors[i].getCurrentPosition()-startTicks[i])/ticksPerUnit;
+            double error=target-position;
+            if(Math.abs(error)>TOLERANCE)
+                arrived=false;
+            double velocity=(profile.getVelocity()+kA*profile.getAcceleration())*scales[i]+kP*error;
+            motors[i].setVelocity(velocity*ticksPerUnit);
+        }
+        if(finished&&(arrived||time>profile.getDuration()+TIMEOUT_SECONDS))
+            stop();
+        return busy;
+    }
+
+    public void stop(){
+        for(DcMotorEx motor:motors){
+            motor.setVelocity(0);
+        }
+        busy=false;
+    }
+
+    public boolean isBusy(){
+        return busy;
+    }
+
+    public MotionProfile getProfile(){
+        return profile;
+    }
+}
@@ -0,0 +1,253 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Arrays;
+
+/*
+drives a mecanum robot along a path of waypoints, like "to BSH by way of BC2", using pure pursuit
+
+every update it finds the closest point on the path to the robot, then aims at the point a
+lookahead distance further along the path and drives straight at it. since a mecanum robot can
+drive in any direction it doesn't have to turn to follow the path; it turns toward the heading set
+with setHeading() instead. a longer lookahead gives a smoother path that cuts corners more, so the
+lookahead grows with speed: MIN_LOOKAHEAD when slow, plus LOOKAHEAD_TIME seconds of travel
+
+the closest point search starts from the segment it found last time and only moves forward, so
+each update checks one or two segments however long the path is. speed is limited so the robot can
+stop at the end with maxDeceleration, and changes by at most maxAcceleration per second:
+
+    PurePursuit pursuit=new PurePursuit(60,40,80,80);
+    pursuit.startPath(odometry.getX(),odometry.getY());
+    pursuit.addWaypoint("BC2");
+    pursuit.addWaypoint("BSH");
+    pursuit.setHeading(Math.PI/2);
+    while(opModeIsActive()&&pursuit.update(odometry.getX(),odometry.getY(),odometry.getHeading())){
+        pursuit.apply(drive);//MecanumDrive
+        ...set the motor powers
+    }
+
+the pose is in the PointsOfInterest frame, like Odometry and PoseFilter: inches, heading in radians
+counterclockwise from +x. waypoint names are the ones FieldMap uses
+ */
+public class PurePursuit {
+    public static final double MIN_LOOKAHEAD=6;//inches
+    public static final double MAX_LOOKAHEAD=18;
+    public static final double LOOKAHEAD_TIME=0.3;//seconds of travel added to the lookahead
+    public static final double POSITION_TOLERANCE=0.5;//inches from the last waypoint to be done
+    public static final double HEADING_TOLERANCE=Math.toRadians(2);
+    public static final double FINISH_GAIN=4;//inches/s for each inch from the end, so it doesn't overshoot at the very end
+    public static final double HEADING_GAIN=1.5;//turn power for each radian of heading error
+    public static final double MAX_TURN=0.5;//turn power
+
+    private final double topSpeed;//inches/s at full power
+    private final double maxSpeed,maxAcceleration,maxDeceleration;
+
+    //the path: waypoint i and the distance along the path to it
+    private double[] xs=new double[16],ys=new double[16],along=new double[16];
+    private int count;
+    private double targetHeading=Double.NaN;//NaN keeps the heading the robot had when the path started
+
+    private int segment;//closest segment, from waypoint segment to segment+1
+    private int lookaheadSegment;
+    private double progress;//distance along the path of the closest point
+    private double crossTrack;//distance from the robot to the path
+    private double lastVx,lastVy;//field velocity asked for last update, inches/s
+    private double forward,strafe,turn;//powers for MecanumDrive
+    private boolean finished;
+    private long lastTime;
+
+    public PurePursuit(double topSpeed,double maxSpeed,double maxAcceleration,double maxDeceleration){
+        this.topSpeed=topSpeed;
+        this.maxSpeed=maxSpeed;
+        this.maxAcceleration=maxAcceleration;
+        this.maxDeceleration=maxDeceleration;
+    }
+
+    public void startPath(double x,double y){//clears the old path; the new one starts at (x,y), usually where the robot is
+        count=0;
+        segment=0;
+        lookaheadSegment=0;
+        progress=0;
+        finished=false;
+        lastTime=0;
+        targetHeading=Double.NaN;
+        add(x,y);
+    }
+
+    public void addWaypoint(double x,double y){
+        if(count==0)
+            throw new IllegalStateException("call startPath() before adding waypoints");
+        add(x,y);
+    }
+
+    public void addWaypoint(String name){//a FieldMap name like "BC2"
+        int id=FieldMap.id(name);
+        if(id<0)
+            throw new IllegalArgumentException("there is no point called "+name);
+        addWaypoint(FieldMap.x(id),FieldMap.y(id));
+    }
+
+    public void addWaypoint(int fieldMapId){
+        addWaypoint(FieldMap.x(fieldMapId),FieldMap.y(fieldMapId));
+    }
+
+    private void add(double x,double y){
+        if(count==xs.length){
+            xs=Arrays.copyOf(xs,count*2);
+            ys=Arrays.copyOf(ys,count*2);
+            along=Arrays.copyOf(along,count*2);
+        }
+        xs[count]=x;
+        ys[count]=y;
+        along[count]=count==0?0:along[count-1]+Math.hypot(x-xs[count-1],y-ys[count-1]);
+        count++;
+    }
+
+    public void setHeading(double heading){//radians, the heading to turn to and hold while driving
+        targetHeading=heading;
+    }
+
+    public boolean update(double x,double y,double heading){//timed with System.nanoTime(); returns false once at the end
+        long now=System.nanoTime();
+        double dt=lastTime==0?0:(now-lastTime)/1e9;
+        lastTime=now;
+        return update(x,y,heading,dt);
+    }
+
+    public boolean update(double x,double y,double heading,double dt){
+        if(count<2){//nothing to follow
+            stopOutputs();
+            finished=true;
+            return false;
+        }
+        if(Double.isNaN(targetHeading))
+            targetHeading=heading;
+
+        findClosest(x,y);
+        double endX=xs[count-1],endY=ys[count-1];
+        double toEnd=Math.hypot(endX-x,endY-y);
+        double headingError=Odometry.wrap(targetHeading-heading);
+        if(toEnd<=POSITION_TOLERANCE&&Math.abs(headingError)<=HEADING_TOLERANCE){
+            stopOutputs();
+            finished=true;
+            return false;
+        }
+
+        //aim at the point one lookahead further along the path
+        double speed=Math.hypot(lastVx,lastVy);
+        double lookahead=Math.min(MAX_LOOKAHEAD,MIN_LOOKAHEAD+LOOKAHEAD_TIME*speed);
+        double targetAlong=progress+lookahead;
+        double targetX,targetY;
+        if(targetAlong>=along[count-1]){
+            targetX=endX;
+            targetY=endY;
+        }else{
+            if(lookaheadSegment<segment)
+                lookaheadSegment=segment;
+            while(along[lookaheadSegment+1]<targetAlong){
+                lookaheadSegment++;
+            }
+            double length=along[lookaheadSegment+1]-along[lookaheadSegment];
+            double t=length==0?0:(targetAlong-along[lookaheadSegment])/length;
+            targetX=xs[lookaheadSegment]+(xs[lookaheadSegment+1]-xs[lookaheadSegment])*t;
+            targetY=ys[lookaheadSegment]+(ys[lookaheadSegment+1]-ys[lookaheadSegment])*t;
+        }
+
+        //as fast as allowed while still being able to stop at the end
+        double remaining=Math.max(along[count-1]-progress,toEnd);
+        double wanted=Math.min(maxSpeed,Math.min(Math.sqrt(2*maxDeceleration*remaining),FINISH_GAIN*toEnd));
+        double dx=targetX-x,dy=targetY-y;
+        double distance=Math.hypot(dx,dy);
+        double vx=distance==0?0:dx/distance*wanted;
+        double vy=distance==0?0:dy/distance*wanted;
+
+        //limit how quickly the velocity changes
+        double change=Math.hypot(vx-lastVx,vy-lastVy);
+        double limit=maxAcceleration*dt;
+        if(change>limit){//the first update, with no dt yet, asks for no change at all
+            vx=lastVx+(vx-lastVx)*limit/change;
+            vy=lastVy+(vy-lastVy)*limit/change;
+        }
+        lastVx=vx;
+        lastVy=vy;
+
+        //field velocity into the robot's frame, as MecanumDrive powers
+        double cos=Math.cos(heading),sin=Math.sin(heading);
+        forward=(vx*cos+vy*sin)/topSpeed;
+        strafe=-(-vx*sin+vy*cos)/topSpeed;//MecanumDrive's x is to the right
+        turn=-Math.max(-MAX_TURN,Math.min(MAX_TURN,HEADING_GAIN*headingError));//MecanumDrive turns clockwise for positive
+        return true;
+    }
+
+    private void findClosest(double x,double y){//only moves forward from the last closest segment
+        double t=project(segment,x,y);
+        double best=distanceTo(segment,t,x,y);
+        while(segment+1<count-1){
+            double nextT=project(segment+1,x,y);
+            double next=distanceTo(segment+1,nextT,x,y);
+            if(next>best&&t<1)
+                break;
+            segment++;
+            t=nextT;
+            best=next;
+        }
+        progress=along[segment]+t*(along[segment+1]-along[segment]);
+        crossTrack=best;
+    }
+
+    private double project(int i,double x,double y){//how far along segment i the closest point to (x,y) is, 0 to 1
+        double sx=xs[i+1]-xs[i],sy=ys[i+1]-ys[i];
+        double lengthSquared=sx*sx+sy*sy;
+        if(lengthSquared==0)
+            return 0;
+        double t=((x-xs[i])*sx+(y-ys[i])*sy)/lengthSquared;
+        return Math.max(0,Math.min(1,t));
+    }
+
+    private double distanceTo(int i,double t,double x,double y){
+        return Math.hypot(xs[i]+(xs[i+1]-xs[i])*t-x,ys[i]+(ys[i+1]-ys[i])*t-y);
+    }
+
+    private void stopOutputs(){
+        forward=0;
+        strafe=0;
+        turn=0;
+        lastVx=0;
+        lastVy=0;
+    }
+
+    public void apply(MecanumDrive drive){
+        drive.drive(strafe,forward,turn);
+    }
+
+    public double getForward(){
+        return forward;
+    }
+
+    public double getStrafe(){//right is positive
+        return strafe;
+    }
+
+    public double getTurn(){//clockwise is positive
+        return turn;
+    }
+
+    public boolean isFinished(){
+        return finished;
+    }
+
+    public double getCrossTrackError(){//inches from the robot to the path, as of the last update
+        return crossTrack;
+    }
+
+    public double getRemaining(){//inches along the path to the end
+        return count==0?0:along[count-1]-progress;
+    }
+
+    public int getSegment(){
+        return segment;
+    }
+
+    public int waypointCount(){
+        return count;
+    }
+}
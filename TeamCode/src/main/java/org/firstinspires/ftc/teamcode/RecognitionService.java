@@ -0,0 +1,196 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+gets answers from a RecognitionSource (TensorFlow or the color threshold) on its own thread and turns
+them into one steady answer the op mode can read at any time without waiting
+
+ConceptTensorFlowObjectDetection acts on whatever the last frame said, so one bad frame changes the
+answer. here the last WINDOW answers are kept, each one counting as much as its confidence. the
+answer with the most weight wins, but only once it has MIN_VOTES votes, and it only replaces the
+current answer once it has SWITCH_MARGIN times the current answer's weight, so the answer doesn't
+flicker between two barcodes. the result is published through a TripleBuffer,
+like ImuSampler's:
+
+    RecognitionService barcode=new RecognitionService(new TfodRecognitionSource(tfod,"Duck",FieldMap.RW1),10,1);
+    barcode.start();//during init
+    ...
+    barcode.refresh();
+    telemetry.addData("level",barcode.getAnswer());//-1 until there is one
+    ...
+    int level=barcode.getAnswer();//after start
+    barcode.stop();
+
+once the answer is stable (at least STABLE_SHARE of the weight from at least STABLE_VOTES votes, and
+the latest vote agrees) the service only asks for slowHz answers a second instead of fastHz, and tells
+the source it is skipping frames so it can stop working in between. any vote that disagrees makes it
+go back to fastHz until the answer is stable again
+ */
+public class RecognitionService {
+    public static final int WINDOW=15;
+    public static final int ANSWERS=8;//answers can be 0 to ANSWERS-1
+    public static final int MIN_VOTES=3;
+    public static final double SWITCH_MARGIN=1.5;
+    public static final double STABLE_SHARE=0.75;
+    public static final int STABLE_VOTES=6;
+    public static final long POLL_MS=5;//how long to wait when the source has nothing new
+
+    private final RecognitionSource source;
+    private final long fastPeriod,slowPeriod;
+    private final TripleBuffer<Result> results=new TripleBuffer<>(new Result(),new Result(),new Result());
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long updates;
+
+    //only used by the service's thread
+    private final int[] answers=new int[WINDOW];
+    private final double[] weights=new double[WINDOW];
+    private int newest=-1,count;
+    private final double[] totals=new double[ANSWERS];
+    private final int[] votes=new int[ANSWERS];
+    private int answer=-1;
+    private long answerTime;
+    private boolean skipping;
+    private long sequence;
+
+    private static class Result {
+        int answer=-1;
+        double share;//of the weight in the window
+        boolean stable;
+        long answerTime;//System.nanoTime() of the frame that made it the answer
+        long latestTime;//of the latest frame that voted
+        int votes;//in the window
+        long sequence;
+    }
+
+    public RecognitionService(RecognitionSource source,double fastHz,double slowHz){
+        if(fastHz<=0||slowHz<=0||slowHz>fastHz)
+            throw new IllegalArgumentException("the rates have to be more than 0, and slowHz can't be more than fastHz");
+        this.source=source;
+        fastPeriod=(long)(1e9/fastHz);
+        slowPeriod=(long)(1e9/slowHz);
+    }
+
+    public void start(){
+        if(thread!=null)
+            throw new IllegalStateException("the service is already running");
+        running=true;
+        thread=new Thread(this::run,"recognition "+source.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop(){//stop the thread and wait for the recognition it is doing to finish
+        running=false;
+        if(thread==null)
+            return;
+        try{
+            thread.join();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }
+        thread=null;
+    }
+
+    private void run(){//runs on the service's thread
+        while(running&&!Thread.currentThread().isInterrupted()){
+            long start=System.nanoTime();
+            long wait;
+            if(source.update()){
+                vote(source.getAnswer(),source.getConfidence(),source.getTime());
+                updates++;
+                wait=start+(skipping?slowPeriod:fastPeriod)-System.nanoTime();
+            }else{
+                wait=POLL_MS*1000000;
+            }
+            if(wait>0){
+                try{
+                    Thread.sleep(wait/1000000,(int)(wait%1000000));
+                }catch(InterruptedException e){
+                    return;
+                }
+            }
+        }
+    }
+
+    void vote(int newAnswer,double confidence,long time){
+        if(newAnswer<0||newAnswer>=ANSWERS)
+            throw new IllegalStateException(source.getName()+" answered "+newAnswer);
+        newest=(newest+1)%WINDOW;
+        answers[newest]=newAnswer;
+        weights[newest]=Math.max(0,Math.min(1,confidence));
+        count=Math.min(count+1,WINDOW);
+
+        for(int i=0;i<ANSWERS;i++){
+            totals[i]=0;
+            votes[i]=0;
+        }
+        double total=0;
+        for(int i=0;i<count;i++){
+            totals[answers[i]]+=weights[i];
+            votes[answers[i]]++;
+            total+=weights[i];
+        }
+        int leader=0;
+        for(int i=1;i<ANSWERS;i++){
+            if(totals[i]>totals[leader])
+                leader=i;
+        }
+        if(leader!=answer&&votes[leader]>=MIN_VOTES&&(answer<0||totals[leader]>=SWITCH_MARGIN*totals[answer])){
+            answer=leader;
+            answerTime=time;
+        }
+        double share=answer<0||total==0?0:totals[answer]/total;
+        boolean stable=answer>=0&&count>=STABLE_VOTES&&share>=STABLE_SHARE&&newAnswer==answer;
+        if(stable!=skipping){
+            skipping=stable;
+            source.setSkipping(stable);
+        }
+
+        Result result=results.back();
+        result.answer=answer;
+        result.share=share;
+        result.stable=stable;
+        result.answerTime=answerTime;
+        result.latestTime=time;
+        result.votes=count;
+        result.sequence=++sequence;
+        results.publish();
+    }
+
+    public boolean refresh(){//op mode thread: take the latest result; returns false if there isn't a new one
+        return results.refresh();
+    }
+
+    public int getAnswer(){//-1 until an answer has MIN_VOTES votes
+        return results.front().answer;
+    }
+
+    public double getShare(){//how much of the window's weight agrees with the answer, 0 to 1
+        return results.front().share;
+    }
+
+    public boolean isStable(){
+        return results.front().stable;
+    }
+
+    public long getAnswerTime(){//System.nanoTime() of the frame that made the answer what it is
+        return results.front().answerTime;
+    }
+
+    public long getLatestTime(){//System.nanoTime() of the latest frame that voted
+        return results.front().latestTime;
+    }
+
+    public int getVotes(){//votes in the window
+        return results.front().votes;
+    }
+
+    public long getSequence(){//counts up by one for every vote
+        return results.front().sequence;
+    }
+
+    public long getUpdates(){//answers taken from the source since start()
+        return updates;
+    }
+}
@@ -0,0 +1,21 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+where RecognitionService gets its answers from, so it works the same with TensorFlow
+(TfodRecognitionSource), the color threshold (BarcodeRecognitionSource) and without any hardware
+(SimulatedRecognitionSource). an answer is a small number, for the barcode the level: 1 to 3, or 0
+when nothing was recognized
+ */
+public interface RecognitionSource {
+    boolean update();//get a new answer, running a recognition if the source does that itself; false if there isn't a new one yet
+
+    int getAnswer();//from the last update() that returned true
+
+    double getConfidence();//0 to 1
+
+    long getTime();//System.nanoTime() of the frame the answer came from
+
+    void setSkipping(boolean skipping);//true while the service only wants an answer now and then, so the source can save work
+
+    String getName();
+}
@@ -0,0 +1,133 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.DigitalChannel;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+reads every sensor the robot uses once per loop, the way ConceptMotorBulkRead recommends
+
+creating a snapshot puts every hub in MANUAL bulk caching mode. register the motors and digital
+inputs you need during init, then call update() at the top of every loop. update() clears the bulk
+cache on every hub and reads each registered input exactly once into a State, which the rest of the
+loop (control code and telemetry) reads from instead of the hardware:
+
+    RobotStateSnapshot snapshot=new RobotStateSnapshot(hardwareMap);
+    int leftEncoder=snapshot.addMotor(hardwareMap.get(DcMotorEx.class,"left_drive"));
+    ...
+    while(opModeIsActive()){
+        RobotStateSnapshot.State state=snapshot.update();
+        double left=state.getPosition(leftEncoder);
+        ...
+    }
+
+there are two States that update() takes turns filling, so a State from the previous loop stays
+consistent while the next one is read. nothing is allocated after the first update()
+ */
+public class RobotStateSnapshot {
+    private final LynxModule[] hubs;
+    private final List<DcMotorEx> motorList=new ArrayList<>();
+    private final List<DigitalChannel> inputList=new ArrayList<>();
+    private DcMotorEx[] motors;
+    private DigitalChannel[] inputs;
+
+    private final State[] states={new State(),new State()};
+    private int current;//index of the most recently filled state
+    private long sequence;
+
+    public RobotStateSnapshot(HardwareMap hardwareMap){
+        List<LynxModule> allHubs=hardwareMap.getAll(LynxModule.class);
+        hubs=allHubs.toArray(new LynxModule[0]);
+        for(LynxModule hub:hubs){
+            hub.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    public int addMotor(DcMotorEx motor){//read this motor's encoder position and velocity every update; returns its index in State
+        checkNotStarted();
+        motorList.add(motor);
+        return motorList.size()-1;
+    }
+
+    public int addDigitalInput(DigitalChannel input){//returns its index in State
+        checkNotStarted();
+        inputList.add(input);
+        return inputList.size()-1;
+    }
+
+    private void checkNotStarted(){
+        if(motors!=null)
+            throw new IllegalStateException("inputs have to be added before the first update()");
+    }
+
+    public State update(){//clear the bulk caches and read every registered input once
+        if(motors==null){//first update: freeze the lists into arrays and size the states
+            motors=motorList.toArray(new DcMotorEx[0]);
+            inputs=inputList.toArray(new DigitalChannel[0]);
+            for(State state:states){
+                state.positions=new int[motors.length];
+                state.velocities=new double[motors.length];
+                state.digital=new boolean[inputs.length];
+            }
+        }
+        for(LynxModule hub:hubs){
+            hub.clearBulkCache();
+        }
+        State next=states[current^1];
+        for(int i=0;i<motors.length;i++){
+            next.positions[i]=motors[i].getCurrentPosition();
+            next.velocities[i]=motors[i].getVelocity();
+        }
+        for(int i=0;i<inputs.length;i++){
+            next.digital[i]=inputs[i].getState();
+        }
+        next.timeNanos=System.nanoTime();
+        next.sequence=++sequence;
+        current^=1;
+        return next;
+    }
+
+    public State get(){//the most recent state, or an empty one before the first update()
+        return states[current];
+    }
+
+    public static class State {//read only to everything outside RobotStateSnapshot
+        private int[] positions=new int[0];
+        private double[] velocities=new double[0];
+        private boolean[] digital=new boolean[0];
+        private long timeNanos;
+        private long sequence;
+
+        public int getPosition(int motor){//encoder ticks
+            return positions[motor];
+        }
+
+        public double getVelocity(int motor){//ticks per second
+            return velocities[motor];
+        }
+
+        public boolean getDigital(int input){
+            return digital[input];
+        }
+
+        public long getTimeNanos(){//System.nanoTime() when this state was read
+            return timeNanos;
+        }
+
+        public long getSequence(){//counts up by one every update(), 0 before the first
+            return sequence;
+        }
+
+        public int motorCount(){
+            return positions.length;
+        }
+
+        public int digitalCount(){
+            return digital.length;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Arrays;
+
+/*
+works out which part of the camera image can have what we are looking for in it, so detectors only
+look at that part instead of the whole frame
+
+ConceptTensorFlowObjectDetection zooms with tfod.setZoom(2.5,16.0/9.0), a crop of the middle someone
+picked by hand, and everything else still runs on a frame that is mostly floor. here every target
+(a barcode, or a warehouse where the freight is) is a box on the field from PointsOfInterest. update()
+takes the robot's pose, projects the corners of every box into the image through the camera's mount
+and field of view, and the ROI is the rectangle around all of them plus MARGIN:
+
+    RoiManager roi=new RoiManager(1280,720,Math.toRadians(70));//the camera's image and horizontal field of view
+    roi.setMount(8,0,9,Math.toRadians(20),0);//inches forward, left and up from the robot's center, tilted 20 degrees down
+    roi.addBarcode(FieldMap.RW1);
+    roi.addBarcode(FieldMap.RW2);
+    roi.addBarcode(FieldMap.RW3);
+    ...
+    roi.update(odometry.getX(),odometry.getY(),odometry.getHeading());
+    roi.crop(frame,patch);//only the ROI, made smaller until it fits in maxPatchWidth x maxPatchHeight
+    roi.setRois(barcodeDetector,0);//each level's ROI on its barcode, inside the patch
+    ...run a detector on patch, then give what it found back in image pixels:
+    roi.addDetection(roi.toImageX(left),roi.toImageY(top),roi.toImageX(right),roi.toImageY(bottom));
+
+detections make the ROI follow what was actually found: once there is one, the ROI is the (smoothed)
+box around the detections plus TRACK_MARGIN. if nothing is found for MISSES_TO_RESET updates in a row,
+it goes back to the projected boxes, so a bad pose or a lost object can't leave it stuck somewhere
+
+RoiStage puts crop() in front of any VisionStage. TFObjectDetector can only zoom into the middle of
+the frame, so getZoomMagnification() and getZoomAspectRatio() give the smallest centered crop that
+still holds the ROI, for tfod.setZoom()
+
+poses are in the PointsOfInterest frame, like Odometry: inches, heading in radians counterclockwise
+from +x. image pixels start at the top left. update() and crop() don't allocate
+ */
+public class RoiManager {
+    public static final double BARCODE_SIZE=10;//inches: the barcode tape square with room for the element on it
+    public static final double ELEMENT_HEIGHT=6;//a duck or team shipping element
+    public static final double FREIGHT_HEIGHT=5;
+    public static final double MARGIN=0.1;//extra on each side of the projected ROI, as a share of its size
+    public static final double TRACK_MARGIN=0.25;//extra around detections, as a share of their size
+    public static final double TRACK_SMOOTHING=0.5;//how far the tracked box moves toward each new detection
+    public static final int MISSES_TO_RESET=5;
+    public static final int MIN_SIZE=32;//pixels, the smallest the ROI gets
+    private static final double NEAR=1;//inches; corners closer than this to the camera are moved out to it
+
+    private final int width,height;
+    private final double focal;//pixels
+    private double mountForward,mountLeft,mountHeight,pitch,yaw;
+    private int maxPatchWidth=320,maxPatchHeight=320;
+
+    //targets: boxes on the field
+    private double[] minX=new double[4],minY=new double[4],maxX=new double[4],maxY=new double[4],tops=new double[4];
+    private int targets;
+    private final double[] targetRect=new double[4];//left, top, right, bottom of one projected target
+    private double[] targetRects=new double[16];
+
+    //the ROI from the last update(), in image pixels
+    private int left,top,right,bottom;
+    private boolean visible;
+    private int step=1;//of the last crop()
+
+    private double trackLeft,trackTop,trackRight,trackBottom;
+    private boolean tracking;
+    private int misses;//updates in a row without a detection
+    private boolean detected;//since the last update()
+
+    public RoiManager(int width,int height,double horizontalFov){//the camera's image size and field of view in radians
+        if(width<=0||height<=0||horizontalFov<=0||horizontalFov>=Math.PI)
+            throw new IllegalArgumentException("the image has to have a size and the field of view has to be between 0 and 180 degrees");
+        this.width=width;
+        this.height=height;
+        focal=width/2.0/Math.tan(horizontalFov/2);
+        right=width;
+        bottom=height;
+    }
+
+    public void setMount(double forward,double left,double height,double pitchDown,double yawLeft){//inches from the robot's center, radians
+        mountForward=forward;
+        mountLeft=left;
+        mountHeight=height;
+        pitch=pitchDown;
+        yaw=yawLeft;
+    }
+
+    public void setMaxPatchSize(int width,int height){//crop() makes the patch at most this big, like TFOD's 320 input
+        maxPatchWidth=width;
+        maxPatchHeight=height;
+    }
+
+    public int addTarget(double minX,double minY,double maxX,double maxY,double height){//a box on the field, inches; returns its number
+        if(targets==this.minX.length){
+            this.minX=Arrays.copyOf(this.minX,targets*2);
+            this.minY=Arrays.copyOf(this.minY,targets*2);
+            this.maxX=Arrays.copyOf(this.maxX,targets*2);
+            this.maxY=Arrays.copyOf(this.maxY,targets*2);
+            tops=Arrays.copyOf(tops,targets*2);
+            targetRects=Arrays.copyOf(targetRects,targets*8);
+        }
+        this.minX[targets]=minX;
+        this.minY[targets]=minY;
+        this.maxX[targets]=maxX;
+        this.maxY[targets]=maxY;
+        tops[targets]=height;
+        return targets++;
+    }
+
+    public int addBarcode(int fieldMapId){//the barcode and the element that may be on it
+        double x=FieldMap.x(fieldMapId),y=FieldMap.y(fieldMapId);
+        return addTarget(x-BARCODE_SIZE/2,y-BARCODE_SIZE/2,x+BARCODE_SIZE/2,y+BARCODE_SIZE/2,ELEMENT_HEIGHT);
+    }
+
+    public int addWarehouse(int fieldMapId){//FieldMap.BWH or RWH: the warehouse from its boundary point to the field's corner
+        double x=FieldMap.x(fieldMapId),y=FieldMap.y(fieldMapId);
+        boolean blue=x<FieldMap.FIELD_SIZE/2;
+        return addTarget(blue?0:x,y,blue?x:FieldMap.FIELD_SIZE,FieldMap.FIELD_SIZE,FREIGHT_HEIGHT);
+    }
+
+    public void clearTargets(){
+        targets=0;
+    }
+
+    public boolean update(double x,double y,double heading){//returns false if no target is in view; the ROI is then the whole image
+        misses=detected?0:misses+1;
+        detected=false;
+        if(misses>=MISSES_TO_RESET)
+            tracking=false;
+        double roiLeft=Double.POSITIVE_INFINITY,roiTop=Double.POSITIVE_INFINITY,roiRight=Double.NEGATIVE_INFINITY,roiBottom=Double.NEGATIVE_INFINITY;
+        for(int i=0;i<targets;i++){
+            boolean seen=project(i,x,y,heading);
+            targetRects[i*4]=targetRect[0];
+            targetRects[i*4+1]=targetRect[1];
+            targetRects[i*4+2]=targetRect[2];
+            targetRects[i*4+3]=targetRect[3];
+            if(!seen)
+                continue;
+            roiLeft=Math.min(roiLeft,targetRect[0]);
+            roiTop=Math.min(roiTop,targetRect[1]);
+            roiRight=Math.max(roiRight,targetRect[2]);
+            roiBottom=Math.max(roiBottom,targetRect[3]);
+        }
+        if(tracking){
+            double w=trackRight-trackLeft,h=trackBottom-trackTop;
+            setRoi(trackLeft-w*TRACK_MARGIN,trackTop-h*TRACK_MARGIN,trackRight+w*TRACK_MARGIN,trackBottom+h*TRACK_MARGIN);
+        }else if(roiLeft<=roiRight){
+            double w=roiRight-roiLeft,h=roiBottom-roiTop;
+            setRoi(roiLeft-w*MARGIN,roiTop-h*MARGIN,roiRight+w*MARGIN,roiBottom+h*MARGIN);
+        }else{
+            setRoi(0,0,width,height);
+            visible=false;
+        }
+        return visible;
+    }
+
+    private boolean project(int target,double x,double y,double heading){//fills targetRect with the box's corners in the image
+        double cos=Math.cos(heading),sin=Math.sin(heading);
+        double l=Double.POSITIVE_INFINITY,t=Double.POSITIVE_INFINITY,r=Double.NEGATIVE_INFINITY,b=Double.NEGATIVE_INFINITY;
+        boolean inFront=false;
+        for(int corner=0;corner<8;corner++){
+            double px=(corner&1)==0?minX[target]:maxX[target];
+            double py=(corner&2)==0?minY[target]:maxY[target];
+            double pz=(corner&4)==0?0:tops[target];
+            //field to robot: forward and left of the robot's center
+            double dx=px-x,dy=py-y;
+            double forward=dx*cos+dy*sin-mountForward;
+            double left=-dx*sin+dy*cos-mountLeft;
+            double up=pz-mountHeight;
+            //robot to camera: turn by the yaw, then tilt down by the pitch
+            double f=forward*Math.cos(yaw)+left*Math.sin(yaw);
+            double side=-forward*Math.sin(yaw)+left*Math.cos(yaw);
+            double depth=f*Math.cos(pitch)-up*Math.sin(pitch);
+            double rise=f*Math.sin(pitch)+up*Math.cos(pitch);
+            if(depth>NEAR)
+                inFront=true;
+            depth=Math.max(depth,NEAR);
+            double u=width/2.0-focal*side/depth;
+            double v=height/2.0-focal*rise/depth;
+            l=Math.min(l,u);
+            t=Math.min(t,v);
+            r=Math.max(r,u);
+            b=Math.max(b,v);
+        }
+        targetRect[0]=l;
+        targetRect[1]=t;
+        targetRect[2]=r;
+        targetRect[3]=b;
+        return inFront&&r>0&&l<width&&b>0&&t<height;
+    }
+
+    private void setRoi(double l,double t,double r,double b){
+        l=Math.max(0,l);
+        t=Math.max(0,t);
+        r=Math.min(width,r);
+        b=Math.min(height,b);
+        visible=l<=r&&t<=b;
+        if(!visible){
+            l=0;
+            t=0;
+            r=width;
+            b=height;
+        }
+        left=(int)Math.floor(l);
+        top=(int)Math.floor(t);
+        right=(int)Math.ceil(r);
+        bottom=(int)Math.ceil(b);
+        if(right-left<MIN_SIZE){
+            left=Math.max(0,Math.min(width-MIN_SIZE,(left+right-MIN_SIZE)/2));
+            right=Math.min(width,left+MIN_SIZE);
+        }
+        if(bottom-top<MIN_SIZE){
+            top=Math.max(0,Math.min(height-MIN_SIZE,(top+bottom-MIN_SIZE)/2));
+            bottom=Math.min(height,top+MIN_SIZE);
+        }
+    }
+
+    public void addDetection(double left,double top,double right,double bottom){//in image pixels
+        if(tracking){
+            trackLeft+=(left-trackLeft)*TRACK_SMOOTHING;
+            trackTop+=(top-trackTop)*TRACK_SMOOTHING;
+            trackRight+=(right-trackRight)*TRACK_SMOOTHING;
+            trackBottom+=(bottom-trackBottom)*TRACK_SMOOTHING;
+        }else{
+            trackLeft=left;
+            trackTop=top;
+            trackRight=right;
+            trackBottom=bottom;
+            tracking=true;
+        }
+        detected=true;
+    }
+
+    public void crop(VisionFrame image,VisionFrame patch){//copy the ROI into patch, taking every step-th pixel so it fits in the max patch size
+        if(image.getWidth()!=width||image.getHeight()!=height)
+            throw new IllegalArgumentException("the frame is "+image.getWidth()+"x"+image.getHeight()+" but the camera was set up for "+width+"x"+height);
+        step=patchStep();
+        int patchWidth=(right-left)/step,patchHeight=(bottom-top)/step;
+        patch.setSize(patchWidth,patchHeight);
+        patch.setInfo(image.getFrameNumber(),image.getCaptureTime());
+        int[] from=image.getPixels(),to=patch.getPixels();
+        for(int y=0;y<patchHeight;y++){
+            int row=(top+y*step)*width+left;
+            int at=y*patchWidth;
+            if(step==1){
+                System.arraycopy(from,row,to,at,patchWidth);
+            }else{
+                for(int x=0;x<patchWidth;x++){
+                    to[at+x]=from[row+x*step];
+                }
+            }
+        }
+    }
+
+    private int patchStep(){//the step crop() uses for the current ROI
+        int w=right-left,h=bottom-top;
+        return Math.max(1,Math.max((w+maxPatchWidth-1)/maxPatchWidth,(h+maxPatchHeight-1)/maxPatchHeight));
+    }
+
+    public double toImageX(double patchX){//a position in the last crop()'s patch, in image pixels
+        return left+patchX*step;
+    }
+
+    public double toImageY(double patchY){
+        return top+patchY*step;
+    }
+
+    public double toPatchFractionX(double imageX){//where an image position is across the patch crop() makes of the ROI, 0 to 1, for BarcodeDetector.setRoi()
+        int step=patchStep();
+        return Math.max(0,Math.min(1,(imageX-left)/((right-left)/step*step)));//the patch covers a whole number of steps, which can be a little less than the ROI
+    }
+
+    public double toPatchFractionY(double imageY){
+        int step=patchStep();
+        return Math.max(0,Math.min(1,(imageY-top)/((bottom-top)/step*step)));
+    }
+
+    public void setRois(BarcodeDetector detector,int firstTarget){//point the detector's levels at targets firstTarget to +2 in the patch crop() makes; call it after every update()
+        for(int level=1;level<=3;level++){
+            int target=firstTarget+level-1;
+            double l=toPatchFractionX(getTargetLeft(target)),t=toPatchFractionY(getTargetTop(target));
+            double r=toPatchFractionX(getTargetRight(target)),b=toPatchFractionY(getTargetBottom(target));
+            if(l<r&&t<b)
+                detector.setRoi(level,l,t,r,b);
+            else//a barcode outside the ROI isn't in the patch at all
+                detector.clearRoi(level);
+        }
+    }
+
+    public double getTargetLeft(int target){//the target's projected box from the last update(), in image pixels
+        return targetRects[target*4];
+    }
+
+    public double getTargetTop(int target){
+        return targetRects[target*4+1];
+    }
+
+    public double getTargetRight(int target){
+        return targetRects[target*4+2];
+    }
+
+    public double getTargetBottom(int target){
+        return targetRects[target*4+3];
+    }
+
+    public double getZoomMagnification(){//for tfod.setZoom(): the smallest centered crop that holds the ROI
+        double halfWidth=Math.max(width/2.0-left,right-width/2.0);
+        double halfHeight=Math.max(height/2.0-top,bottom-height/2.0);
+        return Math.max(1,Math.min(width/2.0/halfWidth,height/2.0/halfHeight));
+    }
+
+    public double getZoomAspectRatio(){
+        double halfWidth=Math.max(width/2.0-left,right-width/2.0);
+        double halfHeight=Math.max(height/2.0-top,bottom-height/2.0);
+        return halfWidth/halfHeight;
+    }
+
+    public int getLeft(){
+        return left;
+    }
+
+    public int getTop(){
+        return top;
+    }
+
+    public int getRight(){
+        return right;
+    }
+
+    public int getBottom(){
+        return bottom;
+    }
+
+    public double getShare(){//the ROI's share of the image's pixels
+        return (double)(right-left)*(bottom-top)/((double)width*height);
+    }
+
+    public boolean isVisible(){//false if no target was in view at the last update()
+        return visible;
+    }
+
+    public boolean isTracking(){//true while the ROI follows detections instead of the projected targets
+        return tracking;
+    }
+
+    public int getStep(){//how many image pixels each patch pixel stands for, from the last crop()
+        return step;
+    }
+}
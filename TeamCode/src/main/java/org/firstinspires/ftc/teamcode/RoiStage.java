@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+a VisionStage that crops every frame to a RoiManager's ROI first, then runs another stage on that
+patch. the RoiManager has to be update()d with the robot's pose before each frame
+ */
+public class RoiStage implements VisionStage {
+    private final RoiManager roi;
+    private final VisionStage stage;
+    private final VisionFrame patch=new VisionFrame();
+
+    public RoiStage(RoiManager roi,VisionStage stage){
+        this.roi=roi;
+        this.stage=stage;
+    }
+
+    @Override
+    public void process(VisionFrame frame){
+        roi.crop(frame,patch);
+        stage.process(patch);
+    }
+
+    @Override
+    public int getResult(){
+        return stage.getResult();
+    }
+
+    @Override
+    public String getName(){
+        return "roi "+stage.getName();
+    }
+
+    public VisionFrame getPatch(){//the last patch, for showing what the detector saw
+        return patch;
+    }
+}
@@ -0,0 +1,199 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/*
+the best route between every pair of points in FieldMap, worked out ahead of time by
+RouteTableCompiler and saved in the app's assets as route_table.bin
+
+load it once during init:
+    RouteTable routes=RouteTable.load(hardwareMap.appContext.getAssets().open(RouteTable.ASSET_NAME));
+then look routes up by FieldMap id. lookups are array reads and don't allocate:
+    for(int i=0;i<routes.waypoints(FieldMap.BC1,FieldMap.BSH);i++)
+        driveTo(routes.x(FieldMap.BC1,FieldMap.BSH,i),routes.y(FieldMap.BC1,FieldMap.BSH,i));
+
+file layout, all little endian like TrajectoryFile (the Control Hub's own byte order):
+    int    magic ("RTBL")
+    short  version
+    short  n, the number of points
+    float  grid resolution, float robot radius (what the table was planned with)
+    n x (short length, that many bytes of ascii) point names, in FieldMap order
+    n*n x (int first waypoint, short waypoint count, float length in inches), from*n+to order
+    int    total waypoints, then that many (float x, float y)
+    int    CRC32 of everything before it
+ */
+public class RouteTable {
+    public static final String ASSET_NAME="route_table.bin";
+    static final int MAGIC=0x4C425452;//"RTBL" when written little endian
+    static final int VERSION=1;
+
+    private final int n;
+    private final float resolution,robotRadius;
+    private final int[] first;//index of a route's first waypoint in xy, by from*n+to
+    private final int[] counts;//number of waypoints in a route, 0 if there is no route
+    private final float[] lengths;
+    private final float[] xy;//every route's waypoints back to back, x0,y0,x1,y1,...
+
+    private RouteTable(int n,float resolution,float robotRadius,int[] first,int[] counts,float[] lengths,float[] xy){
+        this.n=n;
+        this.resolution=resolution;
+        this.robotRadius=robotRadius;
+        this.first=first;
+        this.counts=counts;
+        this.lengths=lengths;
+        this.xy=xy;
+    }
+
+    public static RouteTable plan(GridPlanner planner){//plan every route now; used by RouteTableCompiler, too slow for init on the robot
+        int n=FieldMap.count();
+        int[] first=new int[n*n];
+        int[] counts=new int[n*n];
+        float[] lengths=new float[n*n];
+        double[] path=new double[2*planner.maxWaypoints()];
+        float[] xy=new float[64];
+        int total=0;
+        for(int from=0;from<n;from++){
+            for(int to=0;to<n;to++){
+                int route=from*n+to;
+                int waypoints=planner.plan(FieldMap.x(from),FieldMap.y(from),FieldMap.x(to),FieldMap.y(to),path);
+                first[route]=total;
+                if(waypoints<0)
+                    continue;
+                counts[route]=waypoints;
+                lengths[route]=(float)planner.lastPathLength();
+                while(xy.length<2*(total+waypoints)){
+                    xy=Arrays.copyOf(xy,xy.length*2);
+                }
+                for(int i=0;i<2*waypoints;i++){
+                    xy[2*total+i]=(float)path[i];
+                }
+                total+=waypoints;
+            }
+        }
+        return new RouteTable(n,(float)planner.getResolution(),(float)planner.getRobotRadius(),first,counts,lengths,Arrays.copyOf(xy,2*total));
+    }
+
+    public void write(OutputStream stream) throws IOException{
+        int size=16+n*n*10+4+xy.length*4+4;
+        for(int i=0;i<n;i++){
+            size+=2+FieldMap.name(i).length();
+        }
+        ByteBuffer out=ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC);
+        out.putShort((short)VERSION);
+        out.putShort((short)n);
+        out.putFloat(resolution);
+        out.putFloat(robotRadius);
+        for(int i=0;i<n;i++){
+            String name=FieldMap.name(i);
+            out.putShort((short)name.length());
+            for(int j=0;j<name.length();j++){
+                out.put((byte)name.charAt(j));
+            }
+        }
+        for(int route=0;route<n*n;route++){
+            out.putInt(first[route]);
+            out.putShort((short)counts[route]);
+            out.putFloat(lengths[route]);
+        }
+        out.putInt(xy.length/2);
+        for(float v:xy){
+            out.putFloat(v);
+        }
+        CRC32 crc=new CRC32();
+        crc.update(out.array(),0,out.position());
+        out.putInt((int)crc.getValue());
+        stream.write(out.array());
+    }
+
+    public static RouteTable load(InputStream stream) throws IOException{//read a table written by write(); closes the stream
+        byte[] data;
+        try{
+            ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+            byte[] buffer=new byte[8192];
+            for(int read=stream.read(buffer);read>=0;read=stream.read(buffer)){
+                bytes.write(buffer,0,read);
+            }
+            data=bytes.toByteArray();
+        }finally{
+            stream.close();
+        }
+        if(data.length<4)
+            throw new IOException("route table is empty");
+        CRC32 crc=new CRC32();
+        crc.update(data,0,data.length-4);
+        ByteBuffer in=ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if(in.getInt(data.length-4)!=(int)crc.getValue())
+            throw new IOException("route table checksum does not match");
+        if(in.getInt()!=MAGIC)
+            throw new IOException("not a route table");
+        int version=in.getShort();
+        if(version!=VERSION)
+            throw new IOException("route table version "+version+" is not supported");
+        int n=in.getShort();
+        float resolution=in.getFloat();
+        float robotRadius=in.getFloat();
+        if(n!=FieldMap.count())
+            throw new IOException("route table has "+n+" points but FieldMap has "+FieldMap.count()+"; run RouteTableCompiler again");
+        for(int i=0;i<n;i++){
+            String name=readName(in);
+            if(!name.equals(FieldMap.name(i)))
+                throw new IOException("route table point "+i+" is "+name+" but FieldMap has "+FieldMap.name(i)+"; run RouteTableCompiler again");
+        }
+        int[] first=new int[n*n];
+        int[] counts=new int[n*n];
+        float[] lengths=new float[n*n];
+        for(int route=0;route<n*n;route++){
+            first[route]=in.getInt();
+            counts[route]=in.getShort();
+            lengths[route]=in.getFloat();
+        }
+        float[] xy=new float[2*in.getInt()];
+        in.asFloatBuffer().get(xy);
+        return new RouteTable(n,resolution,robotRadius,first,counts,lengths,xy);
+    }
+
+    private static String readName(ByteBuffer in){
+        int length=in.getShort();
+        char[] chars=new char[length];
+        for(int i=0;i<length;i++){
+            chars[i]=(char)in.get();
+        }
+        return new String(chars);
+    }
+
+    public boolean hasRoute(int from,int to){
+        return counts[from*n+to]>0;
+    }
+
+    public int waypoints(int from,int to){//number of waypoints from one FieldMap point to another, including both ends; 0 if there is no route
+        return counts[from*n+to];
+    }
+
+    public double x(int from,int to,int waypoint){
+        return xy[2*(first[from*n+to]+waypoint)];
+    }
+
+    public double y(int from,int to,int waypoint){
+        return xy[2*(first[from*n+to]+waypoint)+1];
+    }
+
+    public double length(int from,int to){//length of the route in inches
+        return lengths[from*n+to];
+    }
+
+    public double getResolution(){
+        return resolution;
+    }
+
+    public double getRobotRadius(){
+        return robotRadius;
+    }
+}
@@ -0,0 +1,23 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+the waiting shared by the simulated hardware classes. a read or write on real hardware blocks the
+calling thread, so the simulated ones sleep for as long as the real one would take
+ */
+final class SimulatedDelay {
+    private SimulatedDelay(){}
+
+    static void waitFor(long nanos){//sleeps until nanos have passed, even if a sleep wakes up early; stops if interrupted
+        long end=System.nanoTime()+nanos;
+        long remaining=nanos;
+        while(remaining>0){
+            try{
+                Thread.sleep(remaining/1_000_000,(int)(remaining%1_000_000));
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+            remaining=end-System.nanoTime();
+        }
+    }
+}
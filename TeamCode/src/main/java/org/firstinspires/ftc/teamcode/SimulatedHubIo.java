@@ -0,0 +1,70 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+a HubIo with no hardware, for trying HubIoExecutor on a computer. every read and write waits as long
+as a real hub's serial link would, and each motor's encoder moves at a speed set by its power
+ */
+public class SimulatedHubIo implements HubIo {
+    public static final double TICKS_PER_SECOND_AT_FULL_POWER=2800;
+
+    private final String name;
+    private final long readNanos,writeNanos;
+    private final double[] powers;
+    private final double[] positions;
+    private long lastUpdate=System.nanoTime();
+    private long reads,writes;
+
+    public SimulatedHubIo(String name,int motors,double readMs,double writeMs){
+        this.name=name;
+        readNanos=(long)(readMs*1e6);
+        writeNanos=(long)(writeMs*1e6);
+        powers=new double[motors];
+        positions=new double[motors];
+    }
+
+    @Override
+    public int motorCount(){
+        return powers.length;
+    }
+
+    @Override
+    public synchronized void read(int[] positions,double[] velocities){
+        SimulatedDelay.waitFor(readNanos);
+        advance();
+        for(int i=0;i<powers.length;i++){
+            positions[i]=(int)this.positions[i];
+            velocities[i]=powers[i]*TICKS_PER_SECOND_AT_FULL_POWER;
+        }
+        reads++;
+    }
+
+    @Override
+    public synchronized void write(double[] powers){
+        SimulatedDelay.waitFor(writeNanos);
+        advance();
+        System.arraycopy(powers,0,this.powers,0,this.powers.length);
+        writes++;
+    }
+
+    private void advance(){//move the encoders forward for the time since the last call
+        long now=System.nanoTime();
+        double seconds=(now-lastUpdate)/1e9;
+        lastUpdate=now;
+        for(int i=0;i<powers.length;i++){
+            positions[i]+=powers[i]*TICKS_PER_SECOND_AT_FULL_POWER*seconds;
+        }
+    }
+
+    public synchronized long getReads(){
+        return reads;
+    }
+
+    public synchronized long getWrites(){
+        return writes;
+    }
+
+    @Override
+    public String getName(){
+        return name;
+    }
+}
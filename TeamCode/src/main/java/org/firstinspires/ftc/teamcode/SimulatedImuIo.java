@@ -0,0 +1,44 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+an ImuIo with no hardware, for trying ImuSampler on a computer. the robot swings back and forth,
+heading=AMPLITUDE*sin(FREQUENCY*t), and every read waits as long as an I2C read would
+ */
+public class SimulatedImuIo implements ImuIo {
+    public static final double AMPLITUDE=90;//degrees
+    public static final double FREQUENCY=2;//radians per second, so up to 180 degrees per second
+
+    private final long readNanos;
+    private final long startTime=System.nanoTime();
+
+    public SimulatedImuIo(double readMs){
+        readNanos=(long)(readMs*1e6);
+    }
+
+    public double trueHeading(long timeNanos){//where the robot really was at timeNanos
+        return AMPLITUDE*Math.sin(FREQUENCY*(timeNanos-startTime)/1e9);
+    }
+
+    public double trueHeadingRate(long timeNanos){
+        return AMPLITUDE*FREQUENCY*Math.cos(FREQUENCY*(timeNanos-startTime)/1e9);
+    }
+
+    @Override
+    public double readHeading(){//the heading from halfway through the read
+        long middle=System.nanoTime()+readNanos/2;
+        SimulatedDelay.waitFor(readNanos);
+        return trueHeading(middle);
+    }
+
+    @Override
+    public double readHeadingRate(){
+        long middle=System.nanoTime()+readNanos/2;
+        SimulatedDelay.waitFor(readNanos);
+        return trueHeadingRate(middle);
+    }
+
+    @Override
+    public String getName(){
+        return "simulated";
+    }
+}
@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Random;
+
+/*
+a RecognitionSource with no camera, for trying RecognitionService on a computer. every update() takes
+as long as an inference and is right with probability accuracy; wrong answers are random and usually
+less confident than right ones, like a real detector's. setAnswer() moves the element
+ */
+public class SimulatedRecognitionSource implements RecognitionSource {
+    private final long inferenceNanos;
+    private final double accuracy;
+    private final Random random;
+    private volatile int truth;
+    private int answer;
+    private double confidence;
+    private long time;
+    private volatile long busyNanos;//time spent on inferences, as CPU time would be on the robot
+    private volatile long inferences;
+
+    public SimulatedRecognitionSource(int truth,double inferenceMs,double accuracy,long seed){
+        this.truth=truth;
+        inferenceNanos=(long)(inferenceMs*1e6);
+        this.accuracy=accuracy;
+        random=new Random(seed);
+    }
+
+    public void setAnswer(int truth){
+        this.truth=truth;
+    }
+
+    public int getTruth(){
+        return truth;
+    }
+
+    @Override
+    public boolean update(){
+        time=System.nanoTime();
+        long end=time+inferenceNanos;
+        while(System.nanoTime()<end){
+            Thread.yield();
+        }
+        if(random.nextDouble()<accuracy){
+            answer=truth;
+            confidence=0.7+0.3*random.nextDouble();
+        }else{
+            answer=(truth+1+random.nextInt(3))%4;//any of the other answers, including nothing recognized
+            confidence=0.4+0.45*random.nextDouble();
+        }
+        busyNanos+=System.nanoTime()-time;
+        inferences++;
+        return true;
+    }
+
+    @Override
+    public int getAnswer(){
+        return answer;
+    }
+
+    @Override
+    public double getConfidence(){
+        return confidence;
+    }
+
+    @Override
+    public long getTime(){
+        return time;
+    }
+
+    @Override
+    public void setSkipping(boolean skipping){
+    }
+
+    public long getBusyNanos(){
+        return busyNanos;
+    }
+
+    public long getInferences(){
+        return inferences;
+    }
+
+    @Override
+    public String getName(){
+        return "simulated";
+    }
+}
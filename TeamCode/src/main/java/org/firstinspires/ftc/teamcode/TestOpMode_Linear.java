@@ -4,7 +4,8 @@ import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.eventloop.opmode.Disabled;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.util.ElapsedTime;
-import com.qualcomm.robotcore.util.Range;
+
+import java.util.Locale;
 
 
 /**
@@ -24,6 +25,17 @@ public class TestOpMode_Linear extends LinearOpMode {
     private ElapsedTime runtime = new ElapsedTime();
     private DcMotor frontLeftDrive = null,frontRightDrive = null,backLeftDrive = null,backRightDrive = null;
     private double dPadPower=1;
+    private static final double STICK_DEAD_ZONE=0.05;
+    private final MecanumDrive drive=new MecanumDrive();
+    private CachingMotor frontLeft,frontRight,backLeft,backRight;//skip setPower calls that don't change anything
+    private final LoopTimer loopTimer=new LoopTimer(1000/DRIVE_HZ);//times each part of the loop; a drive loop that takes longer than its period is an overrun
+    private int readStage,computeStage,writeStage,telemetryStage;
+    private final LoopScheduler scheduler=new LoopScheduler();//runs the drive loop and telemetry at fixed rates
+    private static final double DRIVE_HZ=100,TELEMETRY_HZ=4;
+
+    // Values from the latest loop. These are fields so the telemetry items can read them when telemetry is sent
+    private double g1StickLX,g1StickLY,g1StickRX;//gamepad 1 stick position varibles
+    private double frontLeftPower = 0,frontRightPower = 0,backLeftPower = 0,BackRightPower = 0;//wheel motor power vatibles
 
     @Override
     public void runOpMode() {
@@ -45,76 +57,106 @@ public class TestOpMode_Linear extends LinearOpMode {
         backLeftDrive.setDirection(DcMotor.Direction.FORWARD);
         backRightDrive.setDirection(DcMotor.Direction.REVERSE);
 
+        frontLeft = new CachingMotor(frontLeftDrive);
+        frontRight = new CachingMotor(frontRightDrive);
+        backLeft = new CachingMotor(backLeftDrive);
+        backRight = new CachingMotor(backRightDrive);
+
+        readStage = loopTimer.addStage("read", 2);
+        computeStage = loopTimer.addStage("compute", 1);
+        writeStage = loopTimer.addStage("write", 5);
+        telemetryStage = loopTimer.addStage("telemetry", 5);
+
+        // Set up the telemetry once. Each item is only worked out when telemetry is actually sent,
+        // so the loop itself does no string work.
+        LazyTelemetry display = new LazyTelemetry(telemetry, TELEMETRY_HZ);
+        display.addData("Status", () -> "Run Time: " + runtime.toString());
+        display.addData("gamepad 1 left stick position", () -> {
+            double g1StickLDirection=Math.atan2(g1StickLY,g1StickLX);//get the angle the left stick is at
+            return g1StickLDirection+" radians "+Math.toDegrees(g1StickLDirection)+" degrees";
+        });
+        display.addData("Motors", () -> String.format(Locale.US, "left (%.2f), right (%.2f)", frontLeftPower, frontRightPower));
+        display.addData("joystick positions", () -> g1StickLX+" "+g1StickLY+" "+g1StickRX);
+        display.addData("Motor writes", () -> String.format(Locale.US, "sent %d, skipped %d",
+                CachingOutput.totalIssued(frontLeft,frontRight,backLeft,backRight),
+                CachingOutput.totalSuppressed(frontLeft,frontRight,backLeft,backRight)));
+        display.addData("Loop times (ms)", loopTimer::summary);
+        display.addData("Scheduler (ms)", scheduler::summary);
+
+        scheduler.addTask("drive", DRIVE_HZ, this::driveLoop);
+        // Show the elapsed game time wheel powe,stick direction and stick postition, a few times a second.
+        scheduler.addTask("telemetry", TELEMETRY_HZ, () -> {
+            loopTimer.startStage();
+            display.forceUpdate();
+            loopTimer.endStage(telemetryStage);
+        });
+
         // Wait for the game to start (driver presses PLAY)
         waitForStart();
         runtime.reset();
 
         // run until the end of the match (driver presses STOP)
-        while (opModeIsActive()) {
-
-            // Setup a variable for each drive wheel to save power level for telemetry
-            double g1StickLX,g1StickLY,g1StickLDirection;//gamepad 1 left stick position varibles
-            double frontLeftPower = 0,frontRightPower = 0,backLeftPower = 0,BackRightPower = 0,generalPower=0;//wheel motor power vatibles
-
-            // Choose to drive using either Tank Mode, or POV Mode
-            // Comment out the method that's not used.  The default below is POV.
-
-            // POV Mode uses left stick to go forward, and right stick to turn.
-            // - This uses basic math to combine motions and is easier to drive straight.
-            g1StickLY = -gamepad1.left_stick_y;
-            g1StickLX  =  gamepad1.left_stick_x;
-
-            g1StickLDirection=Math.atan2(g1StickLY,g1StickLX);//get the angle the left stick is at
-
-            generalPower=Range.clip(Math.sqrt(Math.pow(g1StickLX,2)+Math.pow(g1StickLY,2)),0,1);
-            if(generalPower<=0.05){//joystick dead zone
-                generalPower=0;
-            }
-
-            //set the power for each wheel absed on the angle of the stick and how far the stick is from center
-            frontLeftPower = Range.clip(Math.sin(g1StickLDirection)+Math.cos(g1StickLDirection),-1,1)*generalPower;
-            frontRightPower = Range.clip(Math.sin(g1StickLDirection)-Math.cos(g1StickLDirection),-1,1)*generalPower;
-            backLeftPower = Range.clip(Math.sin(g1StickLDirection)-Math.cos(g1StickLDirection),-1,1)*generalPower;
-            BackRightPower= Range.clip(Math.sin(g1StickLDirection)+Math.cos(g1StickLDirection),-1,1)*generalPower;
-
-            // conditionals to overwrite wheel powers if dpad buttons are pressed
-            if(gamepad1.dpad_up){
-                frontLeftPower  = dPadPower;
-                frontRightPower = dPadPower;
-                backLeftPower   = dPadPower;
-                BackRightPower  = dPadPower;
-            }
-            if(gamepad1.dpad_down){
-                frontLeftPower  = -dPadPower;
-                frontRightPower = -dPadPower;
-                backLeftPower   = -dPadPower;
-                BackRightPower  = -dPadPower;
-            }
-            if(gamepad1.dpad_right){
-                frontLeftPower  = dPadPower;
-                frontRightPower = -dPadPower;
-                backLeftPower   = -dPadPower;
-                BackRightPower  = dPadPower;
-            }
-            if(gamepad1.dpad_left){
-                frontLeftPower  = -dPadPower;
-                frontRightPower = dPadPower;
-                backLeftPower   = dPadPower;
-                BackRightPower  = -dPadPower;
-            }
-
-            // Send calculated power to wheels
-            frontLeftDrive.setPower(frontLeftPower);
-            frontRightDrive.setPower(frontRightPower);
-            backLeftDrive.setPower(backLeftPower);
-            backRightDrive.setPower(BackRightPower);
-
-            // Show the elapsed game time wheel powe,stick direction and stick postition.
-            telemetry.addData("Status", "Run Time: " + runtime.toString());
-            telemetry.addData("gamepad 1 left stick position",g1StickLDirection+" radians "+Math.toDegrees(g1StickLDirection)+" degrees");
-            telemetry.addData("Motors", "left (%.2f), right (%.2f)", frontLeftPower ,frontRightPower ,backLeftPower ,BackRightPower,generalPower);
-            telemetry.addData("joystick positions", g1StickLX+" "+g1StickLY);
-            telemetry.update();
+        scheduler.run(this);
+    }
+
+    private void driveLoop() {//one pass of the drive control loop, run by the scheduler at DRIVE_HZ
+        loopTimer.startLoop();
+
+        // POV Mode uses left stick to drive and strafe, and right stick to turn.
+        g1StickLY = -gamepad1.left_stick_y;
+        g1StickLX  =  gamepad1.left_stick_x;
+        g1StickRX  =  gamepad1.right_stick_x;
+
+        if(g1StickLX*g1StickLX+g1StickLY*g1StickLY<=STICK_DEAD_ZONE*STICK_DEAD_ZONE){//joystick dead zone
+            g1StickLX=0;
+            g1StickLY=0;
+        }
+        if(Math.abs(g1StickRX)<=STICK_DEAD_ZONE){
+            g1StickRX=0;
         }
+        loopTimer.endStage(readStage);
+
+        //MecanumDrive works out the power for each wheel and scales them together so the direction isn't distorted
+        drive.drive(g1StickLX,g1StickLY,g1StickRX);
+        frontLeftPower = drive.getFrontLeft();
+        frontRightPower = drive.getFrontRight();
+        backLeftPower = drive.getBackLeft();
+        BackRightPower = drive.getBackRight();
+
+        // conditionals to overwrite wheel powers if dpad buttons are pressed
+        if(gamepad1.dpad_up){
+            frontLeftPower  = dPadPower;
+            frontRightPower = dPadPower;
+            backLeftPower   = dPadPower;
+            BackRightPower  = dPadPower;
+        }
+        if(gamepad1.dpad_down){
+            frontLeftPower  = -dPadPower;
+            frontRightPower = -dPadPower;
+            backLeftPower   = -dPadPower;
+            BackRightPower  = -dPadPower;
+        }
+        if(gamepad1.dpad_right){
+            frontLeftPower  = dPadPower;
+            frontRightPower = -dPadPower;
+            backLeftPower   = -dPadPower;
+            BackRightPower  = dPadPower;
+        }
+        if(gamepad1.dpad_left){
+            frontLeftPower  = -dPadPower;
+            frontRightPower = dPadPower;
+            backLeftPower   = dPadPower;
+            BackRightPower  = -dPadPower;
+        }
+
+        loopTimer.endStage(computeStage);
+
+        // Send calculated power to wheels, only if it changed
+        frontLeft.setPower(frontLeftPower);
+        frontRight.setPower(frontRightPower);
+        backLeft.setPower(backLeftPower);
+        backRight.setPower(BackRightPower);
+        loopTimer.endStage(writeStage);
+        loopTimer.endLoop();
     }
 }
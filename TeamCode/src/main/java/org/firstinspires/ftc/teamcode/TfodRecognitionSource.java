@@ -0,0 +1,93 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.tfod.Recognition;
+import org.firstinspires.ftc.robotcore.external.tfod.TFObjectDetector;
+
+import java.util.List;
+
+/*
+a RecognitionSource that reads the barcode level from a TFObjectDetector set up the way
+ConceptTensorFlowObjectDetection does it. the most confident recognition with the label (for example
+"Duck") gives the level by where it is across the frame, in the same left to right order as
+BarcodeDetector; a frame with none of them is answer 0
+
+TensorFlow runs its inferences on its own threads for as long as it is active, so while the service is
+skipping frames this deactivates it after every answer and activates it again for the next one
+ */
+public class TfodRecognitionSource implements RecognitionSource {
+    public static final double NOTHING_CONFIDENCE=0.5;//how much a frame with nothing recognized counts
+
+    private final TFObjectDetector tfod;
+    private final String label;
+    private final int firstBarcode;
+    private boolean skipping;
+    private boolean active=true;//the op mode activates it, like in the sample
+    private int answer;
+    private double confidence;
+    private long time;
+
+    public TfodRecognitionSource(TFObjectDetector tfod,String label,int firstBarcode){//firstBarcode like BarcodeDetector's
+        this.tfod=tfod;
+        this.label=label;
+        this.firstBarcode=firstBarcode;
+    }
+
+    @Override
+    public boolean update(){
+        if(!active){
+            tfod.activate();
+            active=true;
+            return false;//wait for an inference on a frame from after this
+        }
+        List<Recognition> recognitions=tfod.getUpdatedRecognitions();
+        if(recognitions==null)//nothing new since the last call
+            return false;
+        time=System.nanoTime();
+        answer=0;
+        confidence=NOTHING_CONFIDENCE;
+        float best=0;
+        for(int i=0;i<recognitions.size();i++){
+            Recognition recognition=recognitions.get(i);
+            if(recognition.getConfidence()>best&&recognition.getLabel().equals(label)){
+                best=recognition.getConfidence();
+                double x=(recognition.getLeft()+recognition.getRight())/2/recognition.getImageWidth();
+                answer=BarcodeDetector.levelAt(firstBarcode,x);
+                confidence=best;
+            }
+        }
+        if(skipping){
+            tfod.deactivate();
+            active=false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getAnswer(){
+        return answer;
+    }
+
+    @Override
+    public double getConfidence(){
+        return confidence;
+    }
+
+    @Override
+    public long getTime(){
+        return time;
+    }
+
+    @Override
+    public void setSkipping(boolean skipping){
+        this.skipping=skipping;
+        if(!skipping&&!active){
+            tfod.activate();
+            active=true;
+        }
+    }
+
+    @Override
+    public String getName(){
+        return "tfod "+label;
+    }
+}
@@ -0,0 +1,37 @@
+package org.firstinspires.ftc.teamcode;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/*
+loads a TrajectoryFile from the app's assets. this is the only part of it that needs android, so
+TrajectoryFile itself stays plain java and TrajectoryCompiler can use it on a computer:
+
+    TrajectoryFile trajectories=TrajectoryAssets.load(hardwareMap.appContext.getAssets(),TrajectoryFile.ASSET_NAME);
+
+the asset is mapped into memory if it is stored uncompressed (TeamCode's build.gradle does that for
+.traj files), otherwise it is read into one buffer
+ */
+public class TrajectoryAssets {
+    private TrajectoryAssets(){}
+
+    public static TrajectoryFile load(AssetManager assets,String name) throws IOException{
+        AssetFileDescriptor descriptor;
+        try{
+            descriptor=assets.openFd(name);
+        }catch(FileNotFoundException e){//openFd only works for uncompressed assets, so read it instead
+            return TrajectoryFile.load(assets.open(name));
+        }
+        try(FileInputStream stream=descriptor.createInputStream()){
+            FileChannel channel=stream.getChannel();
+            return TrajectoryFile.load(channel.map(FileChannel.MapMode.READ_ONLY,descriptor.getStartOffset(),descriptor.getLength()));
+        }finally{
+            descriptor.close();
+        }
+    }
+}
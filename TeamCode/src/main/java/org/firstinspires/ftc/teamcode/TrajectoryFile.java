@@ -0,0 +1,219 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/*
+autonomous trajectories worked out ahead of time by TrajectoryCompiler and saved in the app's assets
+as trajectories.traj, so the robot doesn't build splines and motion profiles during init
+
+every trajectory is a list of samples taken a fixed time apart, so sample(t) finds its two samples
+with one division and blends them. the file is used as it is: TrajectoryAssets.load() maps the asset
+into memory (TeamCode's build.gradle stores .traj files uncompressed so they can be mapped), or reads
+it into one buffer if it can't, and the checksum is checked once. after that sample() only reads
+floats out of the buffer; nothing is parsed into objects and nothing is allocated:
+
+    TrajectoryFile trajectories=TrajectoryAssets.load(hardwareMap.appContext.getAssets(),TrajectoryFile.ASSET_NAME);
+    int delivery=trajectories.find("blue_carousel_to_hub");//during init
+    ...
+    trajectories.sample(delivery,timer.seconds());
+    double x=trajectories.getX(),y=trajectories.getY(),vx=trajectories.getVelocityX();
+
+poses are in the PointsOfInterest frame: inches, heading in radians counterclockwise from +x. this
+class is plain java so TrajectoryCompiler can write and check files with it on a computer
+
+file layout, all little endian (the Control Hub's own byte order):
+    int    magic ("TRAJ")
+    short  version
+    short  n, the number of trajectories
+    float  sample period, seconds
+    int    total samples
+    n x (NAME_LENGTH bytes of ascii name padded with 0s, int first sample, int sample count)
+    total samples x SAMPLE_FLOATS floats: x, y, heading, vx, vy, turn rate, ax, ay, turn acceleration
+    int    CRC32 of everything before it
+ */
+public class TrajectoryFile {
+    public static final String ASSET_NAME="trajectories.traj";
+    static final int MAGIC=0x4A415254;//"TRAJ" when written little endian
+    static final int VERSION=1;
+    static final int NAME_LENGTH=32;
+    static final int HEADER_BYTES=16;
+    static final int ENTRY_BYTES=NAME_LENGTH+8;
+    static final int SAMPLE_FLOATS=9;
+    static final int SAMPLE_BYTES=SAMPLE_FLOATS*4;
+
+    private final ByteBuffer data;
+    private final int n;
+    private final float period;
+    private final int samplesStart;//byte offset of the first sample
+
+    private double x,y,heading,vx,vy,turnRate,ax,ay,turnAcceleration;//from the last sample()
+
+    private TrajectoryFile(ByteBuffer data) throws IOException{
+        this.data=data.order(ByteOrder.LITTLE_ENDIAN);
+        int size=data.limit();
+        if(size<HEADER_BYTES+4)
+            throw new IOException("trajectory file is too short");
+        CRC32 crc=new CRC32();
+        byte[] chunk=new byte[8192];
+        for(int at=0;at<size-4;at+=chunk.length){
+            int length=Math.min(chunk.length,size-4-at);
+            data.position(at);
+            data.get(chunk,0,length);
+            crc.update(chunk,0,length);
+        }
+        data.position(0);
+        if(data.getInt(size-4)!=(int)crc.getValue())
+            throw new IOException("trajectory file checksum does not match");
+        if(data.getInt(0)!=MAGIC)
+            throw new IOException("not a trajectory file");
+        int version=data.getShort(4);
+        if(version!=VERSION)
+            throw new IOException("trajectory file version "+version+" is not supported");
+        n=data.getShort(6);
+        period=data.getFloat(8);
+        int total=data.getInt(12);
+        samplesStart=HEADER_BYTES+n*ENTRY_BYTES;
+        if(samplesStart+total*SAMPLE_BYTES+4!=size)
+            throw new IOException("trajectory file is "+size+" bytes but its header says "+(samplesStart+total*SAMPLE_BYTES+4));
+    }
+
+    public static TrajectoryFile load(ByteBuffer data) throws IOException{//the whole file, for example a mapped asset from TrajectoryAssets
+        return new TrajectoryFile(data);
+    }
+
+    public static TrajectoryFile load(FileChannel channel) throws IOException{//for a file on disk, for example on a computer
+        return new TrajectoryFile(channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size()));
+    }
+
+    public static TrajectoryFile load(InputStream stream) throws IOException{//reads the whole stream into one buffer; closes the stream
+        ByteBuffer buffer=ByteBuffer.allocateDirect(Math.max(stream.available(),8192));
+        try{
+            byte[] chunk=new byte[8192];
+            for(int read=stream.read(chunk);read>=0;read=stream.read(chunk)){
+                if(buffer.remaining()<read){
+                    ByteBuffer bigger=ByteBuffer.allocateDirect(buffer.capacity()*2+read);
+                    buffer.flip();
+                    bigger.put(buffer);
+                    buffer=bigger;
+                }
+                buffer.put(chunk,0,read);
+            }
+        }finally{
+            stream.close();
+        }
+        buffer.flip();
+        return new TrajectoryFile(buffer);
+    }
+
+    public int count(){
+        return n;
+    }
+
+    public String name(int trajectory){
+        int at=HEADER_BYTES+trajectory*ENTRY_BYTES;
+        StringBuilder name=new StringBuilder();
+        for(int i=0;i<NAME_LENGTH&&data.get(at+i)!=0;i++){
+            name.append((char)data.get(at+i));
+        }
+        return name.toString();
+    }
+
+    public int find(String name){//the trajectory's number, or -1 if there isn't one with that name; allocates, so call it during init
+        for(int i=0;i<n;i++){
+            if(name(i).equals(name))
+                return i;
+        }
+        return -1;
+    }
+
+    private int first(int trajectory){
+        return data.getInt(HEADER_BYTES+trajectory*ENTRY_BYTES+NAME_LENGTH);
+    }
+
+    private int samples(int trajectory){
+        return data.getInt(HEADER_BYTES+trajectory*ENTRY_BYTES+NAME_LENGTH+4);
+    }
+
+    public double getDuration(int trajectory){//seconds
+        return (samples(trajectory)-1)*period;
+    }
+
+    public void sample(int trajectory,double time){//seconds since the trajectory started; before 0 it is at the start, after the end at the end
+        int count=samples(trajectory);
+        double index=Math.max(0,Math.min(count-1,time/period));
+        int i=(int)index;
+        if(i>=count-1)
+            i=Math.max(0,count-2);
+        double f=count==1?0:index-i;
+        int a=samplesStart+(first(trajectory)+i)*SAMPLE_BYTES;
+        int b=count==1?a:a+SAMPLE_BYTES;
+        x=blend(a,b,0,f);
+        y=blend(a,b,1,f);
+        double h0=data.getFloat(a+8),h1=data.getFloat(b+8);
+        heading=Odometry.wrap(h0+Odometry.wrap(h1-h0)*f);
+        vx=blend(a,b,3,f);
+        vy=blend(a,b,4,f);
+        turnRate=blend(a,b,5,f);
+        ax=blend(a,b,6,f);
+        ay=blend(a,b,7,f);
+        turnAcceleration=blend(a,b,8,f);
+        if(time>=getDuration(trajectory)){//stopped at the end
+            vx=0;
+            vy=0;
+            turnRate=0;
+            ax=0;
+            ay=0;
+            turnAcceleration=0;
+        }
+    }
+
+    private double blend(int a,int b,int value,double f){
+        double start=data.getFloat(a+value*4);
+        return start+(data.getFloat(b+value*4)-start)*f;
+    }
+
+    public float getSamplePeriod(){
+        return period;
+    }
+
+    public double getX(){
+        return x;
+    }
+
+    public double getY(){
+        return y;
+    }
+
+    public double getHeading(){
+        return heading;
+    }
+
+    public double getVelocityX(){//inches/s, field frame
+        return vx;
+    }
+
+    public double getVelocityY(){
+        return vy;
+    }
+
+    public double getTurnRate(){//radians/s, counterclockwise
+        return turnRate;
+    }
+
+    public double getAccelerationX(){//inches/s^2, field frame
+        return ax;
+    }
+
+    public double getAccelerationY(){
+        return ay;
+    }
+
+    public double getTurnAcceleration(){
+        return turnAcceleration;
+    }
+}
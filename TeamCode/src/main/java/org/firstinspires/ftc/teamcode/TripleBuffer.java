@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+hands the latest value from one thread to another without locks and without allocating
+
+there are three buffers: the writer fills "back", the reader reads "front", and the third one sits in
+the middle. publish() swaps the back buffer into the middle, and refresh() swaps the middle buffer
+out to the front if something new was published. neither side ever waits for the other, and since
+they never hold the same buffer, the reader never sees a half written value. values the reader
+didn't get to in time are simply replaced by newer ones
+
+only one thread may write and only one thread may read. the buffers are made by the caller so they
+can be any mutable type, for example an array or a small class of primitive fields
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK=3;
+    private static final int FRESH=4;//set in middle when it holds a value the reader hasn't taken yet
+
+    private final T buffer0,buffer1,buffer2;
+    private final AtomicInteger middle=new AtomicInteger(1);
+    private int back=0;//only used by the writer
+    private int front=2;//only used by the reader
+
+    public TripleBuffer(T buffer0,T buffer1,T buffer2){//three separate buffers
+        if(buffer0==null||buffer1==null||buffer2==null||buffer0==buffer1||buffer1==buffer2||buffer0==buffer2)
+            throw new IllegalArgumentException("a TripleBuffer needs 3 separate buffers");
+        this.buffer0=buffer0;
+        this.buffer1=buffer1;
+        this.buffer2=buffer2;
+    }
+
+    private T buffer(int index){
+        return index==0?buffer0:(index==1?buffer1:buffer2);
+    }
+
+    public T back(){//writer: the buffer to fill before calling publish()
+        return buffer(back);
+    }
+
+    public void publish(){//writer: make the back buffer the latest value
+        back=middle.getAndSet(back|FRESH)&INDEX_MASK;
+    }
+
+    public boolean refresh(){//reader: move the latest value to front(); returns false if nothing new was published
+        if((middle.get()&FRESH)==0)
+            return false;
+        front=middle.getAndSet(front)&INDEX_MASK;
+        return true;
+    }
+
+    public T front(){//reader: the latest value as of the last refresh()
+        return buffer(front);
+    }
+}
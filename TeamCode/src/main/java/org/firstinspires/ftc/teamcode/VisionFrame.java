@@ -0,0 +1,66 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+one camera frame as plain java: ARGB pixels row by row, the way Bitmap.getPixels() and
+BufferedImage.getRGB() give them, plus where it came from. vision code that takes a VisionFrame
+instead of a Bitmap runs the same on the robot and on a computer (see VisionReplay)
+
+a frame is meant to be filled again and again: setSize() only makes a bigger array when the frame
+gets bigger, so replaying or streaming frames doesn't allocate one per frame:
+
+    frame.setSize(bitmap.getWidth(),bitmap.getHeight());
+    bitmap.getPixels(frame.getPixels(),0,frame.getWidth(),0,0,frame.getWidth(),frame.getHeight());
+    frame.setInfo(frameNumber,captureTime);
+ */
+public class VisionFrame {
+    private int[] pixels=new int[0];
+    private int width,height;
+    private long frameNumber,captureTime;
+    private String name="";
+
+    public void setSize(int width,int height){
+        if(width<=0||height<=0)
+            throw new IllegalArgumentException("a frame can't be "+width+"x"+height);
+        if(pixels.length<width*height)
+            pixels=new int[width*height];
+        this.width=width;
+        this.height=height;
+    }
+
+    public void setInfo(long frameNumber,long captureTime){
+        this.frameNumber=frameNumber;
+        this.captureTime=captureTime;
+    }
+
+    public void setName(String name){//where the frame came from, like the file it was read from
+        this.name=name;
+    }
+
+    public int[] getPixels(){//at least width*height long
+        return pixels;
+    }
+
+    public int getPixel(int x,int y){
+        return pixels[y*width+x];
+    }
+
+    public int getWidth(){
+        return width;
+    }
+
+    public int getHeight(){
+        return height;
+    }
+
+    public long getFrameNumber(){
+        return frameNumber;
+    }
+
+    public long getCaptureTime(){//System.nanoTime() when it was captured, on the robot that recorded it
+        return captureTime;
+    }
+
+    public String getName(){
+        return name;
+    }
+}
@@ -0,0 +1,14 @@
+package org.firstinspires.ftc.teamcode;
+
+/*
+one step of a vision pipeline, so VisionReplay can time and check any detector the same way. a stage
+looks at a frame, keeps what it found, and says it as a small number: for the barcode the level, 1 to
+3, or 0 if nothing was found. -1 means the stage has no answer for that frame
+ */
+public interface VisionStage {
+    void process(VisionFrame frame);
+
+    int getResult();//from the last process()
+
+    String getName();
+}
@@ -0,0 +1,36 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.matrices.OpenGLMatrix;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+
+/*
+turns a robot location from Vuforia (like the one ConceptVuforiaFieldNavigationWebcam gets from
+getUpdatedRobotLocation()) into the PointsOfInterest frame, for PoseFilter.addFix()
+
+Vuforia's frame has its origin in the middle of the field, in millimeters, with +x away from the
+storage units and +y toward the blue alliance station. PointsOfInterest has its origin in the corner
+by the blue storage unit, in inches, with +x toward the red side and +y toward the warehouses. so
+PointsOfInterest's x is Vuforia's -y, its y is Vuforia's x, and headings differ by 90 degrees
+ */
+public final class VuforiaPose {
+    static final double MM_PER_INCH=25.4;
+    static final double HALF_FIELD=72;
+
+    private VuforiaPose(){}
+
+    public static double x(OpenGLMatrix robotLocation){
+        return HALF_FIELD-robotLocation.getTranslation().get(1)/MM_PER_INCH;
+    }
+
+    public static double y(OpenGLMatrix robotLocation){
+        return HALF_FIELD+robotLocation.getTranslation().get(0)/MM_PER_INCH;
+    }
+
+    public static double heading(OpenGLMatrix robotLocation){//radians, counterclockwise from +x
+        Orientation rotation=Orientation.getOrientation(robotLocation,AxesReference.EXTRINSIC,AxesOrder.XYZ,AngleUnit.RADIANS);
+        return Odometry.wrap(rotation.thirdAngle+Math.PI/2);
+    }
+}
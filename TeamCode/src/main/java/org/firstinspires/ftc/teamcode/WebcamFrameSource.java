@@ -0,0 +1,170 @@
+package org.firstinspires.ftc.teamcode;
+
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+
+import com.qualcomm.robotcore.util.RobotLog;
+
+import org.firstinspires.ftc.robotcore.external.ClassFactory;
+import org.firstinspires.ftc.robotcore.external.android.util.Size;
+import org.firstinspires.ftc.robotcore.external.function.Continuation;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.Camera;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraCaptureRequest;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraCaptureSequenceId;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraCaptureSession;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraCharacteristics;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraException;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraFrame;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.robotcore.internal.network.CallbackLooper;
+import org.firstinspires.ftc.robotcore.internal.system.ContinuationSynchronizer;
+import org.firstinspires.ftc.robotcore.internal.system.Deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+streams frames from a webcam into a FramePool of Bitmaps, the way ConceptWebcam opens the camera but
+without making a new Bitmap for every frame
+
+open() asks for the camera, makes all the Bitmaps at the camera's default YUY2 size, and starts
+capturing. the camera's callback copies each frame into a free Bitmap from the pool and publishes it;
+if the op mode is holding every Bitmap the frame is skipped instead of making another one:
+
+    WebcamFrameSource webcam=new WebcamFrameSource(hardwareMap.get(WebcamName.class,"Webcam 1"),2);
+    webcam.open();
+    FramePool<Bitmap> frames=webcam.getFrames();
+    while(opModeIsActive()){
+        int frame=frames.poll();
+        if(frame>=0){
+            ...use frames.get(frame)
+            frames.release(frame);
+        }
+    }
+    webcam.close();
+
+the pool has depth+2 Bitmaps: depth frames waiting, one the camera is copying into and one the op mode
+is using. getFrames().getDropped() and getExhausted() show whether that is enough
+
+setPaused(true) keeps the camera running but makes the callback return straight away, so no frames
+are copied or published until setPaused(false). that saves the copy when nothing wants frames for a
+while, without the delay of stopping and starting the capture
+ */
+public class WebcamFrameSource {
+    private static final String TAG="WebcamFrameSource";
+    private static final int IMAGE_FORMAT=ImageFormat.YUY2;//every webcam supports it, see ConceptWebcam
+    public static final int PERMISSION_TIMEOUT_SECONDS=10;
+
+    private final WebcamName name;
+    private final FramePool<Bitmap> frames;
+    private final Handler callbackHandler=CallbackLooper.getDefault().getHandler();
+    private Camera camera;
+    private CameraCaptureSession session;
+    private Size size;
+    private volatile boolean paused;//read on the camera's callback thread
+
+    public WebcamFrameSource(WebcamName name,int depth){
+        this.name=name;
+        frames=new FramePool<>(depth+2,depth);
+    }
+
+    public void open(){//throws IllegalStateException if the camera can't be opened or started
+        if(session!=null)
+            return;
+        CameraCharacteristics characteristics=name.getCameraCharacteristics();
+        boolean supported=false;
+        for(int format:characteristics.getAndroidFormats()){
+            supported|=format==IMAGE_FORMAT;
+        }
+        if(!supported)
+            throw new IllegalStateException("the webcam doesn't support YUY2");
+        size=characteristics.getDefaultSize(IMAGE_FORMAT);
+        final int fps=characteristics.getMaxFramesPerSecond(IMAGE_FORMAT,size);
+
+        camera=ClassFactory.getInstance().getCameraManager().requestPermissionAndOpenCamera(new Deadline(PERMISSION_TIMEOUT_SECONDS,TimeUnit.SECONDS),name,null);
+        if(camera==null)
+            throw new IllegalStateException("the webcam wasn't found or permission to use it wasn't given");
+
+        final ContinuationSynchronizer<CameraCaptureSession> synchronizer=new ContinuationSynchronizer<>();
+        try{
+            camera.createCaptureSession(Continuation.create(callbackHandler,new CameraCaptureSession.StateCallbackDefault(){
+                @Override public void onConfigured(@NonNull CameraCaptureSession session){
+                    try{
+                        CameraCaptureRequest request=camera.createCaptureRequest(IMAGE_FORMAT,size,fps);
+                        while(frames.size()<frames.getCapacity()){//made once, the first time the camera is opened
+                            frames.add(request.createEmptyBitmap());
+                        }
+                        session.startCapture(request,new CameraCaptureSession.CaptureCallback(){
+                            @Override public void onNewFrame(@NonNull CameraCaptureSession session,@NonNull CameraCaptureRequest request,@NonNull CameraFrame cameraFrame){
+                                if(paused)
+                                    return;
+                                //the frame is only valid during the callback, so copy it into a pooled Bitmap
+                                int slot=frames.acquire();
+                                if(slot<0)//counted by the pool
+                                    return;
+                                cameraFrame.copyToBitmap(frames.get(slot));
+                                frames.publish(slot,cameraFrame.getFrameNumber(),cameraFrame.getCaptureTime());
+                            }
+                        },Continuation.create(callbackHandler,new CameraCaptureSession.StatusCallback(){
+                            @Override public void onCaptureSequenceCompleted(@NonNull CameraCaptureSession session,CameraCaptureSequenceId id,long lastFrameNumber){
+                                RobotLog.ii(TAG,"capture sequence %s reports completed: lastFrame=%d",id,lastFrameNumber);
+                            }
+                        }));
+                        synchronizer.finish(session);
+                    }catch(CameraException|RuntimeException e){
+                        RobotLog.ee(TAG,e,"exception starting capture");
+                        session.close();
+                        synchronizer.finish(null);
+                    }
+                }
+            }));
+        }catch(CameraException|RuntimeException e){
+            RobotLog.ee(TAG,e,"exception starting camera");
+            synchronizer.finish(null);
+        }
+        try{
+            synchronizer.await();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        session=synchronizer.getValue();
+        if(session==null){
+            close();
+            throw new IllegalStateException("the webcam couldn't be started, see the robot log");
+        }
+    }
+
+    public void close(){
+        if(session!=null){
+            session.stopCapture();
+            session.close();
+            session=null;
+        }
+        if(camera!=null){
+            camera.close();
+            camera=null;
+        }
+    }
+
+    public void setPaused(boolean paused){
+        this.paused=paused;
+    }
+
+    public boolean isPaused(){
+        return paused;
+    }
+
+    public FramePool<Bitmap> getFrames(){
+        return frames;
+    }
+
+    public int getWidth(){//only after open()
+        return size.getWidth();
+    }
+
+    public int getHeight(){
+        return size.getHeight();
+    }
+}